@@ -0,0 +1,101 @@
+package com.piglet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Compares a JMH CSV result file ({@code -rf csv}) against a stored baseline and
+ * exits non-zero when any benchmark got slower by more than the allowed margin.
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar com.piglet.BaselineCheck baseline.csv current.csv [maxRegressionPercent]
+ * </pre>
+ * Only time-per-operation modes are compared; a benchmark missing from either
+ * file is reported but not treated as a failure.
+ */
+public class BaselineCheck {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineCheck <baseline.csv> <current.csv> [maxRegressionPercent]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Double> baseline = read(Paths.get(args[0]));
+        Map<String, Double> current = read(Paths.get(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            Double before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.println("ℹ " + entry.getKey() + ": no baseline");
+                continue;
+            }
+            double change = (entry.getValue() - before) * 100.0 / before;
+            boolean regressed = change > maxRegression;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.println(String.format("%s %s: %.3f -> %.3f (%+.1f%%)",
+                regressed ? "✗" : "✓", entry.getKey(), before, entry.getValue(), change));
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                System.out.println("ℹ " + name + ": not in current run");
+            }
+        }
+
+        System.out.println(regressions == 0
+            ? "✓ No regressions above " + maxRegression + "%"
+            : "✗ " + regressions + " regression(s) above " + maxRegression + "%");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    /** Benchmark name plus parameters mapped to score, for average and single-shot time rows. */
+    private static Map<String, Double> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        List<String> header = parseLine(lines.get(0));
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            List<String> fields = parseLine(line);
+            if (!fields.get(mode).equals("avgt") && !fields.get(mode).equals("ss")) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(fields.get(0));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && !fields.get(i).isEmpty()) {
+                    key.append(' ').append(header.get(i).substring(7)).append('=').append(fields.get(i));
+                }
+            }
+            scores.put(key.toString(), Double.parseDouble(fields.get(score)));
+        }
+        return scores;
+    }
+
+    private static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,51 @@
+package com.piglet;
+
+import org.openjdk.jmh.annotations.*;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link BeanShellScriptRunner#executeAllScripts()} over a directory
+ * of generated scripts. The runner, its interpreter pool and its script cache
+ * live for the whole trial, so this measures steady-state runs with warm caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BeanShellBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int scripts;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private Path resourcesDir;
+    private BeanShellScriptRunner runner;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        resourcesDir = Files.createTempDirectory("piglet-bench-bsh");
+        BenchmarkData.writeScripts(resourcesDir, scripts);
+        runner = new BeanShellScriptRunner(resourcesDir.toString(), threads, 0, new ScriptCache(scripts, null));
+        stdout = BenchmarkData.silenceStdout();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.setOut(stdout);
+        BenchmarkData.delete(resourcesDir);
+    }
+
+    @Benchmark
+    public List<PigletRunner.TestResult> executeAllScripts() {
+        return runner.executeAllScripts();
+    }
+}
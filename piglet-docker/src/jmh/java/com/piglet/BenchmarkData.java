@@ -0,0 +1,99 @@
+package com.piglet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generated inputs for the benchmarks, laid out like {@code /piglet/resources}.
+ * Everything is seeded so every fork and every run sees the same data.
+ */
+final class BenchmarkData {
+
+    private static final String[] STATUSES = { "PASSED", "FAILED", "SKIPPED" };
+    private static final String[] PRIORITIES = { "HIGH", "MEDIUM", "LOW" };
+
+    private BenchmarkData() {
+    }
+
+    /** Writes {@code triples} test-case triples (three per test case) spread over {@code files} Turtle files. */
+    static void writeDataset(Path resourcesDir, int triples, int files) throws IOException {
+        Path dataDir = Files.createDirectories(resourcesDir.resolve("data"));
+        Random random = new Random(42);
+        int testCases = triples / 3;
+        for (int file = 0; file < files; file++) {
+            try (BufferedWriter out = Files.newBufferedWriter(dataDir.resolve("bench" + file + ".ttl"))) {
+                out.write("@prefix ex: <http://example.com/piglet/> .\n");
+                for (int i = file; i < testCases; i += files) {
+                    out.write("ex:TC" + i + " ex:status \"" + STATUSES[random.nextInt(STATUSES.length)]
+                        + "\" ; ex:duration " + random.nextInt(5000)
+                        + " ; ex:priority \"" + PRIORITIES[random.nextInt(PRIORITIES.length)] + "\" .\n");
+                }
+            }
+        }
+    }
+
+    static Path writeQuery(Path resourcesDir, String name, String query) throws IOException {
+        Path sparqlDir = Files.createDirectories(resourcesDir.resolve("sparql"));
+        return Files.write(sparqlDir.resolve(name), query.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Writes {@code count} small assertion scripts in the style of the shipped samples. */
+    static void writeScripts(Path resourcesDir, int count) throws IOException {
+        Path bshDir = Files.createDirectories(resourcesDir.resolve("beanshell"));
+        for (int i = 0; i < count; i++) {
+            String script = "testName = \"Generated Test " + i + "\";\n"
+                + "total = 0;\n"
+                + "for (j = 0; j < 1000; j++) {\n"
+                + "    total += j % 7;\n"
+                + "}\n"
+                + "if (total > 0) {\n"
+                + "    success = true;\n"
+                + "} else {\n"
+                + "    success = false;\n"
+                + "}\n";
+            Files.write(bshDir.resolve(String.format("bench_%05d.bsh", i)), script.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    static PigletRunner.TestResults results(int count) {
+        PigletRunner.TestResults results = new PigletRunner.TestResults();
+        for (int i = 0; i < count; i++) {
+            boolean passed = i % 10 != 0;
+            if (i % 2 == 0) {
+                results.addBeanShellResult(new PigletRunner.TestResult("bench_" + i + ".bsh", passed,
+                    "Generated Test " + i + " " + (passed ? "PASSED" : "FAILED") + " - 3 ms", "BEANSHELL"));
+            } else {
+                results.addSparqlResult(new PigletRunner.TestResult("bench_" + i + ".sparql", passed,
+                    "Query returned " + i + " results", "SPARQL"));
+            }
+        }
+        return results;
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Swaps System.out for a sink while a benchmark runs: the runners report
+     * progress line by line, which would otherwise be measured and flood the log.
+     */
+    static PrintStream silenceStdout() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+}
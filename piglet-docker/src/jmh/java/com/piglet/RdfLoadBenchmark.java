@@ -0,0 +1,59 @@
+package com.piglet;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Factory;
+import org.openjdk.jmh.annotations.*;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SparqlQueryExecutor#loadRDFData} over generated datasets of growing size,
+ * into Jena's default graph ("memory") and into the int-array graph ("compact",
+ * including the final index build).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class RdfLoadBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int triples;
+
+    @Param({ "memory", "compact" })
+    public String store;
+
+    private Path resourcesDir;
+    private SparqlQueryExecutor executor;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        resourcesDir = Files.createTempDirectory("piglet-bench-rdf");
+        BenchmarkData.writeDataset(resourcesDir, triples, 4);
+        executor = new SparqlQueryExecutor(resourcesDir.toString(), 4, 10000);
+        stdout = BenchmarkData.silenceStdout();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.setOut(stdout);
+        BenchmarkData.delete(resourcesDir);
+    }
+
+    @Benchmark
+    public Graph loadRDFData() {
+        if ("compact".equals(store)) {
+            CompactGraphBuilder builder = new CompactGraphBuilder();
+            executor.loadRDFData(builder);
+            return builder.build();
+        }
+        Graph graph = Factory.createDefaultGraph();
+        executor.loadRDFData(graph);
+        return graph;
+    }
+}
@@ -0,0 +1,48 @@
+package com.piglet;
+
+import org.openjdk.jmh.annotations.*;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PigletRunner#generateHTMLReport} for 10k to 1M results. Run with
+ * {@code -prof gc} to see allocation per report alongside the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class ReportBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int results;
+
+    private PigletRunner.TestResults testResults;
+    private Path outputDir;
+    private Path report;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        testResults = BenchmarkData.results(results);
+        outputDir = Files.createTempDirectory("piglet-bench-report");
+        report = outputDir.resolve("piglet-test-report.html");
+        stdout = BenchmarkData.silenceStdout();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.setOut(stdout);
+        BenchmarkData.delete(outputDir);
+    }
+
+    @Benchmark
+    public long generateHTMLReport() throws Exception {
+        PigletRunner.generateHTMLReport(testResults, 1234, report);
+        return Files.size(report);
+    }
+}
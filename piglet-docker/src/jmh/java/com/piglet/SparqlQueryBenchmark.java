@@ -0,0 +1,81 @@
+package com.piglet;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Factory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.openjdk.jmh.annotations.*;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SparqlQueryExecutor#executeRDFQuery} against a dataset loaded once per
+ * trial: a three-pattern star join and a single-pattern count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class SparqlQueryBenchmark {
+
+    private static final String PREFIX = "PREFIX ex: <http://example.com/piglet/>\n";
+
+    @Param({ "10000", "100000", "1000000" })
+    public int triples;
+
+    @Param({ "memory", "compact" })
+    public String store;
+
+    private Path resourcesDir;
+    private SparqlQueryExecutor executor;
+    private Model model;
+    private File joinQuery;
+    private File countQuery;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        resourcesDir = Files.createTempDirectory("piglet-bench-sparql");
+        BenchmarkData.writeDataset(resourcesDir, triples, 4);
+        joinQuery = BenchmarkData.writeQuery(resourcesDir, "join.sparql", PREFIX
+            + "SELECT ?tc ?status ?duration WHERE { ?tc ex:status ?status ; ex:priority \"HIGH\" ; ex:duration ?duration }")
+            .toFile();
+        countQuery = BenchmarkData.writeQuery(resourcesDir, "count.sparql", PREFIX
+            + "SELECT ?tc WHERE { ?tc ex:status \"FAILED\" }").toFile();
+
+        stdout = BenchmarkData.silenceStdout();
+        executor = new SparqlQueryExecutor(resourcesDir.toString(), 4, 10000);
+        Graph graph;
+        if ("compact".equals(store)) {
+            CompactGraphBuilder builder = new CompactGraphBuilder();
+            executor.loadRDFData(builder);
+            graph = builder.build();
+        } else {
+            Graph loaded = Factory.createDefaultGraph();
+            executor.loadRDFData(loaded);
+            graph = new ReadOnlyGraph(loaded);
+        }
+        model = ModelFactory.createModelForGraph(graph);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.setOut(stdout);
+        BenchmarkData.delete(resourcesDir);
+    }
+
+    @Benchmark
+    public PigletRunner.TestResult starJoin() {
+        return executor.executeRDFQuery(model, joinQuery);
+    }
+
+    @Benchmark
+    public PigletRunner.TestResult patternCount() {
+        return executor.executeRDFQuery(model, countQuery);
+    }
+}
@@ -0,0 +1,68 @@
+package com.piglet;
+
+import org.openjdk.jmh.annotations.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock time of a cold {@code java -jar piglet-example.jar} run, with and
+ * without the class-data-sharing archive from {@code mvn -P startup package}.
+ * Each invocation starts a fresh JVM against {@code /piglet/resources}, so
+ * this is what a CI container pays per run.
+ *
+ * The jar and archive default to {@code target/}; point elsewhere with
+ * {@code -jvmArgsAppend -Dpiglet.startup.jar=... -Dpiglet.startup.archive=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({ "none", "appcds" })
+    public String archive;
+
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Path jar = Paths.get(System.getProperty("piglet.startup.jar", "target/piglet-example.jar")).toAbsolutePath();
+        Path cds = Paths.get(System.getProperty("piglet.startup.archive", "target/piglet-cds.jsa")).toAbsolutePath();
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No runner jar at " + jar + "; build it with mvn package");
+        }
+        command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if ("appcds".equals(archive)) {
+            if (!Files.isRegularFile(cds)) {
+                throw new IllegalStateException("No CDS archive at " + cds + "; build it with mvn -P startup package");
+            }
+            // Fail instead of silently running without the archive if it doesn't match this JDK or jar
+            command.add("-Xshare:on");
+            command.add("-XX:SharedArchiveFile=" + cds);
+        }
+        command.add("-Dpiglet.results.formats=");
+        command.add("-jar");
+        command.add(jar.toString());
+    }
+
+    @Benchmark
+    public int coldRun() throws Exception {
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.to(new File(System.getProperty("os.name").startsWith("Windows")
+                ? "NUL" : "/dev/null")))
+            .start();
+        int exit = process.waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException("Runner exited with " + exit + ": " + String.join(" ", command));
+        }
+        return exit;
+    }
+}
@@ -0,0 +1,129 @@
+package bsh;
+
+import java.io.Reader;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A BeanShell script parsed once into its statement nodes, ready to be
+ * evaluated any number of times without going back through the parser.
+ *
+ * This class sits in the {@code bsh} package because the parser's node types
+ * are package-private. {@link #eval} mirrors the statement loop of
+ * {@link Interpreter#eval(Reader, NameSpace, String)} minus the parsing.
+ *
+ * BeanShell itself never checks for interrupts, so a script stuck in a loop
+ * can't be cancelled. {@link #eval} runs the script on a call stack that does:
+ * every block, loop iteration and name lookup goes through the stack's top, and
+ * once the thread is interrupted that throws and the script stops with an
+ * {@link EvalError}.
+ */
+public final class CompiledScript implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SimpleNode[] nodes;
+    private final String sourceFile;
+
+    private CompiledScript(SimpleNode[] nodes, String sourceFile) {
+        this.nodes = nodes;
+        this.sourceFile = sourceFile;
+    }
+
+    public static CompiledScript compile(Reader source, String sourceFile) throws EvalError {
+        Parser parser = new Parser(source);
+        List<SimpleNode> nodes = new ArrayList<>();
+        try {
+            while (!parser.Line()) {
+                SimpleNode node = parser.popNode();
+                if (node != null) {
+                    node.setSourceFile(sourceFile);
+                    nodes.add(node);
+                }
+            }
+        } catch (ParseException e) {
+            e.setErrorSourceFile(sourceFile);
+            throw e;
+        } catch (TokenMgrError e) {
+            throw new EvalError("Token parsing error: " + e.getMessage(), null, null);
+        }
+        return new CompiledScript(nodes.toArray(new SimpleNode[0]), sourceFile);
+    }
+
+    /**
+     * Evaluates the script's statements in {@code scope}, returning the value of
+     * the last statement or of an explicit top-level {@code return}.
+     */
+    public Object eval(Interpreter interpreter, NameSpace scope) throws EvalError {
+        CallStack callstack = new InterruptibleCallStack(scope);
+        Object result = null;
+        try {
+            for (SimpleNode node : nodes) {
+                result = node.eval(callstack, interpreter);
+                if (result instanceof ReturnControl) {
+                    result = ((ReturnControl) result).value;
+                    break;
+                }
+                if (callstack.depth() > 1) {
+                    callstack.clear();
+                    callstack.push(scope);
+                }
+            }
+        } catch (InterpreterError e) {
+            throw new EvalError("Internal interpreter error in " + sourceFile + ": " + e.getMessage(), null, callstack);
+        } catch (Interrupted e) {
+            throw new EvalError("Script interrupted in " + sourceFile, null, callstack);
+        }
+        return Primitive.unwrap(result);
+    }
+
+    /**
+     * Splits the script at source line {@code line} into the statements that
+     * start before it and those that start on or after it.
+     */
+    public CompiledScript[] splitAt(int line) {
+        List<SimpleNode> before = new ArrayList<>();
+        List<SimpleNode> after = new ArrayList<>();
+        for (SimpleNode node : nodes) {
+            (node.getLineNumber() < line ? before : after).add(node);
+        }
+        return new CompiledScript[] {
+            new CompiledScript(before.toArray(new SimpleNode[0]), sourceFile),
+            new CompiledScript(after.toArray(new SimpleNode[0]), sourceFile)
+        };
+    }
+
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    public int getStatementCount() {
+        return nodes.length;
+    }
+
+    private static final class InterruptibleCallStack extends CallStack {
+
+        InterruptibleCallStack(NameSpace scope) {
+            super(scope);
+        }
+
+        @Override
+        public NameSpace top() {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new Interrupted();
+            }
+            return super.top();
+        }
+    }
+
+    /** Unwinds an interrupted script; unchecked so it passes through the node evaluators. */
+    private static final class Interrupted extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        Interrupted() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -1,106 +1,729 @@
 package com.piglet;
 
+import bsh.CompiledScript;
+import bsh.EvalError;
+import bsh.Interpreter;
+import bsh.NameSpace;
+import bsh.Primitive;
+import bsh.TargetError;
+import bsh.UtilEvalError;
+import org.apache.jena.graph.Graph;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class BeanShellScriptRunner {
 
+    // In a data-driven script, the statements above this line are the fixture and those below run per row
+    private static final String ROW_MARKER = "// @row";
+
     private String resourcesDir;
+    private final int parallelism;
+    private final long timeoutMillis;
+    private final ScriptCache scriptCache;
+    private InterpreterPool interpreterPool;
+    private RunManifest runManifest;
+    private RunMetrics metrics = new RunMetrics();
+    private ShardPlan shardPlan;
+    private TestTimings timings = TestTimings.load(null);
+    private FailFast failFast = new FailFast(0);
+    private Supplier<Graph> dataGraph = () -> {
+        throw new IllegalStateException("no data available to query for script rows");
+    };
+    private int rowBatchSize = 256;
 
     public BeanShellScriptRunner(String resourcesDir) {
+        this(resourcesDir, 1, 0, new ScriptCache(1024, null));
+    }
+
+    /**
+     * @param parallelism   number of worker threads scripts are spread across
+     * @param timeoutMillis per-script time limit, or 0 to let scripts run to completion
+     * @param scriptCache   cache of parsed scripts, shared across runs
+     */
+    public BeanShellScriptRunner(String resourcesDir, int parallelism, long timeoutMillis, ScriptCache scriptCache) {
         this.resourcesDir = resourcesDir;
+        this.parallelism = parallelism;
+        this.timeoutMillis = timeoutMillis;
+        this.scriptCache = scriptCache;
+    }
+
+    /** Reuse passing results of unchanged scripts from {@code manifest}, or run everything when null. */
+    void setRunManifest(RunManifest manifest) {
+        this.runManifest = manifest;
+    }
+
+    /** Collects phase times and per-script latency and allocation into {@code metrics}. */
+    void setMetrics(RunMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** Use interpreters that are already warm, shared with other runs, instead of building a pool. */
+    void setInterpreterPool(InterpreterPool pool) {
+        this.interpreterPool = pool;
+    }
+
+    /** Run only the scripts {@code plan} assigns to this shard, or all of them when null. */
+    void setShardPlan(ShardPlan plan) {
+        this.shardPlan = plan;
+    }
+
+    /** Start the scripts longest first by the durations in {@code timings}. */
+    void setTestTimings(TestTimings timings) {
+        this.timings = timings;
+    }
+
+    /** Skip the scripts not yet started once {@code failFast} has seen enough failures. */
+    void setFailFast(FailFast failFast) {
+        this.failFast = failFast;
+    }
+
+    /** Where query-driven scripts get the loaded data from; asked only when such a script exists. */
+    void setDataGraph(Supplier<Graph> dataGraph) {
+        this.dataGraph = dataGraph;
+    }
+
+    /** Number of rows of a data-driven script a worker takes at a time, sharing one fixture run. */
+    void setRowBatchSize(int rowBatchSize) {
+        this.rowBatchSize = Math.max(1, rowBatchSize);
     }
 
     public List<PigletRunner.TestResult> executeAllScripts() {
         List<PigletRunner.TestResult> results = new ArrayList<>();
+        try {
+            executeAllScripts(results::add);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return results;
+    }
+
+    /** Runs every script, handing each result to {@code sink} in script-name order as soon as it is ready. */
+    void executeAllScripts(ResultSink sink) throws IOException, InterruptedException {
         File bshDir = new File(resourcesDir + "/beanshell");
 
+        // Only the primary shard stands in sample results for a missing or empty suite
+        if (shardPlan != null && !shardPlan.isPrimary() && !bshDir.exists()) {
+            return;
+        }
         if (!bshDir.exists()) {
             System.out.println("✗ BeanShell directory not found, creating sample results");
-            results.add(createMockBeanShellResult("Mock QA Test 1", true));
-            results.add(createMockBeanShellResult("Mock QA Test 2", true));
-            results.add(createMockBeanShellResult("Mock QA Test 3", false));
-            return results;
+            sink.accept(createMockBeanShellResult("Mock QA Test 1", true));
+            sink.accept(createMockBeanShellResult("Mock QA Test 2", true));
+            sink.accept(createMockBeanShellResult("Mock QA Test 3", false));
+            return;
         }
 
         File[] scripts = bshDir.listFiles((dir, name) -> name.endsWith(".bsh"));
         
+        if (shardPlan != null && scripts != null && scripts.length > 0) {
+            scripts = shardPlan.select("beanshell", scripts);
+            System.out.println("  ℹ Shard " + shardPlan.getIndex() + " of " + shardPlan.getCount()
+                + ": " + scripts.length + " script(s)");
+            if (scripts.length == 0) {
+                return;
+            }
+        } else if (shardPlan != null && !shardPlan.isPrimary()) {
+            return;
+        }
+
         if (scripts == null || scripts.length == 0) {
             System.out.println("ℹ No BeanShell scripts found, creating example results");
-            results.add(createMockBeanShellResult("Mock QA Test 1", true));
-            results.add(createMockBeanShellResult("Mock QA Test 2", true));
-            results.add(createMockBeanShellResult("Mock QA Test 3", false));
-            return results;
+            sink.accept(createMockBeanShellResult("Mock QA Test 1", true));
+            sink.accept(createMockBeanShellResult("Mock QA Test 2", true));
+            sink.accept(createMockBeanShellResult("Mock QA Test 3", false));
+            return;
         }
 
-        for (File script : scripts) {
-            try {
-                System.out.println("  → Executing: " + script.getName());
-                
-                // Read script content
-                String scriptContent = Files.readString(Paths.get(script.getAbsolutePath()));
-                
-                // Parse and execute script logic
-                TestScriptResult scriptResult = parseAndExecuteScript(scriptContent, script.getName());
-                
-                System.out.println("    ✓ Completed: " + scriptResult.getMessage());
-                results.add(new PigletRunner.TestResult(
-                    script.getName(),
+        // Sort so results come back in the same order on every run, whatever
+        // order the workers happen to finish in.
+        Arrays.sort(scripts, Comparator.comparing(File::getName));
+
+        // A script with a CSV or query file next to it runs once per row of that file
+        File[] rowSources = new File[scripts.length];
+        for (int i = 0; i < scripts.length; i++) {
+            rowSources[i] = ScriptRows.sourceFor(scripts[i]);
+        }
+
+        // Scripts whose content matches a passing result in the run manifest are not run again.
+        // Data-driven scripts have a result per row, so they always run.
+        String[] hashes = new String[scripts.length];
+        PigletRunner.TestResult[] previous = new PigletRunner.TestResult[scripts.length];
+        int toRun = scripts.length;
+        if (runManifest != null) {
+            for (int i = 0; i < scripts.length; i++) {
+                if (rowSources[i] != null) {
+                    continue;
+                }
+                hashes[i] = runManifest.hash(scripts[i]);
+                previous[i] = runManifest.reuse(manifestKey(scripts[i]), hashes[i]);
+                if (previous[i] != null) {
+                    toRun--;
+                }
+            }
+            System.out.println("  ℹ " + (scripts.length - toRun) + " unchanged script(s) reused, "
+                + toRun + " to run");
+        }
+
+        // Rows are read and data-driven scripts parsed up front, so the work can be cut into batches
+        DataDriven[] dataDriven = new DataDriven[scripts.length];
+        int units = 0;
+        for (int i = 0; i < scripts.length; i++) {
+            if (previous[i] != null) {
+                continue;
+            }
+            if (rowSources[i] != null) {
+                dataDriven[i] = prepareRows(scripts[i], rowSources[i]);
+                units += dataDriven[i].batchCount();
+            } else {
+                units++;
+            }
+        }
+
+        int threads = Math.max(1, Math.min(parallelism, units));
+        if (toRun > 0) {
+            System.out.println("  ℹ Running " + toRun + " scripts on " + threads + " worker thread(s)");
+            // Build the interpreters before the clock starts on any script timeout
+            interpreterPool();
+        }
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), WorkerThreads.daemon("piglet-bsh"));
+        ScriptWatchdog watchdog = timeoutMillis > 0 ? new ScriptWatchdog(pool) : null;
+
+        try {
+            List<FutureTask<TestScriptResult>> tasks = new ArrayList<>(scripts.length);
+            // Every task to start, its time estimate and the script it runs, indexed alike
+            List<FutureTask<?>> work = new ArrayList<>(units);
+            List<Long> estimates = new ArrayList<>(units);
+            List<File> owners = new ArrayList<>(units);
+            int unknown = 0;
+            for (int i = 0; i < scripts.length; i++) {
+                if (previous[i] != null) {
+                    tasks.add(null);
+                    continue;
+                }
+                File script = scripts[i];
+                long estimate = timings.estimate(manifestKey(script));
+                if (!timings.isKnown(manifestKey(script))) {
+                    unknown++;
+                }
+                if (dataDriven[i] != null) {
+                    tasks.add(null);
+                    DataDriven rows = dataDriven[i];
+                    for (RowBatch batch : rows.batches) {
+                        // The batch times each of its rows itself
+                        batch.watchdog = watchdog;
+                        work.add(batch.task);
+                        estimates.add(estimate / rows.batchCount());
+                        owners.add(null);
+                    }
+                    continue;
+                }
+                FutureTask<TestScriptResult> task = new FutureTask<>(() -> {
+                    if (failFast.skip()) {
+                        return null;
+                    }
+                    long allocatedBefore = RunMetrics.threadAllocatedBytes();
+                    long start = System.nanoTime();
+                    TestScriptResult scriptResult = executeScript(script);
+                    scriptResult.durationNanos = System.nanoTime() - start;
+                    long allocatedAfter = RunMetrics.threadAllocatedBytes();
+                    metrics.recordTest("BEANSHELL", scriptResult.durationNanos,
+                        allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+                    return scriptResult;
+                });
+                tasks.add(task);
+                work.add(task);
+                estimates.add(estimate);
+                owners.add(script);
+            }
+
+            // The pool's queue is FIFO, so submitting longest first is what makes idle workers take them first
+            long[] estimated = new long[work.size()];
+            for (int k = 0; k < estimated.length; k++) {
+                estimated[k] = estimates.get(k);
+            }
+            LptSchedule schedule = new LptSchedule(estimated, unknown, threads);
+            long batchStart = System.nanoTime();
+            for (int k : schedule.getOrder()) {
+                FutureTask<?> task = work.get(k);
+                File owner = owners.get(k);
+                pool.execute(() -> {
+                    if (owner != null) {
+                        runWithTimeout(task, watchdog, owner);
+                    } else {
+                        task.run();
+                    }
+                    if (failed(task)) {
+                        failFast.recordFailure();
+                    }
+                });
+            }
+            if (toRun > 0) {
+                schedule.print();
+            }
+
+            for (int i = 0; i < scripts.length; i++) {
+                if (previous[i] != null) {
+                    System.out.println("  → Unchanged: " + scripts[i].getName());
+                    System.out.println("    ✓ Completed: " + previous[i].getMessage());
+                    sink.accept(previous[i]);
+                    continue;
+                }
+                if (dataDriven[i] != null) {
+                    emitRows(scripts[i], dataDriven[i], sink);
+                    continue;
+                }
+                TestScriptResult scriptResult = awaitResult(tasks.get(i));
+                if (scriptResult == null) {
+                    System.out.println("  → Skipped: " + scripts[i].getName());
+                    continue;
+                }
+                System.out.println("  → Executing: " + scripts[i].getName());
+                for (String line : scriptResult.getOutput().split("\\R")) {
+                    if (!line.isEmpty()) {
+                        System.out.println("      | " + line);
+                    }
+                }
+                PigletRunner.TestResult result = new PigletRunner.TestResult(
+                    scripts[i].getName(),
                     scriptResult.isPassed(),
                     scriptResult.getMessage(),
-                    "BEANSHELL"
-                ));
-            } catch (Exception e) {
-                System.out.println("    ✗ Failed: " + e.getMessage());
-                results.add(new PigletRunner.TestResult(
-                    script.getName(),
-                    false,
-                    "Error: " + e.getMessage(),
-                    "BEANSHELL"
-                ));
+                    "BEANSHELL",
+                    scriptResult.getDurationNanos()
+                );
+                if (result.isPassed()) {
+                    System.out.println("    ✓ Completed: " + result.getMessage());
+                } else {
+                    System.out.println("    ✗ Failed: " + result.getMessage());
+                }
+                timings.record(manifestKey(scripts[i]), result.getDurationNanos());
+                if (runManifest != null) {
+                    runManifest.record(manifestKey(scripts[i]), hashes[i], result);
+                }
+                sink.accept(result);
+            }
+            if (toRun > 0) {
+                // Every task has been awaited or given up on by now; a time stamped by the worker
+                // after its task completes could still be missing here
+                long actual = System.nanoTime() - batchStart;
+                metrics.recordMakespan("BEANSHELL", schedule.getMakespanNanos(), actual);
+                System.out.println(String.format("  ℹ Makespan: predicted %s ms, actual %s ms",
+                    RunMetrics.millis(schedule.getMakespanNanos()), RunMetrics.millis(actual)));
+            }
+        } finally {
+            pool.shutdownNow();
+            if (watchdog != null) {
+                watchdog.shutdown();
             }
         }
+        if (toRun > 0) {
+            printPoolStats();
+        }
+        scriptCache.flush();
+    }
 
-        return results;
+    private static String manifestKey(File script) {
+        return TestTimings.key("beanshell", script.getName());
     }
 
-    private TestScriptResult parseAndExecuteScript(String scriptContent, String scriptName) {
+    private TestScriptResult executeScript(File script) {
+        CompiledScript compiled;
+        long parseStart = System.nanoTime();
         try {
-            // Extract test name from script
-            String testName = "BeanShell Test";
-            if (scriptContent.contains("testName")) {
-                int start = scriptContent.indexOf("testName") + 10;
-                int end = scriptContent.indexOf(";", start);
-                if (start > 9 && end > start) {
-                    testName = scriptContent.substring(start, end).replaceAll("[\"']", "").trim();
-                }
-            }
-            
-            // Check if test contains assertions
-            boolean hasAssertions = scriptContent.contains("if") && scriptContent.contains("else");
-            boolean hasSuccess = scriptContent.toLowerCase().contains("success = true") || 
-                                scriptContent.toLowerCase().contains("print.*passed");
-            
-            // Simulate execution
-            long startTime = System.currentTimeMillis();
-            Thread.sleep(50); // Simulate some processing
-            long endTime = System.currentTimeMillis();
-            
-            String message = String.format("Test executed successfully (simulated) - %d ms", 
-                endTime - startTime);
-            
-            // If script has success variable, assume it passed
-            boolean passed = hasAssertions || hasSuccess || Math.random() > 0.3;
-            
-            return new TestScriptResult(testName, passed, message);
-            
-        } catch (Exception e) {
+            // Unchanged scripts come straight from the cache, already parsed
+            compiled = scriptCache.load(script);
+        } catch (EvalError e) {
             return new TestScriptResult("Script Parse Error", false, e.getMessage());
+        } catch (Exception e) {
+            return new TestScriptResult(script.getName(), false, "Error: " + e.getMessage());
+        } finally {
+            metrics.addPhase(RunMetrics.Phase.PARSE, System.nanoTime() - parseStart);
+        }
+
+        // Run the script in a pooled interpreter
+        return executeCompiledScript(compiled, script.getName());
+    }
+
+    /**
+     * Runs the task on the current worker thread. The timeout clock starts when the
+     * script starts, not when it was queued, so a long queue doesn't eat into it.
+     * A timed-out script is reported right away by cancelling its task, whether
+     * or not the script has stopped yet.
+     */
+    private void runWithTimeout(FutureTask<?> task, ScriptWatchdog watchdog, File script) {
+        if (watchdog == null) {
+            task.run();
+            return;
+        }
+        ScriptWatchdog.Deadline deadline = watchdog.start(timeoutMillis, () -> {
+            task.cancel(true);
+            failFast.recordFailure();
+        }, () -> System.out.println("  ⚠ " + script.getName() + " ignored its timeout; its worker was replaced"));
+        try {
+            task.run();
+        } finally {
+            deadline.finish();
+        }
+    }
+
+    /**
+     * Whether a finished task threw or ran a script that failed. Timeouts are
+     * counted when they happen, and batches of rows report their failed rows
+     * themselves as they go.
+     */
+    private static boolean failed(FutureTask<?> task) {
+        if (task.isCancelled()) {
+            return false;
+        }
+        try {
+            Object result = task.get();
+            return result instanceof TestScriptResult && !((TestScriptResult) result).isPassed();
+        } catch (ExecutionException | InterruptedException e) {
+            return true;
+        }
+    }
+
+    /** The script's result, or null when fail-fast skipped it. */
+    private TestScriptResult awaitResult(FutureTask<TestScriptResult> task) {
+        try {
+            return task.get();
+        } catch (CancellationException e) {
+            // Only the watchdog cancels tasks
+            return new TestScriptResult("Timeout", false, "Timed out after " + timeoutMillis + " ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return new TestScriptResult("Error", false, "Error: " + cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(true);
+            return new TestScriptResult("Interrupted", false, "Interrupted while waiting for script");
+        }
+    }
+
+    private TestScriptResult executeCompiledScript(CompiledScript script, String scriptName) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8);
+        InterpreterPool.Lease lease = interpreterPool().acquire(out);
+        try {
+            String interpreterInfo = String.format("interpreter %s in %.2f ms",
+                lease.isFresh() ? "created" : "reused", lease.getAcquireNanos() / 1_000_000.0);
+            return evaluate(script, lease.getInterpreter(), lease.getScope(), scriptName, output, interpreterInfo);
+        } finally {
+            release(lease);
         }
     }
 
+    /** Returns the lease to the pool, unless its script hung past its timeout and was given up on. */
+    private void release(InterpreterPool.Lease lease) {
+        if (ScriptWatchdog.isCurrentAbandoned()) {
+            interpreterPool().discard(lease);
+        } else {
+            interpreterPool().release(lease);
+        }
+    }
+
+    /**
+     * Runs {@code script} in {@code scope} and reads its verdict from the
+     * {@code success} and {@code testName} variables it sets.
+     */
+    private TestScriptResult evaluate(CompiledScript script, Interpreter interpreter, NameSpace scope,
+                                      String scriptName, ByteArrayOutputStream output, String info) {
+        try {
+            long startTime = System.nanoTime();
+            try {
+                script.eval(interpreter, scope);
+            } finally {
+                metrics.addPhase(RunMetrics.Phase.EXECUTE, System.nanoTime() - startTime);
+            }
+            long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+            Object testName = Primitive.unwrap(scope.getVariable("testName"));
+            Object success = Primitive.unwrap(scope.getVariable("success"));
+            String name = testName instanceof String ? (String) testName : scriptName;
+
+            if (!(success instanceof Boolean)) {
+                return new TestScriptResult(name, false,
+                    String.format("%s - script did not set 'success' - %d ms (%s)", name, elapsedMillis, info),
+                    output.toString(StandardCharsets.UTF_8));
+            }
+
+            boolean passed = (Boolean) success;
+            String message = String.format("%s %s - %d ms (%s)",
+                name, passed ? "passed" : "failed", elapsedMillis, info);
+            return new TestScriptResult(name, passed, message, output.toString(StandardCharsets.UTF_8));
+
+        } catch (TargetError e) {
+            return new TestScriptResult(scriptName, false,
+                "Script threw " + e.getTarget() + " at line " + e.getErrorLineNumber(),
+                output.toString(StandardCharsets.UTF_8));
+        } catch (EvalError e) {
+            return new TestScriptResult("Script Error", false,
+                e.getMessage(), output.toString(StandardCharsets.UTF_8));
+        } catch (UtilEvalError e) {
+            return new TestScriptResult(scriptName, false,
+                e.getMessage(), output.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Reads the rows of a data-driven script and parses it once, then cuts the
+     * rows into batches of {@link #rowBatchSize}, one worker task each.
+     */
+    private DataDriven prepareRows(File script, File source) {
+        ScriptRows rows;
+        long loadStart = System.nanoTime();
+        try {
+            rows = ScriptRows.load(source, dataGraph);
+        } catch (Exception e) {
+            return new DataDriven("Could not read rows from " + source.getName() + ": " + e.getMessage());
+        } finally {
+            metrics.addPhase(RunMetrics.Phase.LOAD, System.nanoTime() - loadStart);
+        }
+
+        CompiledScript[] parts;
+        long parseStart = System.nanoTime();
+        try {
+            parts = fixtureAndRow(script, scriptCache.load(script));
+        } catch (EvalError e) {
+            return new DataDriven("Script Parse Error: " + e.getMessage());
+        } catch (Exception e) {
+            return new DataDriven("Error: " + e.getMessage());
+        } finally {
+            metrics.addPhase(RunMetrics.Phase.PARSE, System.nanoTime() - parseStart);
+        }
+
+        DataDriven driven = new DataDriven(rows, rowBatchSize);
+        for (int from = 0; from < rows.size(); from += rowBatchSize) {
+            RowBatch batch = new RowBatch(script.getName(), from, Math.min(rows.size(), from + rowBatchSize));
+            batch.task = new FutureTask<>(() -> executeRows(script.getName(), parts, rows, batch));
+            driven.batches.add(batch);
+        }
+        return driven;
+    }
+
+    /** The statements before the {@link #ROW_MARKER} line, and those after it. */
+    private static CompiledScript[] fixtureAndRow(File script, CompiledScript compiled) throws IOException {
+        List<String> lines = Files.readAllLines(script.toPath(), StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).trim().equals(ROW_MARKER)) {
+                return compiled.splitAt(i + 1);
+            }
+        }
+        return compiled.splitAt(0);
+    }
+
+    /**
+     * Runs the batch's rows in one interpreter. The fixture runs once in the
+     * lease's namespace; each row then runs in a child namespace holding its
+     * column values and {@code row}, dropped after the row, so rows see what the
+     * fixture set up but not each other's variables. The fixture and each row
+     * get the script timeout to themselves.
+     */
+    private List<TestScriptResult> executeRows(String scriptName, CompiledScript[] parts, ScriptRows rows,
+                                               RowBatch batch) {
+        List<TestScriptResult> results = batch.results;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8);
+        InterpreterPool.Lease lease = interpreterPool().acquire(out);
+        try {
+            String fixtureError = null;
+            long fixtureStart = System.nanoTime();
+            ScriptWatchdog.Deadline deadline = batch.startClock(-1);
+            try {
+                parts[0].eval(lease.getInterpreter(), lease.getScope());
+            } catch (EvalError e) {
+                fixtureError = "Fixture failed: " + e.getMessage();
+            } finally {
+                metrics.addPhase(RunMetrics.Phase.EXECUTE, System.nanoTime() - fixtureStart);
+            }
+            if (deadline != null && deadline.finish()) {
+                if (deadline.isAbandoned()) {
+                    return results;
+                }
+                fixtureError = "Fixture timed out after " + timeoutMillis + " ms";
+            }
+
+            String[] columns = rows.getColumns();
+            for (int row = batch.from; row < batch.end && !batch.task.isCancelled(); row++) {
+                if (failFast.skip()) {
+                    results.add(null);
+                    continue;
+                }
+                output.reset();
+                long allocatedBefore = RunMetrics.threadAllocatedBytes();
+                long start = System.nanoTime();
+                deadline = fixtureError == null ? batch.startClock(row) : null;
+                TestScriptResult result;
+                if (fixtureError != null) {
+                    result = new TestScriptResult(scriptName, false, fixtureError,
+                        output.toString(StandardCharsets.UTF_8));
+                } else {
+                    NameSpace scope = new NameSpace(lease.getScope(), "piglet-row");
+                    Object[] values = rows.get(row);
+                    try {
+                        for (int c = 0; c < columns.length; c++) {
+                            scope.setVariable(columns[c], values[c] != null ? values[c] : Primitive.NULL, false);
+                        }
+                        scope.setVariable("row", row + 1, false);
+                        result = evaluate(parts[1], lease.getInterpreter(), scope, scriptName, output,
+                            "row " + (row + 1) + " of " + rows.getSource());
+                    } catch (UtilEvalError e) {
+                        result = new TestScriptResult(scriptName, false, "Could not bind row: " + e.getMessage());
+                    }
+                }
+                if (deadline != null && deadline.finish()) {
+                    if (deadline.isAbandoned()) {
+                        // The batch was already reported when this row was given up on
+                        return results;
+                    }
+                    result = new TestScriptResult(scriptName, false, "Timed out after " + timeoutMillis + " ms",
+                        output.toString(StandardCharsets.UTF_8));
+                }
+                result.durationNanos = System.nanoTime() - start;
+                long allocatedAfter = RunMetrics.threadAllocatedBytes();
+                metrics.recordTest("BEANSHELL", result.durationNanos,
+                    allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+                if (result.isPassed()) {
+                    // Only failing rows have their output printed; don't hold on to the rest
+                    result.output = "";
+                } else {
+                    failFast.recordFailure();
+                }
+                results.add(result);
+            }
+        } finally {
+            if (batch.isAbandoned()) {
+                interpreterPool().discard(lease);
+            } else {
+                interpreterPool().release(lease);
+            }
+        }
+        return results;
+    }
+
+    /** Prints and emits the results of a data-driven script, one per row, in row order. */
+    private void emitRows(File script, DataDriven driven, ResultSink sink) throws IOException, InterruptedException {
+        System.out.println("  → Executing: " + script.getName() + (driven.rows == null ? ""
+            : " for " + driven.rows.size() + " row(s) of " + driven.rows.getSource()
+                + " in " + driven.batchCount() + " batch(es)"));
+        if (driven.error != null) {
+            System.out.println("    ✗ Failed: " + driven.error);
+            failFast.recordFailure();
+            sink.accept(new PigletRunner.TestResult(script.getName(), false, driven.error, "BEANSHELL"));
+            return;
+        }
+        int passed = 0;
+        int failed = 0;
+        int skipped = 0;
+        long total = 0;
+        for (int b = 0; b < driven.batchCount(); b++) {
+            List<TestScriptResult> batch = awaitRows(driven.batches.get(b));
+            for (int k = 0; k < driven.batchSize(b); k++) {
+                TestScriptResult row = k < batch.size() ? batch.get(k) : null;
+                if (row == null) {
+                    skipped++;
+                    continue;
+                }
+                String rowName = script.getName() + "[" + (b * driven.batchSize + k + 1) + "]";
+                if (row.isPassed()) {
+                    passed++;
+                } else {
+                    failed++;
+                    System.out.println("    ✗ Failed: " + rowName + ": " + row.getMessage());
+                    for (String line : row.getOutput().split("\\R")) {
+                        if (!line.isEmpty()) {
+                            System.out.println("      | " + line);
+                        }
+                    }
+                }
+                total += row.getDurationNanos();
+                sink.accept(new PigletRunner.TestResult(rowName, row.isPassed(), row.getMessage(), "BEANSHELL",
+                    row.getDurationNanos()));
+            }
+        }
+        System.out.println((failed == 0 ? "    ✓ " : "    ✗ ") + passed + " row(s) passed, " + failed + " failed"
+            + (skipped > 0 ? ", " + skipped + " skipped" : ""));
+        timings.record(manifestKey(script), total);
+    }
+
+    /**
+     * The batch's results, one per row. When a row hung and the batch was given
+     * up on, the rows finished before it keep their results, that row fails with
+     * a timeout and the rows after it fail as not run.
+     */
+    private List<TestScriptResult> awaitRows(RowBatch batch) {
+        int size = batch.end - batch.from;
+        TestScriptResult failure;
+        try {
+            return batch.task.get();
+        } catch (CancellationException e) {
+            // Only the watchdog cancels batches, once a row is given up on
+            List<TestScriptResult> results;
+            synchronized (batch.results) {
+                results = new ArrayList<>(batch.results);
+            }
+            if (batch.fixtureHung) {
+                failure = new TestScriptResult("Timeout", false, "Fixture timed out after " + timeoutMillis
+                    + " ms and did not stop; its worker was replaced");
+            } else {
+                results.add(new TestScriptResult("Timeout", false,
+                    "Timed out after " + timeoutMillis + " ms and did not stop; its worker was replaced"));
+                failure = new TestScriptResult("Not run", false, "Not run: an earlier row of its batch hung");
+            }
+            while (results.size() < size) {
+                results.add(failure);
+            }
+            return results;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            failure = new TestScriptResult("Error", false, "Error: " + cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.task.cancel(true);
+            failure = new TestScriptResult("Interrupted", false, "Interrupted while waiting for script");
+        }
+        return Collections.nCopies(size, failure);
+    }
+
+    private synchronized InterpreterPool interpreterPool() {
+        if (interpreterPool == null) {
+            long start = System.nanoTime();
+            interpreterPool = new InterpreterPool(parallelism);
+            System.out.println(String.format("  ✓ Pre-warmed %d BeanShell interpreter(s) in %d ms",
+                parallelism, (System.nanoTime() - start) / 1_000_000));
+        }
+        return interpreterPool;
+    }
+
+    ScriptCache getScriptCache() {
+        return scriptCache;
+    }
+
+    private void printPoolStats() {
+        InterpreterPool pool = interpreterPool();
+        System.out.println(String.format(
+            "  ℹ Interpreter pool: %d created (avg %.2f ms), %d reused (avg %.3f ms)%s",
+            pool.getCreatedCount(), pool.getAverageCreateMillis(),
+            pool.getReusedCount(), pool.getAverageReuseMillis(),
+            pool.getDiscardedCount() > 0 ? ", " + pool.getDiscardedCount() + " left with a hung script" : ""));
+    }
+
     private PigletRunner.TestResult createMockBeanShellResult(String name, boolean passed) {
         return new PigletRunner.TestResult(
             name,
@@ -110,19 +733,97 @@ public class BeanShellScriptRunner {
         );
     }
 
+    /** A data-driven script's rows and its batches, or why it couldn't be prepared. */
+    private static class DataDriven {
+        private final ScriptRows rows;
+        private final int batchSize;
+        private final String error;
+        private final List<RowBatch> batches = new ArrayList<>();
+
+        DataDriven(ScriptRows rows, int batchSize) {
+            this.rows = rows;
+            this.batchSize = batchSize;
+            this.error = null;
+        }
+
+        DataDriven(String error) {
+            this.rows = null;
+            this.batchSize = 0;
+            this.error = error;
+        }
+
+        int batchCount() {
+            return batches.size();
+        }
+
+        int batchSize(int batch) {
+            return Math.min(batchSize, rows.size() - batch * batchSize);
+        }
+    }
+
+    /**
+     * Rows {@code from} to {@code end} of a data-driven script, run as one task.
+     * Results are added as rows finish, so the rows done before one that hangs
+     * can still be reported.
+     */
+    private class RowBatch {
+        private final String scriptName;
+        private final int from;
+        private final int end;
+        private final List<TestScriptResult> results = Collections.synchronizedList(new ArrayList<>());
+        private FutureTask<List<TestScriptResult>> task;
+        private ScriptWatchdog watchdog;
+        private volatile boolean abandoned;
+        private volatile boolean fixtureHung;
+
+        RowBatch(String scriptName, int from, int end) {
+            this.scriptName = scriptName;
+            this.from = from;
+            this.end = end;
+        }
+
+        /** Starts the timeout clock on {@code row}, or on the fixture for -1; null when there is no timeout. */
+        ScriptWatchdog.Deadline startClock(int row) {
+            if (watchdog == null) {
+                return null;
+            }
+            return watchdog.start(timeoutMillis, () -> { }, () -> {
+                abandoned = true;
+                fixtureHung = row < 0;
+                System.out.println("  ⚠ " + (row < 0 ? "Fixture" : "Row " + (row + 1)) + " of " + scriptName
+                    + " ignored its timeout; its worker was replaced");
+                failFast.recordFailure();
+                task.cancel(false);
+            });
+        }
+
+        boolean isAbandoned() {
+            return abandoned;
+        }
+    }
+
     static class TestScriptResult {
         private String name;
         private boolean passed;
         private String message;
+        private String output;
+        private long durationNanos;
 
         public TestScriptResult(String name, boolean passed, String message) {
+            this(name, passed, message, "");
+        }
+
+        public TestScriptResult(String name, boolean passed, String message, String output) {
             this.name = name;
             this.passed = passed;
             this.message = message;
+            this.output = output;
         }
 
         public String getName() { return name; }
         public boolean isPassed() { return passed; }
         public String getMessage() { return message; }
+        public String getOutput() { return output; }
+        public long getDurationNanos() { return durationNanos; }
     }
 }
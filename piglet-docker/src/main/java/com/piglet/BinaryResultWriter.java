@@ -0,0 +1,155 @@
+package com.piglet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes results to a compact binary file laid out in columns.
+ *
+ * Results are grouped into blocks of up to {@link #BLOCK_SIZE}. Within a block
+ * each field is stored contiguously, so a reader that only needs pass/fail or
+ * durations can skip over the text. All numbers are big-endian:
+ * <pre>
+ *   "PIGLETR1"
+ *   block:   int rows (&gt; 0)
+ *            byte[(rows + 7) / 8]  passed, one bit per row, low bit first
+ *            long[rows]            durationNanos
+ *            int types, then per type: int length, UTF-8 bytes
+ *            byte[rows]            index into this block's types
+ *            int[rows], then bytes name, UTF-8 per row
+ *            int[rows], then bytes message, UTF-8 per row
+ *   trailer: int 0, long total rows
+ * </pre>
+ * A block only holds references to the results' own strings until it is
+ * flushed, so memory stays bounded by the block size.
+ */
+class BinaryResultWriter implements ResultSink, Closeable {
+
+    static final byte[] MAGIC = ChannelWriter.utf8("PIGLETR1");
+    static final int BLOCK_SIZE = 4096;
+
+    private final ChannelWriter out;
+    private final boolean[] passed = new boolean[BLOCK_SIZE];
+    private final long[] durations = new long[BLOCK_SIZE];
+    private final String[] types = new String[BLOCK_SIZE];
+    private final String[] names = new String[BLOCK_SIZE];
+    private final String[] messages = new String[BLOCK_SIZE];
+    private int rows;
+    private long total;
+
+    BinaryResultWriter(Path file) throws IOException {
+        this.out = new ChannelWriter(file);
+        out.write(MAGIC);
+    }
+
+    @Override
+    public void accept(PigletRunner.TestResult result) throws IOException {
+        passed[rows] = result.isPassed();
+        durations[rows] = result.getDurationNanos();
+        types[rows] = result.getType();
+        names[rows] = result.getName();
+        messages[rows] = result.getMessage();
+        rows++;
+        if (rows == BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBlock();
+            out.writeInt(0);
+            out.writeLong(total);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        out.writeInt(rows);
+        for (int i = 0; i < rows; i += 8) {
+            int bits = 0;
+            for (int j = 0; j < 8 && i + j < rows; j++) {
+                if (passed[i + j]) {
+                    bits |= 1 << j;
+                }
+            }
+            out.writeByte(bits);
+        }
+        for (int i = 0; i < rows; i++) {
+            out.writeLong(durations[i]);
+        }
+
+        // Only a handful of distinct types: store each once, then a byte per row
+        List<String> dictionary = new ArrayList<>();
+        byte[] codes = new byte[rows];
+        for (int i = 0; i < rows; i++) {
+            int code = dictionary.indexOf(types[i]);
+            if (code < 0) {
+                code = dictionary.size();
+                dictionary.add(types[i]);
+            }
+            codes[i] = (byte) code;
+        }
+        out.writeInt(dictionary.size());
+        for (String type : dictionary) {
+            out.writeInt(utf8Length(type));
+            out.write(type);
+        }
+        out.write(codes);
+
+        writeStrings(names);
+        writeStrings(messages);
+
+        total += rows;
+        for (int i = 0; i < rows; i++) {
+            types[i] = null;
+            names[i] = null;
+            messages[i] = null;
+        }
+        rows = 0;
+    }
+
+    private void writeStrings(String[] column) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            out.writeInt(utf8Length(column[i]));
+        }
+        for (int i = 0; i < rows; i++) {
+            if (column[i] != null) {
+                out.write(column[i]);
+            }
+        }
+    }
+
+    /** Encoded length without encoding, so lengths can precede the bytes. */
+    private static int utf8Length(String s) {
+        if (s == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired: ChannelWriter replaces it with '?'
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
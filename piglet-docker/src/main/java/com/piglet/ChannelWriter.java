@@ -0,0 +1,131 @@
+package com.piglet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered output to a file channel for the result writers: UTF-8 text plus
+ * the big-endian primitives of the binary result format.
+ *
+ * Characters are encoded straight into one fixed-size byte buffer, and
+ * pre-encoded fragments are copied into the same buffer, so writing a result
+ * allocates nothing however large the file gets.
+ */
+class ChannelWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+    private final CharBuffer chars = CharBuffer.allocate(4 * 1024);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private long flushed;
+
+    ChannelWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    static byte[] utf8(String fragment) {
+        return fragment.getBytes(StandardCharsets.UTF_8);
+    }
+
+    void write(byte[] fragment) throws IOException {
+        drainChars();
+        int offset = 0;
+        while (offset < fragment.length) {
+            if (!bytes.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(bytes.remaining(), fragment.length - offset);
+            bytes.put(fragment, offset, n);
+            offset += n;
+        }
+    }
+
+    void writeInt(int value) throws IOException {
+        reserve(Integer.BYTES);
+        bytes.putInt(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        reserve(Long.BYTES);
+        bytes.putLong(value);
+    }
+
+    void writeByte(int value) throws IOException {
+        reserve(1);
+        bytes.put((byte) value);
+    }
+
+    void write(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            drainChars();
+        }
+        chars.put(c);
+    }
+
+    void write(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            write(s.charAt(i));
+        }
+    }
+
+    /** Number of bytes written so far, including what is still buffered. */
+    long position() throws IOException {
+        drainChars();
+        return flushed + bytes.position();
+    }
+
+    void flush() throws IOException {
+        drainChars();
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            flushed += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private void reserve(int size) throws IOException {
+        drainChars();
+        if (bytes.remaining() < size) {
+            flush();
+        }
+    }
+
+    /** Encodes pending characters; an unpaired high surrogate waits for its partner. */
+    private void drainChars() throws IOException {
+        if (chars.position() == 0) {
+            return;
+        }
+        chars.flip();
+        while (encoder.encode(chars, bytes, false) == CoderResult.OVERFLOW) {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                flushed += channel.write(bytes);
+            }
+            bytes.clear();
+        }
+        chars.compact();
+    }
+}
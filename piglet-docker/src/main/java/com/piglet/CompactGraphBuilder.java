@@ -0,0 +1,63 @@
+package com.piglet;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NullIterator;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Write-only graph that collects triples as dictionary IDs and then freezes
+ * them into an {@link IndexedGraph} backed by plain {@code int[]} permutations.
+ *
+ * It is the load target for {@link TurtleLoader} in compact mode: every added
+ * triple costs three ints while loading and nine once indexed, plus one entry
+ * per distinct term, instead of the node, triple and hash-bucket objects the
+ * default graph keeps per triple. Finds against the builder return nothing;
+ * query the graph returned by {@link #build()}.
+ */
+class CompactGraphBuilder extends GraphBase {
+
+    private final HeapTermDictionary dictionary = new HeapTermDictionary();
+    private int[] rows = new int[3 * 1024];
+    private int count;
+
+    @Override
+    public void performAdd(Triple triple) {
+        if (count * 3 == rows.length) {
+            rows = Arrays.copyOf(rows, (int) Math.min(rows.length * 2L, Integer.MAX_VALUE - 8));
+            if (count * 3 == rows.length) {
+                throw new IllegalStateException("Too many triples for a compact graph");
+            }
+        }
+        int base = count * 3;
+        rows[base] = dictionary.intern(triple.getSubject());
+        rows[base + 1] = dictionary.intern(triple.getPredicate());
+        rows[base + 2] = dictionary.intern(triple.getObject());
+        count++;
+    }
+
+    /** Sorts and indexes what has been added; the builder should not be used afterwards. */
+    IndexedGraph build() {
+        int distinct = TripleIndex.sortDistinct(rows, count);
+        int[] spo = Arrays.copyOf(rows, distinct * 3);
+        rows = null;
+        TripleIndex index = new TripleIndex(IntBuffer.wrap(spo),
+            IntBuffer.wrap(TripleIndex.permute(spo, distinct, TripleIndex.POS)),
+            IntBuffer.wrap(TripleIndex.permute(spo, distinct, TripleIndex.OSP)));
+        IndexedGraph graph = new IndexedGraph(dictionary, index);
+        graph.getPrefixMapping().setNsPrefixes(getPrefixMapping());
+        return graph;
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(Triple pattern) {
+        return NullIterator.instance();
+    }
+
+    @Override
+    protected int graphBaseSize() {
+        return count;
+    }
+}
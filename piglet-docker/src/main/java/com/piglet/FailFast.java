@@ -0,0 +1,52 @@
+package com.piglet;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops a run early once {@code maxFailures} tests have failed.
+ *
+ * Workers report failures as they happen, not when the result reaches the
+ * report, and check {@link #skip()} before starting each test, so the tests
+ * still queued behind a broken suite are dropped instead of run. Tests
+ * already running are left to finish.
+ */
+class FailFast {
+
+    private final int maxFailures;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicBoolean announced = new AtomicBoolean();
+
+    /** @param maxFailures failures after which the remaining tests are skipped, or 0 to run everything */
+    FailFast(int maxFailures) {
+        this.maxFailures = maxFailures;
+    }
+
+    void recordFailure() {
+        if (failures.incrementAndGet() == maxFailures && announced.compareAndSet(false, true)) {
+            System.out.println("  ⚠ Fail-fast: " + maxFailures + " failure(s), skipping the remaining tests");
+        }
+    }
+
+    boolean isTripped() {
+        return maxFailures > 0 && failures.get() >= maxFailures;
+    }
+
+    /** True, and counted as skipped, when the next test should not be started. */
+    boolean skip() {
+        if (!isTripped()) {
+            return false;
+        }
+        skipped.incrementAndGet();
+        return true;
+    }
+
+    int getMaxFailures() {
+        return maxFailures;
+    }
+
+    int getSkipped() {
+        return skipped.get();
+    }
+}
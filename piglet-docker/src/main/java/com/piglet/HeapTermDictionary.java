@@ -0,0 +1,49 @@
+package com.piglet;
+
+import org.apache.jena.graph.Node;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Term dictionary held on the heap, assigning IDs in the order terms are first seen.
+ *
+ * Each distinct IRI or literal is stored once no matter how many triples use
+ * it, which is where most of the saving over Jena's default graph comes from.
+ */
+class HeapTermDictionary implements TermDictionary {
+
+    private final Map<Node, Integer> ids = new HashMap<>();
+    private Node[] terms = new Node[1024];
+    private int size;
+
+    /** ID of {@code node}, adding it if it hasn't been seen before. */
+    int intern(Node node) {
+        Integer id = ids.get(node);
+        if (id != null) {
+            return id;
+        }
+        if (size == terms.length) {
+            terms = Arrays.copyOf(terms, size * 2);
+        }
+        terms[size] = node;
+        ids.put(node, size);
+        return size++;
+    }
+
+    @Override
+    public int lookup(Node node) {
+        Integer id = ids.get(node);
+        return id != null ? id : -1;
+    }
+
+    @Override
+    public Node term(int id) {
+        return terms[id];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,416 @@
+package com.piglet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Writes the HTML test report incrementally, one result at a time.
+ *
+ * Static markup is encoded to UTF-8 once and copied, along with each result's
+ * text, into the fixed-size buffer of a {@link ChannelWriter}, so memory use
+ * does not grow with the number of results. The summary counts are not known
+ * until the end; they are written as fixed-width placeholders and patched in
+ * place by {@link #finish(long)}. With a page size, results are split across
+ * {@code name.html}, {@code name-2.html}, ... each a complete page linking to
+ * its neighbours.
+ */
+class HtmlReportWriter implements ResultSink, Closeable {
+
+    private static final String[] SECTION_TYPES = { "BEANSHELL", "SPARQL" };
+    private static final String[] SECTION_TITLES = {
+        "📊 BeanShell Script Test Results",
+        "🔍 SPARQL Query Execution Results"
+    };
+    private static final int COUNT_WIDTH = 10;
+    private static final int RATE_WIDTH = 7;
+
+    private static final byte[] PAGE_START = utf8(
+        "<!DOCTYPE html>\n" +
+        "<html lang=\"en\">\n" +
+        "<head>\n" +
+        "    <meta charset=\"UTF-8\">\n" +
+        "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n" +
+        "    <title>PigletV2 - QA Test Report</title>\n" +
+        "    <style>\n" +
+        "        * { margin: 0; padding: 0; box-sizing: border-box; }\n" +
+        "        body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); padding: 20px; }\n" +
+        "        .container { max-width: 1000px; margin: 0 auto; background: white; border-radius: 10px; box-shadow: 0 10px 30px rgba(0,0,0,0.3); overflow: hidden; }\n" +
+        "        .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 30px; text-align: center; }\n" +
+        "        .header h1 { font-size: 32px; margin-bottom: 10px; }\n" +
+        "        .summary { display: grid; grid-template-columns: repeat(4, 1fr); gap: 15px; padding: 30px; background: #f8f9fa; }\n" +
+        "        .stat-box { background: white; padding: 20px; border-radius: 8px; text-align: center; border-left: 4px solid #667eea; }\n" +
+        "        .stat-box h3 { color: #667eea; font-size: 24px; margin-bottom: 5px; }\n" +
+        "        .stat-box p { color: #666; font-size: 14px; }\n" +
+        "        .stat-box.passed { border-left-color: #28a745; }\n" +
+        "        .stat-box.passed h3 { color: #28a745; }\n" +
+        "        .stat-box.failed { border-left-color: #dc3545; }\n" +
+        "        .stat-box.failed h3 { color: #dc3545; }\n" +
+        "        .content { padding: 30px; }\n" +
+        "        .section { margin-bottom: 30px; }\n" +
+        "        .section h2 { color: #667eea; font-size: 20px; margin-bottom: 15px; border-bottom: 2px solid #667eea; padding-bottom: 10px; }\n" +
+        "        .test-case { background: #f8f9fa; padding: 15px; margin-bottom: 10px; border-radius: 5px; border-left: 4px solid #ddd; }\n" +
+        "        .test-case.passed { border-left-color: #28a745; }\n" +
+        "        .test-case.failed { border-left-color: #dc3545; }\n" +
+        "        .test-name { font-weight: bold; color: #333; }\n" +
+        "        .test-status { display: inline-block; padding: 5px 10px; border-radius: 3px; font-size: 12px; margin-top: 5px; }\n" +
+        "        .test-status.passed { background: #d4edda; color: #155724; }\n" +
+        "        .test-status.failed { background: #f8d7da; color: #721c24; }\n" +
+        "        .test-message { font-size: 12px; color: #666; margin-top: 5px; }\n" +
+        "        .test-duration { font-size: 12px; color: #666; margin-left: 10px; }\n" +
+        "        .metrics { border-collapse: collapse; width: 100%; margin-bottom: 15px; font-size: 13px; }\n" +
+        "        .metrics th, .metrics td { padding: 6px 10px; border-bottom: 1px solid #ddd; text-align: right; }\n" +
+        "        .metrics th:first-child, .metrics td:first-child { text-align: left; }\n" +
+        "        .pager { padding: 15px 30px 0; color: #666; font-size: 14px; }\n" +
+        "        .pager a { color: #667eea; margin-right: 15px; }\n" +
+        "        .footer { background: #f8f9fa; padding: 20px; text-align: center; color: #666; font-size: 12px; }\n" +
+        "    </style>\n" +
+        "</head>\n" +
+        "<body>\n" +
+        "    <div class=\"container\">\n" +
+        "        <div class=\"header\">\n" +
+        "            <h1>🧪 PigletV2 QA Test Report</h1>\n" +
+        "            <p>Automated Testing Framework for Enterprise QA</p>\n" +
+        "        </div>\n" +
+        "        <div class=\"summary\">\n" +
+        "            <div class=\"stat-box\"><h3>");
+    private static final byte[] AFTER_TOTAL = utf8("</h3><p>Total Tests</p></div>\n" +
+        "            <div class=\"stat-box passed\"><h3>");
+    private static final byte[] AFTER_PASSED = utf8("</h3><p>Passed</p></div>\n" +
+        "            <div class=\"stat-box failed\"><h3>");
+    private static final byte[] AFTER_FAILED = utf8("</h3><p>Failed</p></div>\n" +
+        "            <div class=\"stat-box\"><h3>");
+    private static final byte[] AFTER_RATE = utf8("</h3><p>Success Rate</p></div>\n" +
+        "        </div>\n");
+    private static final byte[] CONTENT_START = utf8("        <div class=\"content\">\n");
+    private static final byte[] SECTION_START = utf8("            <div class=\"section\">\n" +
+        "                <h2>");
+    private static final byte[] SECTION_HEADING_END = utf8("</h2>\n");
+    private static final byte[] CONTINUED = utf8(" (continued)");
+    private static final byte[] SECTION_END = utf8("            </div>\n");
+    private static final byte[] CONTENT_END = utf8("        </div>\n");
+    private static final byte[] CASE_PASSED = utf8("            <div class=\"test-case passed\">\n" +
+        "                <div class=\"test-name\">");
+    private static final byte[] CASE_FAILED = utf8("            <div class=\"test-case failed\">\n" +
+        "                <div class=\"test-name\">");
+    private static final byte[] STATUS_PASSED = utf8("</div>\n" +
+        "                <span class=\"test-status passed\">✓ PASSED</span>");
+    private static final byte[] STATUS_FAILED = utf8("</div>\n" +
+        "                <span class=\"test-status failed\">✗ FAILED</span>");
+    private static final byte[] DURATION_START = utf8("<span class=\"test-duration\">");
+    private static final byte[] DURATION_END = utf8(" ms</span>");
+    private static final byte[] MESSAGE_START = utf8("\n                <div class=\"test-message\">");
+    private static final byte[] CASE_END = utf8("</div>\n" +
+        "            </div>\n");
+    private static final byte[] PAGER_START = utf8("        <div class=\"pager\">");
+    private static final byte[] PAGER_END = utf8("</div>\n");
+    private static final byte[] FOOTER_START = utf8("        <div class=\"footer\">\n");
+    private static final byte[] FOOTER_END = utf8("            <p>PigletV2 - Enterprise QA Framework</p>\n" +
+        "        </div>\n" +
+        "    </div>\n" +
+        "</body>\n" +
+        "</html>\n");
+
+    private final Path firstPage;
+    private final int pageSize;
+    // Per page: where its summary placeholders and "of N" page count start
+    private final List<long[]> placeholders = new ArrayList<>();
+
+    private ChannelWriter out;
+    private int page;
+    private int resultsOnPage;
+    private int section = -1;
+    private boolean sectionOpen;
+    private int total;
+    private int passed;
+
+    /**
+     * @param output   path of the first (or only) page
+     * @param pageSize results per page, or 0 to write a single page
+     */
+    HtmlReportWriter(Path output, int pageSize) throws IOException {
+        this.firstPage = output;
+        this.pageSize = pageSize;
+        openPage();
+    }
+
+    /** Appends a result; results must arrive grouped by section, BeanShell before SPARQL. */
+    @Override
+    public void accept(PigletRunner.TestResult result) throws IOException {
+        int target = sectionOf(result.getType());
+        if (target < section) {
+            throw new IllegalStateException(result.getType() + " result arrived after its report section was closed");
+        }
+        if (pageSize > 0 && resultsOnPage == pageSize) {
+            nextPage();
+        }
+        openSection(target);
+
+        put(result.isPassed() ? CASE_PASSED : CASE_FAILED);
+        text(result.getName());
+        put(result.isPassed() ? STATUS_PASSED : STATUS_FAILED);
+        if (result.getDurationNanos() > 0) {
+            put(DURATION_START);
+            text(RunMetrics.millis(result.getDurationNanos()), false);
+            put(DURATION_END);
+        }
+        put(MESSAGE_START);
+        text(result.getMessage());
+        put(CASE_END);
+
+        resultsOnPage++;
+        total++;
+        if (result.isPassed()) {
+            passed++;
+        }
+    }
+
+    void finish(long executionTime) throws IOException {
+        finish(executionTime, null);
+    }
+
+    /**
+     * Writes the run metrics, if any, and the footer, fills in the summary on
+     * every page and closes the report.
+     */
+    void finish(long executionTime, RunMetrics metrics) throws IOException {
+        openSection(SECTION_TYPES.length - 1);
+        closeSection();
+        if (metrics != null) {
+            writeMetrics(metrics);
+        }
+        put(CONTENT_END);
+        if (page > 1) {
+            writePager(false, false);
+        }
+        put(FOOTER_START);
+        text(String.format("            <p>Generated on: %s</p>\n" +
+                "            <p>Execution Time: %d ms</p>\n",
+            new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()), executionTime), false);
+        put(FOOTER_END);
+        out.close();
+
+        byte[][] summary = {
+            pad(String.valueOf(total), COUNT_WIDTH),
+            pad(String.valueOf(passed), COUNT_WIDTH),
+            pad(String.valueOf(total - passed), COUNT_WIDTH),
+            pad(String.format("%.1f%%", total > 0 ? passed * 100.0 / total : 0), RATE_WIDTH),
+            pad(String.valueOf(page), COUNT_WIDTH)
+        };
+        for (int i = 0; i < placeholders.size(); i++) {
+            try (FileChannel patch = FileChannel.open(pagePath(i + 1), StandardOpenOption.WRITE)) {
+                long[] offsets = placeholders.get(i);
+                for (int j = 0; j < offsets.length; j++) {
+                    if (offsets[j] >= 0) {
+                        patch.write(ByteBuffer.wrap(summary[j]), offsets[j]);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeMetrics(RunMetrics metrics) throws IOException {
+        StringBuilder html = new StringBuilder(2048);
+        html.append("            <div class=\"section\">\n")
+            .append("                <h2>⏱ Run Metrics</h2>\n")
+            .append("                <table class=\"metrics\">\n")
+            .append("                    <tr><th>Phase</th><th>Time (ms)</th></tr>\n");
+        for (RunMetrics.Phase phase : RunMetrics.Phase.values()) {
+            html.append("                    <tr><td>").append(phase.getLabel()).append("</td><td>")
+                .append(RunMetrics.millis(metrics.getPhaseNanos(phase))).append("</td></tr>\n");
+        }
+        html.append("                </table>\n")
+            .append("                <table class=\"metrics\">\n")
+            .append("                    <tr><th>Latency (ms)</th><th>Tests</th><th>Mean</th><th>p50</th>")
+            .append("<th>p90</th><th>p99</th><th>Max</th></tr>\n");
+        for (Map.Entry<String, LatencyHistogram> entry : metrics.getLatencies().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            html.append("                    <tr><td>").append(entry.getKey())
+                .append("</td><td>").append(histogram.getCount())
+                .append("</td><td>").append(RunMetrics.millis((long) histogram.getMean()))
+                .append("</td><td>").append(RunMetrics.millis(histogram.getValueAtPercentile(50)))
+                .append("</td><td>").append(RunMetrics.millis(histogram.getValueAtPercentile(90)))
+                .append("</td><td>").append(RunMetrics.millis(histogram.getValueAtPercentile(99)))
+                .append("</td><td>").append(RunMetrics.millis(histogram.getMax()))
+                .append("</td></tr>\n");
+        }
+        html.append("                </table>\n");
+        Map<String, long[]> makespans = metrics.getMakespans();
+        if (!makespans.isEmpty()) {
+            html.append("                <table class=\"metrics\">\n")
+                .append("                    <tr><th>Makespan (ms)</th><th>Predicted</th><th>Actual</th></tr>\n");
+            for (Map.Entry<String, long[]> entry : makespans.entrySet()) {
+                html.append("                    <tr><td>").append(entry.getKey())
+                    .append("</td><td>").append(RunMetrics.millis(entry.getValue()[0]))
+                    .append("</td><td>").append(RunMetrics.millis(entry.getValue()[1]))
+                    .append("</td></tr>\n");
+            }
+            html.append("                </table>\n");
+        }
+        html.append("                <table class=\"metrics\">\n")
+            .append("                    <tr><td>Allocated by tests</td><td>")
+            .append(metrics.getAllocatedBytes() / (1024 * 1024)).append(" MB</td></tr>\n")
+            .append("                    <tr><td>Garbage collections</td><td>")
+            .append(metrics.getGcCount()).append(" (").append(metrics.getGcMillis()).append(" ms)</td></tr>\n")
+            .append("                </table>\n")
+            .append("            </div>\n");
+        text(html.toString(), false);
+    }
+
+    int getPageCount() {
+        return page;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void openPage() throws IOException {
+        page++;
+        out = new ChannelWriter(pagePath(page));
+        resultsOnPage = 0;
+
+        long[] offsets = new long[5];
+        put(PAGE_START);
+        offsets[0] = placeholder(COUNT_WIDTH);
+        put(AFTER_TOTAL);
+        offsets[1] = placeholder(COUNT_WIDTH);
+        put(AFTER_PASSED);
+        offsets[2] = placeholder(COUNT_WIDTH);
+        put(AFTER_FAILED);
+        offsets[3] = placeholder(RATE_WIDTH);
+        put(AFTER_RATE);
+        offsets[4] = pageSize > 0 ? writePager(true, false) : -1;
+        placeholders.add(offsets);
+        put(CONTENT_START);
+    }
+
+    private void nextPage() throws IOException {
+        boolean continuing = sectionOpen;
+        closeSection();
+        put(CONTENT_END);
+        writePager(false, true);
+        put(FOOTER_START);
+        put(FOOTER_END);
+        out.close();
+
+        openPage();
+        if (continuing) {
+            put(SECTION_START);
+            text(SECTION_TITLES[section]);
+            put(CONTINUED);
+            put(SECTION_HEADING_END);
+            sectionOpen = true;
+        }
+    }
+
+    /**
+     * Writes the page navigation. At the top of a page the total page count is
+     * still unknown, so its position is returned for patching; at the bottom the
+     * next page is linked only once it is certain to exist.
+     */
+    private long writePager(boolean top, boolean hasNext) throws IOException {
+        put(PAGER_START);
+        if (page > 1) {
+            text("<a href=\"" + pagePath(page - 1).getFileName() + "\">← Previous</a>", false);
+        }
+        if (!top) {
+            if (hasNext) {
+                text("<a href=\"" + pagePath(page + 1).getFileName() + "\">Next →</a>", false);
+            }
+            put(PAGER_END);
+            return -1;
+        }
+        text("Page " + page + " of ", false);
+        long offset = placeholder(COUNT_WIDTH);
+        put(PAGER_END);
+        return offset;
+    }
+
+    private void openSection(int target) throws IOException {
+        // Sections with no results still get their heading, as in the full report
+        while (section < target) {
+            closeSection();
+            section++;
+            put(SECTION_START);
+            text(SECTION_TITLES[section]);
+            put(SECTION_HEADING_END);
+            sectionOpen = true;
+        }
+    }
+
+    private void closeSection() throws IOException {
+        if (sectionOpen) {
+            put(SECTION_END);
+            sectionOpen = false;
+        }
+    }
+
+    private static int sectionOf(String type) {
+        for (int i = 0; i < SECTION_TYPES.length; i++) {
+            if (SECTION_TYPES[i].equals(type)) {
+                return i;
+            }
+        }
+        // Anything that isn't a BeanShell result is reported with the queries, as before
+        return SECTION_TYPES.length - 1;
+    }
+
+    private long placeholder(int width) throws IOException {
+        long offset = out.position();
+        for (int i = 0; i < width; i++) {
+            out.write(' ');
+        }
+        return offset;
+    }
+
+    private void put(byte[] fragment) throws IOException {
+        out.write(fragment);
+    }
+
+    private void text(String value) throws IOException {
+        text(value, true);
+    }
+
+    /** Writes text, HTML-escaping it unless it is trusted markup. */
+    private void text(String value, boolean escape) throws IOException {
+        String s = value != null ? value : "null";
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (escape && (c == '<' || c == '>' || c == '&')) {
+                out.write(c == '<' ? "&lt;" : c == '>' ? "&gt;" : "&amp;");
+            } else {
+                out.write(c);
+            }
+        }
+    }
+
+    private Path pagePath(int number) {
+        if (number == 1) {
+            return firstPage;
+        }
+        String name = firstPage.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String paged = dot < 0 ? name + "-" + number : name.substring(0, dot) + "-" + number + name.substring(dot);
+        return firstPage.resolveSibling(paged);
+    }
+
+    private static byte[] pad(String value, int width) {
+        StringBuilder padded = new StringBuilder(value);
+        while (padded.length() < width) {
+            padded.append(' ');
+        }
+        return padded.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] utf8(String fragment) {
+        return ChannelWriter.utf8(fragment);
+    }
+}
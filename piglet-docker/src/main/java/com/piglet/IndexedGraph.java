@@ -0,0 +1,112 @@
+package com.piglet;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NiceIterator;
+import org.apache.jena.util.iterator.NullIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only Jena graph over a {@link TermDictionary} and {@link TripleIndex}.
+ *
+ * Pattern lookups resolve constants to IDs once and then walk a contiguous row
+ * range of one index permutation; terms are only decoded for rows the caller
+ * actually consumes. Writes are rejected by {@link GraphBase}.
+ */
+class IndexedGraph extends GraphBase {
+
+    private final TermDictionary dictionary;
+    private final TripleIndex index;
+
+    IndexedGraph(TermDictionary dictionary, TripleIndex index) {
+        this.dictionary = dictionary;
+        this.index = index;
+    }
+
+    TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    TripleIndex getIndex() {
+        return index;
+    }
+
+    /** Number of triples matching the pattern (null = any) without materializing them. */
+    long count(Node s, Node p, Node o) {
+        int sid = idOf(s);
+        int pid = idOf(p);
+        int oid = idOf(o);
+        if (sid == -2 || pid == -2 || oid == -2) {
+            return 0;
+        }
+        return index.count(sid, pid, oid);
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(Triple pattern) {
+        int s = idOf(pattern.getMatchSubject());
+        int p = idOf(pattern.getMatchPredicate());
+        int o = idOf(pattern.getMatchObject());
+        if (s == -2 || p == -2 || o == -2) {
+            return NullIterator.instance();
+        }
+        int permutation = TripleIndex.permutationFor(s, p, o);
+        long range = index.range(s, p, o);
+        return new RowIterator(permutation, (int) (range >>> 32), (int) range);
+    }
+
+    @Override
+    protected int graphBaseSize() {
+        return index.size();
+    }
+
+    /** -1 for a wildcard, -2 for a constant the dictionary doesn't contain. */
+    private int idOf(Node node) {
+        if (node == null || !node.isConcrete()) {
+            return -1;
+        }
+        int id = dictionary.lookup(node);
+        return id < 0 ? -2 : id;
+    }
+
+    private class RowIterator extends NiceIterator<Triple> {
+        private final int permutation;
+        private final int end;
+        private int row;
+        // Consecutive rows usually share their leading term; decode it once
+        private final int[] lastIds = { -1, -1, -1 };
+        private final Node[] lastNodes = new Node[3];
+
+        RowIterator(int permutation, int start, int end) {
+            this.permutation = permutation;
+            this.row = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return row < end;
+        }
+
+        @Override
+        public Triple next() {
+            if (row >= end) {
+                throw new NoSuchElementException();
+            }
+            Triple triple = Triple.create(node(0), node(1), node(2));
+            row++;
+            return triple;
+        }
+
+        private Node node(int position) {
+            int id = index.get(permutation, row, position);
+            if (id != lastIds[position]) {
+                lastIds[position] = id;
+                lastNodes[position] = dictionary.term(id);
+            }
+            return lastNodes[position];
+        }
+    }
+}
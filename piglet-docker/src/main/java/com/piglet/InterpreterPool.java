@@ -0,0 +1,119 @@
+package com.piglet;
+
+import bsh.EvalError;
+import bsh.Interpreter;
+import bsh.NameSpace;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of pre-warmed BeanShell interpreters.
+ *
+ * Building an {@link Interpreter} sets up its class manager, default imports and
+ * the bsh system objects, which costs far more than running a small QA script.
+ * The pool builds its interpreters up front and lends them out. Each lease runs
+ * in a fresh child namespace of the interpreter's global namespace, so variables
+ * a script sets are dropped when the lease ends while the warm class caches stay.
+ */
+class InterpreterPool {
+
+    private static final String WARM_UP_SCRIPT = "warmUp = 1 + 1; print(\"\" + warmUp);";
+
+    private final BlockingQueue<Interpreter> idle = new LinkedBlockingQueue<>();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong createNanos = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong reuseNanos = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    InterpreterPool(int size) {
+        for (int i = 0; i < size; i++) {
+            idle.add(create());
+        }
+    }
+
+    /**
+     * Lends out an idle interpreter, or builds a new one if every pooled
+     * interpreter is busy. Script output goes to {@code out}.
+     */
+    Lease acquire(PrintStream out) {
+        long start = System.nanoTime();
+        Interpreter interpreter = idle.poll();
+        boolean fresh = interpreter == null;
+        if (fresh) {
+            interpreter = create();
+        }
+        interpreter.setOut(out);
+        interpreter.setErr(out);
+        NameSpace scope = new NameSpace(interpreter.getNameSpace(), "piglet-script");
+        long elapsed = System.nanoTime() - start;
+        if (!fresh) {
+            reused.incrementAndGet();
+            reuseNanos.addAndGet(elapsed);
+        }
+        return new Lease(interpreter, scope, fresh, elapsed);
+    }
+
+    void release(Lease lease) {
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        lease.interpreter.setOut(discard);
+        lease.interpreter.setErr(discard);
+        idle.offer(lease.interpreter);
+    }
+
+    /** Drops an interpreter that is not to be lent out again, such as one a stuck script still holds. */
+    void discard(Lease lease) {
+        discarded.incrementAndGet();
+    }
+
+    long getCreatedCount() { return created.get(); }
+    long getReusedCount() { return reused.get(); }
+    long getDiscardedCount() { return discarded.get(); }
+
+    double getAverageCreateMillis() {
+        long count = created.get();
+        return count == 0 ? 0 : createNanos.get() / (count * 1_000_000.0);
+    }
+
+    double getAverageReuseMillis() {
+        long count = reused.get();
+        return count == 0 ? 0 : reuseNanos.get() / (count * 1_000_000.0);
+    }
+
+    private Interpreter create() {
+        long start = System.nanoTime();
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        Interpreter interpreter = new Interpreter(null, discard, discard, false);
+        try {
+            // Loads the bsh command and reflection classes the sample scripts use
+            interpreter.eval(WARM_UP_SCRIPT, new NameSpace(interpreter.getNameSpace(), "warm-up"));
+        } catch (EvalError e) {
+            throw new IllegalStateException("BeanShell warm-up failed: " + e.getMessage(), e);
+        }
+        created.incrementAndGet();
+        createNanos.addAndGet(System.nanoTime() - start);
+        return interpreter;
+    }
+
+    static class Lease {
+        private final Interpreter interpreter;
+        private final NameSpace scope;
+        private final boolean fresh;
+        private final long acquireNanos;
+
+        Lease(Interpreter interpreter, NameSpace scope, boolean fresh, long acquireNanos) {
+            this.interpreter = interpreter;
+            this.scope = scope;
+            this.fresh = fresh;
+            this.acquireNanos = acquireNanos;
+        }
+
+        Interpreter getInterpreter() { return interpreter; }
+        NameSpace getScope() { return scope; }
+        boolean isFresh() { return fresh; }
+        long getAcquireNanos() { return acquireNanos; }
+    }
+}
@@ -0,0 +1,84 @@
+package com.piglet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes results as JSON Lines, one object per result:
+ * <pre>
+ * {"name":"q1.sparql","type":"SPARQL","passed":true,"durationNanos":1520000,"message":"..."}
+ * </pre>
+ * Each line is encoded straight into the output buffer as the result arrives.
+ */
+class JsonlResultWriter implements ResultSink, Closeable {
+
+    private static final byte[] NAME = ChannelWriter.utf8("{\"name\":\"");
+    private static final byte[] TYPE = ChannelWriter.utf8("\",\"type\":\"");
+    private static final byte[] PASSED = ChannelWriter.utf8("\",\"passed\":true,\"durationNanos\":");
+    private static final byte[] FAILED = ChannelWriter.utf8("\",\"passed\":false,\"durationNanos\":");
+    private static final byte[] MESSAGE = ChannelWriter.utf8(",\"message\":\"");
+    private static final byte[] END = ChannelWriter.utf8("\"}\n");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ChannelWriter out;
+
+    JsonlResultWriter(Path file) throws IOException {
+        this.out = new ChannelWriter(file);
+    }
+
+    @Override
+    public void accept(PigletRunner.TestResult result) throws IOException {
+        out.write(NAME);
+        string(result.getName());
+        out.write(TYPE);
+        string(result.getType());
+        out.write(result.isPassed() ? PASSED : FAILED);
+        long duration = result.getDurationNanos();
+        if (duration == 0) {
+            out.write('0');
+        } else {
+            out.write(Long.toString(duration));
+        }
+        out.write(MESSAGE);
+        string(result.getMessage());
+        out.write(END);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void string(String value) throws IOException {
+        String s = value != null ? value : "";
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write("\\u00");
+                        out.write(HEX[c >> 4]);
+                        out.write(HEX[c & 0xf]);
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+    }
+}
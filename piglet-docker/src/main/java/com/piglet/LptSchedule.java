@@ -0,0 +1,101 @@
+package com.piglet;
+
+import java.util.*;
+
+/**
+ * Longest-processing-time-first schedule of tests over a number of workers.
+ *
+ * Tests are ordered by estimated duration, longest first, and each is placed
+ * on the worker with the least work so far. Handing that order to a pool whose
+ * idle workers take the next queued task carries out the same schedule, so
+ * the busiest worker's total is the predicted makespan. LPT keeps that within
+ * 4/3 of the best possible, and a long test can no longer start last and
+ * stretch the tail of the run.
+ */
+class LptSchedule {
+
+    private final Integer[] order;
+    private final int[] workerOf;
+    private final long[] loads;
+    private final int unknown;
+
+    LptSchedule(List<String> keys, TestTimings timings, int workers) {
+        this(estimates(keys, timings), unknown(keys, timings), workers);
+    }
+
+    /** @param unknown how many of the estimates are guesses, for {@link #getUnknownCount} */
+    LptSchedule(long[] estimates, int unknown, int workers) {
+        int n = estimates.length;
+        order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        // Ties keep name order, so the schedule is the same on every run and every shard
+        Arrays.sort(order, (a, b) -> estimates[a] != estimates[b] ? Long.compare(estimates[b], estimates[a])
+            : Integer.compare(a, b));
+
+        workerOf = new int[n];
+        loads = new long[Math.max(1, workers)];
+        for (int i : order) {
+            int lightest = 0;
+            for (int w = 1; w < loads.length; w++) {
+                if (loads[w] < loads[lightest]) {
+                    lightest = w;
+                }
+            }
+            workerOf[i] = lightest;
+            loads[lightest] += estimates[i];
+        }
+        this.unknown = unknown;
+    }
+
+    private static long[] estimates(List<String> keys, TestTimings timings) {
+        long[] estimates = new long[keys.size()];
+        for (int i = 0; i < estimates.length; i++) {
+            estimates[i] = timings.estimate(keys.get(i));
+        }
+        return estimates;
+    }
+
+    private static int unknown(List<String> keys, TestTimings timings) {
+        int unknown = 0;
+        for (String key : keys) {
+            if (!timings.isKnown(key)) {
+                unknown++;
+            }
+        }
+        return unknown;
+    }
+
+    /** Indexes into the key list, in the order to start them. */
+    Integer[] getOrder() {
+        return order;
+    }
+
+    int getWorker(int index) {
+        return workerOf[index];
+    }
+
+    long getLoadNanos(int worker) {
+        return loads[worker];
+    }
+
+    long getMakespanNanos() {
+        long makespan = 0;
+        for (long load : loads) {
+            makespan = Math.max(makespan, load);
+        }
+        return makespan;
+    }
+
+    /** Number of tests with no recorded timing, scheduled at the mean estimate. */
+    int getUnknownCount() {
+        return unknown;
+    }
+
+    void print() {
+        String unseen = unknown > 0 ? ", " + unknown + " without history" : "";
+        System.out.println(String.format("  ℹ Longest first on %d worker(s): %s ms predicted%s",
+            loads.length, RunMetrics.millis(getMakespanNanos()), unseen));
+    }
+}
@@ -0,0 +1,60 @@
+package com.piglet;
+
+import org.apache.jena.graph.Node;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Term dictionary read straight from memory-mapped files.
+ *
+ * Terms are stored as {@link TermCodec} encodings in sorted order, so a term's
+ * ID is its rank: {@code offsets} holds the start of each encoding plus a final
+ * end offset, and lookups binary-search the encodings without touching the heap
+ * beyond the probe key.
+ */
+class MappedTermDictionary implements TermDictionary {
+
+    private final ByteBuffer terms;
+    private final IntBuffer offsets;
+    private final int size;
+
+    MappedTermDictionary(ByteBuffer terms, IntBuffer offsets) {
+        this.terms = terms;
+        this.offsets = offsets;
+        this.size = offsets.limit() - 1;
+    }
+
+    @Override
+    public int lookup(Node node) {
+        if (!(node.isURI() || node.isBlank() || node.isLiteral())) {
+            return -1;
+        }
+        byte[] key = TermCodec.encode(node);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int start = offsets.get(mid);
+            int cmp = TermCodec.compare(key, terms, start, offsets.get(mid + 1) - start);
+            if (cmp == 0) {
+                return mid;
+            } else if (cmp < 0) {
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Node term(int id) {
+        int start = offsets.get(id);
+        return TermCodec.decode(terms, start, offsets.get(id + 1) - start);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,459 @@
+package com.piglet;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.ttl.turtle.TurtleEventHandler;
+import org.apache.jena.ttl.turtle.parser.TokenMgrError;
+import org.apache.jena.ttl.turtle.parser.TurtleParser;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * On-disk triple store that is memory-mapped instead of loaded onto the heap.
+ *
+ * Layout under the store directory:
+ * <pre>
+ *   manifest.properties  format version plus size:mtime of each source file
+ *   segments/NAME.seg    parsed triples of one source file, as encoded terms
+ *   terms.dat, terms.idx sorted term encodings and their offsets (see TermCodec)
+ *   spo.idx, pos.idx, osp.idx  dictionary-encoded triples in each sort order
+ *   store.lock           held while a process checks, rebuilds and maps the store
+ * </pre>
+ * When every source matches the manifest and its segment, and the dictionary
+ * and index files are all there, the store is opened by mapping those files,
+ * which takes milliseconds and no heap. Otherwise only the Turtle files whose
+ * size or mtime changed, or whose segment is missing, are re-parsed into
+ * segments, and the dictionary and indexes are rebuilt from the segments.
+ * That rebuild holds the distinct terms and the ID triples on the heap, so it
+ * needs memory that later opens don't. Each mapped file is limited to 2 GB.
+ */
+class MappedTripleStore {
+
+    private static final String FORMAT_VERSION = "1";
+    private static final String MANIFEST = "manifest.properties";
+    private static final String SEGMENTS = "segments";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String[] INDEX_FILES = { "spo.idx", "pos.idx", "osp.idx" };
+    private static final String LOCK = "store.lock";
+    private static final Object BUILD_LOCK = new Object();
+
+    private MappedTripleStore() {
+    }
+
+    /**
+     * Opens the store in {@code storeDir}, first bringing it up to date with
+     * {@code sources} if any of them changed since it was built.
+     */
+    @SuppressWarnings("try") // The lock is only held, never read
+    static IndexedGraph openOrBuild(File[] sources, Path storeDir, int parallelism)
+            throws IOException, InterruptedException {
+        Properties current = stamps(sources);
+        Files.createDirectories(storeDir);
+        // Shard workers and concurrent server runs share the directory: one rebuilds, the rest wait and reuse
+        // it. The file lock is held per process, so threads of this JVM queue on the monitor first.
+        synchronized (BUILD_LOCK) {
+            try (FileChannel channel = FileChannel.open(storeDir.resolve(LOCK), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE);
+                 FileLock lock = lock(channel, storeDir)) {
+                Properties manifest = readManifest(storeDir);
+                boolean upToDate = manifest != null
+                    && FORMAT_VERSION.equals(manifest.getProperty("format"))
+                    && current.equals(sourceStamps(manifest))
+                    && filesPresent(sources, storeDir, current);
+
+                if (!upToDate) {
+                    long start = System.nanoTime();
+                    System.out.println("  → Rebuilding triple store in " + storeDir);
+                    build(sources, storeDir, current, parallelism);
+                    System.out.println(String.format("    ✓ Triple store rebuilt in %d ms",
+                        (System.nanoTime() - start) / 1_000_000));
+                }
+
+                long start = System.nanoTime();
+                IndexedGraph graph = open(storeDir);
+                System.out.println(String.format("  ✓ Opened mapped triple store: %d triples, %d terms in %.1f ms",
+                    graph.getIndex().size(), graph.getDictionary().size(),
+                    (System.nanoTime() - start) / 1_000_000.0));
+                return graph;
+            }
+        }
+    }
+
+    /** True when the dictionary, the indexes and a segment stamped for each source are all on disk. */
+    private static boolean filesPresent(File[] sources, Path storeDir, Properties current) {
+        List<String> files = new ArrayList<>(Arrays.asList(INDEX_FILES));
+        files.add("terms.dat");
+        files.add("terms.idx");
+        for (String file : files) {
+            if (!Files.isRegularFile(storeDir.resolve(file))) {
+                return false;
+            }
+        }
+        for (File source : sources) {
+            Path segment = storeDir.resolve(SEGMENTS).resolve(source.getName() + SEGMENT_SUFFIX);
+            if (!current.getProperty("source." + source.getName()).equals(segmentStamp(segment))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FileLock lock(FileChannel channel, Path storeDir) throws IOException {
+        FileLock lock = channel.tryLock();
+        if (lock == null) {
+            System.out.println("  → Waiting for another process to finish with the triple store in " + storeDir);
+            lock = channel.lock();
+        }
+        return lock;
+    }
+
+    static IndexedGraph open(Path storeDir) throws IOException {
+        ByteBuffer terms = map(storeDir.resolve("terms.dat"));
+        IntBuffer offsets = map(storeDir.resolve("terms.idx")).asIntBuffer();
+        IntBuffer[] permutations = new IntBuffer[3];
+        for (int i = 0; i < 3; i++) {
+            permutations[i] = map(storeDir.resolve(INDEX_FILES[i])).asIntBuffer();
+        }
+        return new IndexedGraph(new MappedTermDictionary(terms, offsets),
+            new TripleIndex(permutations[0], permutations[1], permutations[2]));
+    }
+
+    private static void build(File[] sources, Path storeDir, Properties current, int parallelism)
+            throws IOException, InterruptedException {
+        Path segmentDir = storeDir.resolve(SEGMENTS);
+        Files.createDirectories(segmentDir);
+        // Without a manifest the store is treated as stale, whatever happens below
+        Files.deleteIfExists(storeDir.resolve(MANIFEST));
+
+        updateSegments(sources, segmentDir, current, parallelism);
+
+        List<Path> segments = new ArrayList<>();
+        for (File source : sources) {
+            segments.add(segmentDir.resolve(source.getName() + SEGMENT_SUFFIX));
+        }
+
+        // Pass 1: distinct terms, sorted so that a term's ID is its rank
+        Set<String> distinct = new HashSet<>();
+        for (Path segment : segments) {
+            readSegment(segment, (s, p, o) -> {
+                distinct.add(s);
+                distinct.add(p);
+                distinct.add(o);
+            });
+        }
+        String[] sorted = distinct.toArray(new String[0]);
+        distinct.clear();
+        Arrays.sort(sorted);
+        Map<String, Integer> ids = new HashMap<>(sorted.length * 2);
+        for (int i = 0; i < sorted.length; i++) {
+            ids.put(sorted[i], i);
+        }
+        writeTerms(storeDir, sorted);
+
+        // Pass 2: triples as IDs
+        int[][] rows = { new int[3 * 1024] };
+        int[] count = { 0 };
+        for (Path segment : segments) {
+            readSegment(segment, (s, p, o) -> {
+                if ((count[0] + 1) * 3 > rows[0].length) {
+                    long grown = Math.min((long) rows[0].length * 2, Integer.MAX_VALUE - 8);
+                    if (grown <= rows[0].length) {
+                        throw new IllegalStateException("Too many triples for one store");
+                    }
+                    rows[0] = Arrays.copyOf(rows[0], (int) grown);
+                }
+                int base = count[0] * 3;
+                rows[0][base] = ids.get(s);
+                rows[0][base + 1] = ids.get(p);
+                rows[0][base + 2] = ids.get(o);
+                count[0]++;
+            });
+        }
+        ids.clear();
+
+        int[] spo = rows[0];
+        int triples = TripleIndex.sortDistinct(spo, count[0]);
+        writeInts(storeDir.resolve(INDEX_FILES[0]), spo, triples * 3);
+        writeInts(storeDir.resolve(INDEX_FILES[1]), TripleIndex.permute(spo, triples, TripleIndex.POS), triples * 3);
+        writeInts(storeDir.resolve(INDEX_FILES[2]), TripleIndex.permute(spo, triples, TripleIndex.OSP), triples * 3);
+
+        Properties manifest = new Properties();
+        manifest.putAll(current);
+        manifest.setProperty("format", FORMAT_VERSION);
+        manifest.setProperty("triples", String.valueOf(triples));
+        manifest.setProperty("terms", String.valueOf(sorted.length));
+        Path tmp = storeDir.resolve(MANIFEST + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            manifest.store(out, "PigletV2 triple store");
+        }
+        Files.move(tmp, storeDir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Re-parses sources whose segment is missing or stamped with a different size/mtime. */
+    private static void updateSegments(File[] sources, Path segmentDir, Properties current, int parallelism)
+            throws IOException, InterruptedException {
+        Set<String> wanted = new HashSet<>();
+        List<File> stale = new ArrayList<>();
+        for (File source : sources) {
+            Path segment = segmentDir.resolve(source.getName() + SEGMENT_SUFFIX);
+            wanted.add(segment.getFileName().toString());
+            if (!current.getProperty("source." + source.getName()).equals(segmentStamp(segment))) {
+                stale.add(source);
+            } else {
+                System.out.println("    ✓ " + source.getName() + ": unchanged, reusing parsed segment");
+            }
+        }
+
+        File[] existing = segmentDir.toFile().listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (existing != null) {
+            for (File segment : existing) {
+                if (!wanted.contains(segment.getName())) {
+                    Files.deleteIfExists(segment.toPath());
+                }
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(parallelism, stale.size())), WorkerThreads.daemon("piglet-store"));
+        try {
+            List<Future<SegmentResult>> parses = new ArrayList<>();
+            for (File source : stale) {
+                String stamp = current.getProperty("source." + source.getName());
+                parses.add(pool.submit(() ->
+                    writeSegment(source, segmentDir.resolve(source.getName() + SEGMENT_SUFFIX), stamp)));
+            }
+            for (int i = 0; i < stale.size(); i++) {
+                try {
+                    SegmentResult result = parses.get(i).get();
+                    if (result.error != null) {
+                        System.out.println(String.format("    ✗ %s: %s (kept %d triples parsed before the error)",
+                            stale.get(i).getName(), result.error, result.triples));
+                    } else {
+                        System.out.println(String.format("    ✓ %s: parsed %d triples",
+                            stale.get(i).getName(), result.triples));
+                    }
+                } catch (ExecutionException e) {
+                    throw new IOException("Cannot write segment for " + stale.get(i).getName(), e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses one source into its segment. Like the in-memory loader, a file with a
+     * syntax error keeps the triples parsed before it and reports the error.
+     */
+    private static SegmentResult writeSegment(File source, Path segment, String stamp) throws IOException {
+        Path tmp = segment.resolveSibling(segment.getFileName() + ".tmp");
+        long[] count = { 0 };
+        String error = null;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(source), 1 << 16);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeUTF(stamp);
+            TurtleParser parser = new TurtleParser(in, "UTF-8");
+            parser.setBaseURI(source.toURI().toString());
+            parser.setEventHandler(new TurtleEventHandler() {
+                @Override
+                public void triple(int line, int col, Triple triple) {
+                    try {
+                        writeTerm(out, triple.getSubject());
+                        writeTerm(out, triple.getPredicate());
+                        writeTerm(out, triple.getObject());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                }
+
+                @Override
+                public void prefix(int line, int col, String prefix, String iri) {
+                }
+
+                @Override
+                public void startFormula(int line, int col) {
+                }
+
+                @Override
+                public void endFormula(int line, int col) {
+                }
+            });
+            try {
+                parser.parse();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (Exception | TokenMgrError e) {
+                error = e.getMessage() != null ? e.getMessage().split("\\R", 2)[0] : e.getClass().getSimpleName();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, segment, StandardCopyOption.REPLACE_EXISTING);
+        return new SegmentResult(count[0], error);
+    }
+
+    private static void writeTerm(DataOutputStream out, Node node) throws IOException {
+        byte[] encoded = TermCodec.encode(node);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    private static class SegmentResult {
+        private final long triples;
+        private final String error;
+
+        SegmentResult(long triples, String error) {
+            this.triples = triples;
+            this.error = error;
+        }
+    }
+
+    private interface TripleVisitor {
+        void triple(String s, String p, String o);
+    }
+
+    /** Streams a segment's triples as {@link TermCodec#key} strings. */
+    private static void readSegment(Path segment, TripleVisitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            in.readUTF();
+            while (true) {
+                String s;
+                try {
+                    s = readTerm(in);
+                } catch (EOFException e) {
+                    return;
+                }
+                visitor.triple(s, readTerm(in), readTerm(in));
+            }
+        }
+    }
+
+    private static String readTerm(DataInputStream in) throws IOException {
+        byte[] encoded = new byte[in.readInt()];
+        in.readFully(encoded);
+        return TermCodec.key(encoded);
+    }
+
+    private static String segmentStamp(Path segment) {
+        if (!Files.isRegularFile(segment)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(segment))) {
+            return in.readUTF();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeTerms(Path storeDir, String[] sorted) throws IOException {
+        int[] offsets = new int[sorted.length + 1];
+        Path tmp = storeDir.resolve("terms.dat.tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+            long position = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                offsets[i] = (int) position;
+                // key() is Latin-1, so this gives back the original encoded bytes
+                byte[] encoded = sorted[i].getBytes(java.nio.charset.StandardCharsets.ISO_8859_1);
+                out.write(encoded);
+                position += encoded.length;
+                if (position > Integer.MAX_VALUE) {
+                    throw new IOException("Term dictionary exceeds 2 GB");
+                }
+            }
+            offsets[sorted.length] = (int) position;
+        }
+        Files.move(tmp, storeDir.resolve("terms.dat"), StandardCopyOption.REPLACE_EXISTING);
+        writeInts(storeDir.resolve("terms.idx"), offsets, offsets.length);
+    }
+
+    private static void writeInts(Path file, int[] values, int length) throws IOException {
+        if ((long) length * Integer.BYTES > Integer.MAX_VALUE) {
+            throw new IOException(file.getFileName() + " would exceed 2 GB");
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int written = 0;
+            while (written < length) {
+                chunk.clear();
+                int n = Math.min(length - written, chunk.capacity() / Integer.BYTES);
+                chunk.asIntBuffer().put(values, written, n);
+                chunk.limit(n * Integer.BYTES);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                written += n;
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static Properties stamps(File[] sources) {
+        Properties stamps = new Properties();
+        for (File source : sources) {
+            stamps.setProperty("source." + source.getName(), source.length() + ":" + source.lastModified());
+        }
+        return stamps;
+    }
+
+    private static Properties sourceStamps(Properties manifest) {
+        Properties stamps = new Properties();
+        for (String key : manifest.stringPropertyNames()) {
+            if (key.startsWith("source.")) {
+                stamps.setProperty(key, manifest.getProperty(key));
+            }
+        }
+        return stamps;
+    }
+
+    private static Properties readManifest(Path storeDir) {
+        Path file = storeDir.resolve(MANIFEST);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            manifest.load(in);
+            return manifest;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.piglet;
+
+import org.apache.jena.rdf.model.Model;
+import java.util.function.Supplier;
+
+/**
+ * The data model of the last run, kept for the next one in server mode.
+ * Within a run it also lets data-driven scripts and the queries share a load.
+ *
+ * The model is keyed by a stamp of the data files and the store mode; while
+ * those match, later runs query the already loaded model instead of parsing
+ * the Turtle again. Runs that start together wait for a single load.
+ */
+class ModelCache {
+
+    private String key;
+    private Model model;
+    private long hits;
+    private long loads;
+
+    synchronized Model computeIfAbsent(String key, Supplier<Model> loader) {
+        if (model != null && key.equals(this.key)) {
+            hits++;
+            return model;
+        }
+        // Drop the stale model before loading its replacement so both aren't on the heap at once
+        this.model = null;
+        this.key = null;
+        Model loaded = loader.get();
+        this.model = loaded;
+        this.key = key;
+        loads++;
+        return loaded;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getLoads() {
+        return loads;
+    }
+}
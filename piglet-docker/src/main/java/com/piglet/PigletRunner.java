@@ -1,16 +1,65 @@
 package com.piglet;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class PigletRunner {
 
     private static final String OUTPUT_DIR = "/piglet/output";
     private static final String RESOURCES_DIR = "/piglet/resources";
+    private static final int PARALLELISM =
+        Integer.getInteger("piglet.parallelism", Runtime.getRuntime().availableProcessors());
+    private static final long SCRIPT_TIMEOUT_MS = Long.getLong("piglet.script.timeout.ms", 60000L);
+    private static final int SCRIPT_CACHE_SIZE = Integer.getInteger("piglet.script.cache.size", 1024);
+    private static final boolean SCRIPT_CACHE_PERSIST = Boolean.getBoolean("piglet.script.cache.persist");
+    // Query results keyed by query text and dataset, and parsed plans keyed by query shape
+    private static final int QUERY_CACHE_SIZE = Integer.getInteger("piglet.query.cache.size", 1024);
+    private static final boolean QUERY_CACHE_PERSIST = Boolean.getBoolean("piglet.query.cache.persist");
+    private static final int SPARQL_PARALLELISM = Integer.getInteger("piglet.sparql.parallelism", PARALLELISM);
+    private static final int RDF_LOAD_BATCH_SIZE = Integer.getInteger("piglet.rdf.load.batch", 10000);
+    private static final String RDF_STORE = System.getProperty("piglet.store", "memory");
+    private static final String RDF_STORE_DIR = System.getProperty("piglet.store.dir", "/piglet/store");
+    private static final int REPORT_PAGE_SIZE = Integer.getInteger("piglet.report.page.size", 0);
+    // Rows of a data-driven script (one with a .csv or .sparql file beside it) a worker takes at a time
+    private static final int ROW_BATCH_SIZE = Integer.getInteger("piglet.rows.batch", 256);
+    private static final int PIPELINE_QUEUE_SIZE = Integer.getInteger("piglet.pipeline.queue", 1024);
+    // Machine-readable copies of the results next to the report: "jsonl", "binary", both, or ""
+    private static final String RESULT_FORMATS = System.getProperty("piglet.results.formats", "jsonl,binary");
+    // "all" keeps every result in memory for the summary; "failures" keeps only failed ones and
+    // "sample:N" those plus N passing ones of each kind, leaving the rest to the binary result
+    // file, which is then always written
+    private static final int RETAIN_PASSED = passedToRetain(System.getProperty("piglet.results.retain", "all"));
+    // Skip the tests not yet started after this many failures; 0 runs everything
+    private static final int FAIL_FAST = Integer.getInteger("piglet.failfast", 0);
+    // Only rerun scripts and queries whose content (or, for queries, data) changed since the last run
+    private static final boolean INCREMENTAL = Boolean.getBoolean("piglet.incremental");
+    // Stay resident and run the tests on HTTP request instead of once
+    private static final boolean SERVER_MODE = Boolean.getBoolean("piglet.server");
+    // Loopback only unless another interface is named, e.g. 0.0.0.0 to publish the port from a container
+    private static final String SERVER_HOST = System.getProperty("piglet.server.host", "");
+    private static final int SERVER_PORT = Integer.getInteger("piglet.server.port", 8080);
+    private static final int SERVER_MAX_RUNS = Integer.getInteger("piglet.server.runs", 2);
+    // Sharded runs: a coordinator splits the suite over piglet.shard.count workers and merges
+    // their results; a worker (piglet.shard.index set) runs only its share of run piglet.shard.run
+    private static final boolean COORDINATOR = Boolean.getBoolean("piglet.coordinator");
+    private static final int SHARD_COUNT = Integer.getInteger("piglet.shard.count", 1);
+    private static final int SHARD_INDEX = Integer.getInteger("piglet.shard.index", -1);
+    private static final String SHARD_STRATEGY = System.getProperty("piglet.shard.strategy", ShardPlan.HASH);
+    private static final String SHARD_RUN_ID = System.getProperty("piglet.shard.run", "");
+    // Start the workers as local processes, or wait for workers running elsewhere (other containers)
+    private static final boolean SHARD_SPAWN = Boolean.parseBoolean(System.getProperty("piglet.shard.spawn", "true"));
+    private static final long SHARD_TIMEOUT_MS = Long.getLong("piglet.shard.timeout.ms", 30 * 60 * 1000L);
+    // Durations of earlier runs, used to start the longest tests first and to balance shards
+    private static final String TIMINGS_FILE = "test-timings.properties";
 
     public static void main(String[] args) throws Exception {
         System.out.println("╔════════════════════════════════════════════════════════════════╗");
@@ -22,214 +71,593 @@ public class PigletRunner {
         // Create output directory if it doesn't exist
         new File(OUTPUT_DIR).mkdirs();
 
+        StagedConsole console = StagedConsole.install();
+        ScriptCache scriptCache = new ScriptCache(SCRIPT_CACHE_SIZE,
+            SCRIPT_CACHE_PERSIST ? Paths.get(OUTPUT_DIR, "script-cache") : null);
+        // Workers keep their own cache file: they all share the output volume
+        Path queryCacheFile = SHARD_INDEX >= 0
+            ? ShardCoordinator.shardDir(Paths.get(OUTPUT_DIR), SHARD_INDEX).resolve("query-cache.properties")
+            : Paths.get(OUTPUT_DIR, "query-cache.properties");
+        QueryCache queryCache = QUERY_CACHE_SIZE > 0
+            ? new QueryCache(QUERY_CACHE_SIZE, QUERY_CACHE_PERSIST ? queryCacheFile : null) : null;
+
+        if (SERVER_MODE) {
+            // Everything that is expensive to rebuild stays resident between runs:
+            // parsed scripts, warm interpreters, the loaded data and the JIT-compiled code
+            ModelCache modelCache = new ModelCache();
+            InterpreterPool interpreterPool = new InterpreterPool(PARALLELISM);
+            PigletServer server = new PigletServer(SERVER_HOST, SERVER_PORT, SERVER_MAX_RUNS, Paths.get(OUTPUT_DIR),
+                outputDir -> runTests(outputDir, console, scriptCache, queryCache, interpreterPool, modelCache,
+                    null));
+            server.start();
+            return;
+        }
+
+        try {
+            RunOutcome outcome;
+            if (COORDINATOR) {
+                outcome = runShards(Paths.get(OUTPUT_DIR));
+            } else if (SHARD_INDEX >= 0) {
+                if (SHARD_RUN_ID.isEmpty()) {
+                    throw new IllegalArgumentException("A shard worker needs the coordinator's run id in piglet.shard.run");
+                }
+                ShardPlan plan = ShardPlan.await(ShardCoordinator.planPath(Paths.get(OUTPUT_DIR)), SHARD_RUN_ID,
+                    SHARD_INDEX, SHARD_TIMEOUT_MS);
+                System.out.println("ℹ Shard " + SHARD_INDEX + " of " + plan.getCount() + ", run " + SHARD_RUN_ID);
+                Path shardDir = ShardCoordinator.shardDir(Paths.get(OUTPUT_DIR), SHARD_INDEX);
+                Files.createDirectories(shardDir);
+                outcome = runTests(shardDir, console, scriptCache, queryCache, null, null, plan);
+                ShardCoordinator.markComplete(shardDir, SHARD_RUN_ID);
+            } else {
+                outcome = runTests(Paths.get(OUTPUT_DIR), console, scriptCache, queryCache, null, null, null);
+            }
+            printSummary(outcome, scriptCache, queryCache);
+        } catch (Exception e) {
+            System.err.println("ERROR: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            console.uninstall();
+        }
+    }
+
+    /**
+     * Runs the scripts and queries once, writing the report and result files to
+     * {@code outputDir}. {@code interpreterPool} and {@code modelCache} carry warm
+     * state over from earlier runs, or are null for a one-off run; {@code queryCache}
+     * is null when query caching is off. With a
+     * {@code shardPlan} only that shard's tests run, and the binary result file
+     * the coordinator merges is always written.
+     */
+    static RunOutcome runTests(Path outputDir, StagedConsole console, ScriptCache scriptCache,
+                               QueryCache queryCache, InterpreterPool interpreterPool, ModelCache modelCache,
+                               ShardPlan shardPlan) throws Exception {
         long startTime = System.currentTimeMillis();
 
         // Initialize test results
-        TestResults testResults = new TestResults();
+        TestResults testResults = new TestResults(RETAIN_PASSED);
+        FailFast failFast = new FailFast(FAIL_FAST);
 
+        ExecutorService stages = Executors.newFixedThreadPool(2, WorkerThreads.daemon("piglet-stage"));
         try {
-            // Step 1: Run BeanShell Scripts
+            BeanShellScriptRunner beanShellRunner =
+                new BeanShellScriptRunner(RESOURCES_DIR, PARALLELISM, SCRIPT_TIMEOUT_MS, scriptCache);
+            SparqlQueryExecutor sparqlExecutor = new SparqlQueryExecutor(RESOURCES_DIR, SPARQL_PARALLELISM,
+                RDF_LOAD_BATCH_SIZE, RDF_STORE, Paths.get(RDF_STORE_DIR));
+            // Workers keep their own manifest: they all share the output volume
+            Path manifestPath = shardPlan != null ? outputDir.resolve("run-manifest.properties")
+                : Paths.get(OUTPUT_DIR, "run-manifest.properties");
+            RunManifest runManifest = INCREMENTAL ? RunManifest.load(manifestPath) : null;
+            beanShellRunner.setRunManifest(runManifest);
+            sparqlExecutor.setRunManifest(runManifest);
+            RunMetrics metrics = new RunMetrics();
+            beanShellRunner.setMetrics(metrics);
+            sparqlExecutor.setMetrics(metrics);
+            if (interpreterPool != null) {
+                beanShellRunner.setInterpreterPool(interpreterPool);
+            }
+            // Data-driven scripts and the queries load the data once between them
+            sparqlExecutor.setModelCache(modelCache != null ? modelCache : new ModelCache());
+            beanShellRunner.setDataGraph(sparqlExecutor::dataGraph);
+            beanShellRunner.setRowBatchSize(ROW_BATCH_SIZE);
+            sparqlExecutor.setQueryCache(queryCache);
+            beanShellRunner.setShardPlan(shardPlan);
+            sparqlExecutor.setShardPlan(shardPlan);
+            // Workers only read the shared timings; the coordinator records them from the merged results
+            TestTimings timings = TestTimings.load(Paths.get(OUTPUT_DIR, TIMINGS_FILE));
+            beanShellRunner.setTestTimings(timings);
+            sparqlExecutor.setTestTimings(timings);
+            beanShellRunner.setFailFast(failFast);
+            sparqlExecutor.setFailFast(failFast);
+
+            // The stages run side by side: the Turtle load and the queries don't depend on
+            // the scripts, and the report is written as results come off the queues.
+            // Step 2 prints into a held-back buffer until Step 1 is done.
+            ResultQueue beanShellResults = new ResultQueue(PIPELINE_QUEUE_SIZE);
+            ResultQueue sparqlResults = new ResultQueue(PIPELINE_QUEUE_SIZE);
+            StagedConsole.Stage sparqlOutput = new StagedConsole.Stage();
+
             System.out.println("Step 1: Executing BeanShell Scripts for QA Testing");
             System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            BeanShellScriptRunner beanShellRunner = new BeanShellScriptRunner(RESOURCES_DIR);
-            testResults.addAll(beanShellRunner.executeAllScripts());
+            Future<?> beanShellStage = stages.submit(stage(beanShellResults, beanShellRunner::executeAllScripts));
+            Future<?> sparqlStage = stages.submit(console.heldBack(sparqlOutput,
+                stage(sparqlResults, sparqlExecutor::executeAllQueries)));
+
+            RunOutputs outputs;
+            try (RunOutputs opened = new RunOutputs(outputDir,
+                     shardPlan != null || RETAIN_PASSED >= 0 ? RESULT_FORMATS + ",binary" : RESULT_FORMATS,
+                     testResults)) {
+                outputs = opened;
+                List<ResultSink> sinks = opened.getSinks();
+
+                drain(beanShellResults, sinks, metrics);
+                beanShellStage.get();
+                System.out.println();
+
+                System.out.println("Step 2: Executing SPARQL Queries");
+                System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+                console.promote(sparqlOutput);
+                drain(sparqlResults, sinks, metrics);
+                sparqlStage.get();
+                System.out.println();
+
+                System.out.println("Step 3: Generating HTML Test Report");
+                System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+                long reportStart = System.nanoTime();
+                opened.finish(System.currentTimeMillis() - startTime, metrics);
+                metrics.addPhase(RunMetrics.Phase.REPORT, System.nanoTime() - reportStart);
+            }
+            long executionTime = System.currentTimeMillis() - startTime;
+            testResults.setSkippedTests(failFast.getSkipped());
+            outputs.printSaved();
+            if (runManifest != null) {
+                runManifest.save();
+                System.out.println("✓ Run manifest saved to: " + manifestPath);
+            }
+            if (shardPlan == null) {
+                timings.save();
+            }
+            if (queryCache != null) {
+                queryCache.save();
+            }
             System.out.println();
+            return new RunOutcome(testResults, executionTime, metrics, runManifest, outputs.getReportPath());
+        } finally {
+            stages.shutdownNow();
+        }
+    }
 
-            // Step 2: Execute SPARQL Queries
-            System.out.println("Step 2: Executing SPARQL Queries");
-            System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            SparqlQueryExecutor sparqlExecutor = new SparqlQueryExecutor(RESOURCES_DIR);
-            testResults.addAll(sparqlExecutor.executeAllQueries());
+    /** Runs the suite split over {@link #SHARD_COUNT} workers and writes the merged report to {@code outputDir}. */
+    private static RunOutcome runShards(Path outputDir) throws Exception {
+        long startTime = System.currentTimeMillis();
+        TestResults testResults = new TestResults(RETAIN_PASSED);
+        RunMetrics metrics = new RunMetrics();
+        if (SHARD_COUNT < 1) {
+            throw new IllegalArgumentException("piglet.shard.count must be at least 1");
+        }
+        if (!SHARD_SPAWN && SHARD_RUN_ID.isEmpty()) {
+            throw new IllegalArgumentException("Set piglet.shard.run to the run id the external workers were given");
+        }
+        String runId = SHARD_RUN_ID.isEmpty() ? String.valueOf(startTime) : SHARD_RUN_ID;
+
+        System.out.println("Step 1: Running " + SHARD_COUNT + " Shards");
+        System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+        TestTimings timings = TestTimings.load(outputDir.resolve(TIMINGS_FILE));
+        ShardPlan plan = ShardPlan.create(RESOURCES_DIR, 0, SHARD_COUNT, SHARD_STRATEGY, timings);
+        plan.save(ShardCoordinator.planPath(outputDir), runId);
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            System.out.println(String.format("  ℹ Shard %d: %d test(s), %s ms expected (%s)", i,
+                plan.getAssignedCount(i), RunMetrics.millis(plan.getPredictedNanos(i)), SHARD_STRATEGY));
+        }
+        if (!SHARD_SPAWN) {
+            System.out.println("  ℹ Waiting for workers of run " + runId + " to report");
+        }
+        ShardCoordinator coordinator = new ShardCoordinator(outputDir, plan, runId, SHARD_TIMEOUT_MS,
+            SHARD_SPAWN);
+
+        RunOutputs outputs;
+        try (RunOutputs opened = new RunOutputs(outputDir,
+                 RETAIN_PASSED < 0 ? RESULT_FORMATS : RESULT_FORMATS + ",binary", testResults)) {
+            outputs = opened;
+            List<ResultSink> sinks = new ArrayList<>(opened.getSinks());
+            sinks.add(result -> metrics.recordTest(result.getType(), result.getDurationNanos(), -1));
+            // Summed per test first: a data-driven script's rows add up to its time
+            Map<String, Long> durations = new HashMap<>();
+            sinks.add(result -> durations.merge(TestTimings.key(result), result.getDurationNanos(), Long::sum));
+            long collectStart = System.nanoTime();
+            coordinator.collect(result -> {
+                for (ResultSink sink : sinks) {
+                    sink.accept(result);
+                }
+            });
+            durations.forEach(timings::record);
+            long predicted = 0;
+            for (int i = 0; i < SHARD_COUNT; i++) {
+                predicted = Math.max(predicted, plan.getPredictedNanos(i));
+            }
+            long actual = System.nanoTime() - collectStart;
+            metrics.recordMakespan("SHARDS", predicted, actual);
+            System.out.println(String.format("  ℹ Makespan: predicted %s ms, actual %s ms with worker startup",
+                RunMetrics.millis(predicted), RunMetrics.millis(actual)));
             System.out.println();
 
-            // Step 3: Generate HTML Report
-            System.out.println("Step 3: Generating HTML Test Report");
+            System.out.println("Step 2: Generating HTML Test Report");
             System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            long endTime = System.currentTimeMillis();
-            long executionTime = endTime - startTime;
-            
-            generateHTMLReport(testResults, executionTime);
-            System.out.println();
+            long reportStart = System.nanoTime();
+            opened.finish(System.currentTimeMillis() - startTime, metrics);
+            metrics.addPhase(RunMetrics.Phase.REPORT, System.nanoTime() - reportStart);
+        }
+        long executionTime = System.currentTimeMillis() - startTime;
+        outputs.printSaved();
+        timings.save();
+        System.out.println();
+        return new RunOutcome(testResults, executionTime, metrics, null, outputs.getReportPath());
+    }
 
-            // Summary
-            System.out.println("╔════════════════════════════════════════════════════════════════╗");
-            System.out.println("║                      TEST EXECUTION SUMMARY                    ║");
-            System.out.println("╠════════════════════════════════════════════════════════════════╣");
-            System.out.println(String.format("║ Total Tests:      %-48d ║", testResults.getTotalTests()));
-            System.out.println(String.format("║ Passed:           %-48d ║", testResults.getPassedTests()));
-            System.out.println(String.format("║ Failed:           %-48d ║", testResults.getFailedTests()));
-            System.out.println(String.format("║ Execution Time:   %-48s ║", 
-                String.format("%d ms", executionTime)));
-            System.out.println("╠════════════════════════════════════════════════════════════════╣");
-            System.out.println(String.format("║ HTML Report Generated: %s ║", OUTPUT_DIR + "/piglet-test-report.html"));
-            System.out.println("╚════════════════════════════════════════════════════════════════╝");
+    private static void printSummary(RunOutcome outcome, ScriptCache scriptCache, QueryCache queryCache) {
+        TestResults testResults = outcome.getResults();
+        RunMetrics metrics = outcome.getMetrics();
+        RunManifest runManifest = outcome.getRunManifest();
+        System.out.println("╔════════════════════════════════════════════════════════════════╗");
+        System.out.println("║                      TEST EXECUTION SUMMARY                    ║");
+        System.out.println("╠════════════════════════════════════════════════════════════════╣");
+        System.out.println(String.format("║ Total Tests:      %-48d ║", testResults.getTotalTests()));
+        System.out.println(String.format("║ Passed:           %-48d ║", testResults.getPassedTests()));
+        System.out.println(String.format("║ Failed:           %-48d ║", testResults.getFailedTests()));
+        if (testResults.getSkippedTests() > 0) {
+            System.out.println(String.format("║ Skipped:          %-48s ║",
+                testResults.getSkippedTests() + " after " + FAIL_FAST + " failure(s) (fail-fast)"));
+        }
+        System.out.println(String.format("║ Execution Time:   %-48s ║", 
+            String.format("%d ms", outcome.getExecutionTime())));
+        System.out.println(String.format("║ Script Cache:     %-48s ║",
+            String.format("%d hits / %d misses", scriptCache.getHits(), scriptCache.getMisses())));
+        if (queryCache != null) {
+            System.out.println(String.format("║ Query Cache:      %-48s ║",
+                String.format("%d hits / %d misses, %s ms saved", queryCache.getHits(), queryCache.getMisses(),
+                    RunMetrics.millis(queryCache.getSavedNanos()))));
+        }
+        if (runManifest != null) {
+            System.out.println(String.format("║ Incremental:      %-48s ║",
+                String.format("%d reused / %d rerun", runManifest.getReused(), runManifest.getRerun())));
+        }
+        for (RunMetrics.Phase phase : RunMetrics.Phase.values()) {
+            System.out.println(String.format("║ %-17s %-48s ║", phase.getLabel() + " Time:",
+                RunMetrics.millis(metrics.getPhaseNanos(phase)) + " ms"));
+        }
+        for (Map.Entry<String, LatencyHistogram> latency : metrics.getLatencies().entrySet()) {
+            System.out.println(String.format("║ %-17s %-48s ║", latency.getKey() + ":",
+                RunMetrics.formatPercentiles(latency.getValue())));
+        }
+        for (Map.Entry<String, long[]> makespan : metrics.getMakespans().entrySet()) {
+            System.out.println(String.format("║ %-17s %-48s ║", makespan.getKey() + " Span:",
+                String.format("predicted %s / actual %s ms", RunMetrics.millis(makespan.getValue()[0]),
+                    RunMetrics.millis(makespan.getValue()[1]))));
+        }
+        System.out.println(String.format("║ Allocated:        %-48s ║",
+            (metrics.getAllocatedBytes() / (1024 * 1024)) + " MB by tests"));
+        System.out.println(String.format("║ GC:               %-48s ║",
+            String.format("%d collections, %d ms", metrics.getGcCount(), metrics.getGcMillis())));
+        System.out.println("╠════════════════════════════════════════════════════════════════╣");
+        System.out.println(String.format("║ HTML Report Generated: %s ║", outcome.getReportPath()));
+        System.out.println("╚════════════════════════════════════════════════════════════════╝");
+    }
 
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            e.printStackTrace();
-            System.exit(1);
+    private interface StageBody {
+        void run(ResultSink sink) throws IOException, InterruptedException;
+    }
+
+    /** A pipeline stage feeding {@code queue}, which is closed however the stage ends. */
+    private static Runnable stage(ResultQueue queue, StageBody body) {
+        return () -> {
+            try {
+                body.run(queue);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    queue.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    /** Hands each result to every sink; time spent in the sinks counts as report time. */
+    private static void drain(ResultQueue queue, List<ResultSink> sinks, RunMetrics metrics)
+            throws IOException, InterruptedException {
+        for (TestResult result = queue.take(); result != null; result = queue.take()) {
+            long start = System.nanoTime();
+            for (ResultSink sink : sinks) {
+                sink.accept(result);
+            }
+            metrics.addPhase(RunMetrics.Phase.REPORT, System.nanoTime() - start);
         }
     }
 
-    private static void generateHTMLReport(TestResults results, long executionTime) throws IOException {
-        StringBuilder html = new StringBuilder();
-        
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        String timestamp = dateFormat.format(new Date());
-
-        html.append("<!DOCTYPE html>\n");
-        html.append("<html lang=\"en\">\n");
-        html.append("<head>\n");
-        html.append("    <meta charset=\"UTF-8\">\n");
-        html.append("    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n");
-        html.append("    <title>PigletV2 - QA Test Report</title>\n");
-        html.append("    <style>\n");
-        html.append("        * { margin: 0; padding: 0; box-sizing: border-box; }\n");
-        html.append("        body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); padding: 20px; }\n");
-        html.append("        .container { max-width: 1000px; margin: 0 auto; background: white; border-radius: 10px; box-shadow: 0 10px 30px rgba(0,0,0,0.3); overflow: hidden; }\n");
-        html.append("        .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 30px; text-align: center; }\n");
-        html.append("        .header h1 { font-size: 32px; margin-bottom: 10px; }\n");
-        html.append("        .summary { display: grid; grid-template-columns: repeat(4, 1fr); gap: 15px; padding: 30px; background: #f8f9fa; }\n");
-        html.append("        .stat-box { background: white; padding: 20px; border-radius: 8px; text-align: center; border-left: 4px solid #667eea; }\n");
-        html.append("        .stat-box h3 { color: #667eea; font-size: 24px; margin-bottom: 5px; }\n");
-        html.append("        .stat-box p { color: #666; font-size: 14px; }\n");
-        html.append("        .stat-box.passed { border-left-color: #28a745; }\n");
-        html.append("        .stat-box.passed h3 { color: #28a745; }\n");
-        html.append("        .stat-box.failed { border-left-color: #dc3545; }\n");
-        html.append("        .stat-box.failed h3 { color: #dc3545; }\n");
-        html.append("        .content { padding: 30px; }\n");
-        html.append("        .section { margin-bottom: 30px; }\n");
-        html.append("        .section h2 { color: #667eea; font-size: 20px; margin-bottom: 15px; border-bottom: 2px solid #667eea; padding-bottom: 10px; }\n");
-        html.append("        .test-case { background: #f8f9fa; padding: 15px; margin-bottom: 10px; border-radius: 5px; border-left: 4px solid #ddd; }\n");
-        html.append("        .test-case.passed { border-left-color: #28a745; }\n");
-        html.append("        .test-case.failed { border-left-color: #dc3545; }\n");
-        html.append("        .test-name { font-weight: bold; color: #333; }\n");
-        html.append("        .test-status { display: inline-block; padding: 5px 10px; border-radius: 3px; font-size: 12px; margin-top: 5px; }\n");
-        html.append("        .test-status.passed { background: #d4edda; color: #155724; }\n");
-        html.append("        .test-status.failed { background: #f8d7da; color: #721c24; }\n");
-        html.append("        .test-message { font-size: 12px; color: #666; margin-top: 5px; }\n");
-        html.append("        .footer { background: #f8f9fa; padding: 20px; text-align: center; color: #666; font-size: 12px; }\n");
-        html.append("    </style>\n");
-        html.append("</head>\n");
-        html.append("<body>\n");
-        html.append("    <div class=\"container\">\n");
-        html.append("        <div class=\"header\">\n");
-        html.append("            <h1>🧪 PigletV2 QA Test Report</h1>\n");
-        html.append("            <p>Automated Testing Framework for Enterprise QA</p>\n");
-        html.append("        </div>\n");
-        html.append("        <div class=\"summary\">\n");
-        html.append(String.format("            <div class=\"stat-box\"><h3>%d</h3><p>Total Tests</p></div>\n", results.getTotalTests()));
-        html.append(String.format("            <div class=\"stat-box passed\"><h3>%d</h3><p>Passed</p></div>\n", results.getPassedTests()));
-        html.append(String.format("            <div class=\"stat-box failed\"><h3>%d</h3><p>Failed</p></div>\n", results.getFailedTests()));
-        html.append(String.format("            <div class=\"stat-box\"><h3>%.1f%%</h3><p>Success Rate</p></div>\n", 
-            results.getTotalTests() > 0 ? (results.getPassedTests() * 100.0 / results.getTotalTests()) : 0));
-        html.append("        </div>\n");
-        html.append("        <div class=\"content\">\n");
-        html.append("            <div class=\"section\">\n");
-        html.append("                <h2>📊 BeanShell Script Test Results</h2>\n");
-        
-        for (TestResult test : results.getBeanShellResults()) {
-            html.append(formatTestCase(test));
-        }
-
-        html.append("            </div>\n");
-        html.append("            <div class=\"section\">\n");
-        html.append("                <h2>🔍 SPARQL Query Execution Results</h2>\n");
-        
-        for (TestResult test : results.getSparqlResults()) {
-            html.append(formatTestCase(test));
-        }
-
-        html.append("            </div>\n");
-        html.append("        </div>\n");
-        html.append("        <div class=\"footer\">\n");
-        html.append(String.format("            <p>Generated on: %s</p>\n", timestamp));
-        html.append(String.format("            <p>Execution Time: %d ms</p>\n", executionTime));
-        html.append("            <p>PigletV2 - Enterprise QA Framework</p>\n");
-        html.append("        </div>\n");
-        html.append("    </div>\n");
-        html.append("</body>\n");
-        html.append("</html>\n");
-
-        String outputPath = OUTPUT_DIR + "/piglet-test-report.html";
-        Files.write(Paths.get(outputPath), html.toString().getBytes());
-        System.out.println("✓ HTML Report saved to: " + outputPath);
+    /** The HTML report and the result files of one run, all fed the same results. */
+    private static class RunOutputs implements Closeable {
+        private final Path reportPath;
+        private final HtmlReportWriter report;
+        private final List<Closeable> resultWriters = new ArrayList<>();
+        private final List<Path> resultFiles = new ArrayList<>();
+        private final List<ResultSink> sinks = new ArrayList<>();
+        private int pages;
+
+        RunOutputs(Path outputDir, String formats, TestResults testResults) throws IOException {
+            reportPath = outputDir.resolve("piglet-test-report.html");
+            report = new HtmlReportWriter(reportPath, REPORT_PAGE_SIZE);
+            sinks.add(report);
+            sinks.add(testResults::add);
+            try {
+                if (formats.contains("jsonl")) {
+                    add(new JsonlResultWriter(outputDir.resolve("piglet-test-results.jsonl")),
+                        outputDir.resolve("piglet-test-results.jsonl"));
+                }
+                if (formats.contains("binary")) {
+                    add(new BinaryResultWriter(outputDir.resolve("piglet-test-results.bin")),
+                        outputDir.resolve("piglet-test-results.bin"));
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private <W extends ResultSink & Closeable> void add(W writer, Path file) {
+            resultWriters.add(writer);
+            resultFiles.add(file);
+            sinks.add(writer);
+        }
+
+        List<ResultSink> getSinks() {
+            return sinks;
+        }
+
+        Path getReportPath() {
+            return reportPath;
+        }
+
+        void finish(long executionTime, RunMetrics metrics) throws IOException {
+            report.finish(executionTime, metrics);
+            pages = report.getPageCount();
+        }
+
+        void printSaved() {
+            System.out.println("✓ HTML Report saved to: " + reportPath + (pages > 1 ? " (" + pages + " pages)" : ""));
+            for (Path resultFile : resultFiles) {
+                System.out.println("✓ Results saved to: " + resultFile);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (Closeable closeable : resultWriters) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    failure = failure != null ? failure : e;
+                }
+            }
+            report.close();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    static void generateHTMLReport(TestResults results, long executionTime, Path outputPath) throws IOException {
+        generateHTMLReport(results, executionTime, outputPath, REPORT_PAGE_SIZE);
     }
 
-    private static String formatTestCase(TestResult test) {
-        String statusClass = test.isPassed() ? "passed" : "failed";
-        String statusText = test.isPassed() ? "✓ PASSED" : "✗ FAILED";
-        
-        return String.format(
-            "            <div class=\"test-case %s\">\n" +
-            "                <div class=\"test-name\">%s</div>\n" +
-            "                <span class=\"test-status %s\">%s</span>\n" +
-            "                <div class=\"test-message\">%s</div>\n" +
-            "            </div>\n",
-            statusClass, test.getName(), statusClass, statusText, test.getMessage()
-        );
+    /** Streams the report to disk; {@code pageSize} results per page, or 0 for a single page. */
+    static void generateHTMLReport(TestResults results, long executionTime, Path outputPath, int pageSize)
+            throws IOException {
+        int pages;
+        try (HtmlReportWriter writer = new HtmlReportWriter(outputPath, pageSize)) {
+            for (TestResult test : results.getBeanShellResults()) {
+                writer.accept(test);
+            }
+            for (TestResult test : results.getSparqlResults()) {
+                writer.accept(test);
+            }
+            writer.finish(executionTime);
+            pages = writer.getPageCount();
+        }
+        System.out.println("✓ HTML Report saved to: " + outputPath + (pages > 1 ? " (" + pages + " pages)" : ""));
     }
 
+    /**
+     * Passing results of each kind the summary keeps for a {@code piglet.results.retain}
+     * value: -1 for "all" (or anything unrecognised), 0 for "failures", N for "sample:N".
+     */
+    static int passedToRetain(String retain) {
+        if ("failures".equals(retain)) {
+            return 0;
+        }
+        if (retain.startsWith("sample:")) {
+            try {
+                return Math.max(0, Integer.parseInt(retain.substring("sample:".length()).trim()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts of a run's results, kept up to date as results are added, and the
+     * results themselves. With a limit on passing results every failure is kept
+     * but only a uniform sample of that many passes of each kind (reservoir
+     * sampling), so memory stays bounded however large the suite; the full
+     * details are in the result files. Retained results stay in arrival order.
+     */
     static class TestResults {
-        private List<TestResult> beanShellResults = new ArrayList<>();
-        private List<TestResult> sparqlResults = new ArrayList<>();
+        private final int passedLimit;
+        private final Random random;
+        private final List<TestResult> beanShellResults = new ArrayList<>();
+        private final List<TestResult> sparqlResults = new ArrayList<>();
+        // Passing results seen so far of each kind, for the reservoir
+        private int beanShellPassed;
+        private int sparqlPassed;
+        private int totalTests;
+        private int passedTests;
+        private int skippedTests;
+
+        TestResults() {
+            this(-1);
+        }
+
+        /** @param passedLimit passing results of each kind to keep, or -1 to keep them all */
+        TestResults(int passedLimit) {
+            this(passedLimit, new Random());
+        }
+
+        TestResults(int passedLimit, Random random) {
+            this.passedLimit = passedLimit;
+            this.random = random;
+        }
 
         void addBeanShellResult(TestResult result) {
-            beanShellResults.add(result);
+            count(result);
+            if (result.isPassed()) {
+                beanShellPassed++;
+            }
+            retain(beanShellResults, result, beanShellPassed);
         }
 
         void addSparqlResult(TestResult result) {
-            sparqlResults.add(result);
+            count(result);
+            if (result.isPassed()) {
+                sparqlPassed++;
+            }
+            retain(sparqlResults, result, sparqlPassed);
+        }
+
+        /** Keeps a failure always; the {@code seen}-th pass replaces a kept one with probability limit/seen. */
+        private void retain(List<TestResult> kept, TestResult result, int seen) {
+            if (passedLimit < 0 || !result.isPassed() || seen <= passedLimit) {
+                kept.add(result);
+                return;
+            }
+            int victim = random.nextInt(seen);
+            if (victim >= passedLimit) {
+                return;
+            }
+            // Drop the victim-th kept pass and append the new one, so arrival order holds
+            for (Iterator<TestResult> it = kept.iterator(); it.hasNext(); ) {
+                if (it.next().isPassed() && victim-- == 0) {
+                    it.remove();
+                    break;
+                }
+            }
+            kept.add(result);
+        }
+
+        private void count(TestResult result) {
+            totalTests++;
+            if (result.isPassed()) {
+                passedTests++;
+            }
+        }
+
+        void add(TestResult result) {
+            if (result.getType().equals("BEANSHELL")) {
+                addBeanShellResult(result);
+            } else {
+                addSparqlResult(result);
+            }
         }
 
         void addAll(List<TestResult> results) {
             for (TestResult result : results) {
-                if (result.getType().equals("BEANSHELL")) {
-                    addBeanShellResult(result);
-                } else {
-                    addSparqlResult(result);
-                }
+                add(result);
             }
         }
 
         int getTotalTests() {
-            return beanShellResults.size() + sparqlResults.size();
+            return totalTests;
         }
 
         int getPassedTests() {
-            return (int) (beanShellResults.stream().filter(TestResult::isPassed).count() +
-                         sparqlResults.stream().filter(TestResult::isPassed).count());
+            return passedTests;
         }
 
         int getFailedTests() {
-            return getTotalTests() - getPassedTests();
+            return totalTests - passedTests;
+        }
+
+        /** Tests fail-fast dropped before they started; they have no result. */
+        int getSkippedTests() {
+            return skippedTests;
+        }
+
+        void setSkippedTests(int skippedTests) {
+            this.skippedTests = skippedTests;
         }
 
+        /** The retained BeanShell results: all of them, or the failures and a sample of the passes. */
         List<TestResult> getBeanShellResults() {
             return beanShellResults;
         }
 
+        /** The retained SPARQL results: all of them, or the failures and a sample of the passes. */
         List<TestResult> getSparqlResults() {
             return sparqlResults;
         }
     }
 
+    /** What one run produced, for the summary banner or the server's reply. */
+    static class RunOutcome {
+        private final TestResults results;
+        private final long executionTime;
+        private final RunMetrics metrics;
+        private final RunManifest runManifest;
+        private final Path reportPath;
+
+        RunOutcome(TestResults results, long executionTime, RunMetrics metrics,
+                   RunManifest runManifest, Path reportPath) {
+            this.results = results;
+            this.executionTime = executionTime;
+            this.metrics = metrics;
+            this.runManifest = runManifest;
+            this.reportPath = reportPath;
+        }
+
+        TestResults getResults() { return results; }
+        long getExecutionTime() { return executionTime; }
+        RunMetrics getMetrics() { return metrics; }
+        RunManifest getRunManifest() { return runManifest; }
+        Path getReportPath() { return reportPath; }
+    }
+
     static class TestResult {
         private String name;
         private boolean passed;
         private String message;
         private String type;
+        private long durationNanos;
 
         public TestResult(String name, boolean passed, String message, String type) {
+            this(name, passed, message, type, 0);
+        }
+
+        public TestResult(String name, boolean passed, String message, String type, long durationNanos) {
             this.name = name;
             this.passed = passed;
             this.message = message;
             this.type = type;
+            this.durationNanos = durationNanos;
         }
 
         String getName() { return name; }
         boolean isPassed() { return passed; }
         String getMessage() { return message; }
         String getType() { return type; }
+        long getDurationNanos() { return durationNanos; }
     }
 }
@@ -0,0 +1,192 @@
+package com.piglet;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resident HTTP front end: runs the tests on request in a warm JVM and serves
+ * the reports.
+ *
+ * <ul>
+ *   <li>{@code POST /run} runs the tests into {@code runs/<id>/} under the output
+ *       directory and answers with a JSON summary once the run is done</li>
+ *   <li>{@code GET /} redirects to the report of the latest finished run</li>
+ *   <li>{@code GET /health} answers {@code ok}</li>
+ *   <li>any other {@code GET} serves a report or result file ({@code .html},
+ *       {@code .jsonl} or the binary result file) from the output directory</li>
+ * </ul>
+ *
+ * Nothing is authenticated, so the server listens on the loopback interface
+ * unless it is given another host to bind to. Caches, manifests and timings in
+ * the output directory are never served.
+ *
+ * Up to {@code maxRuns} runs execute at once. A {@code POST /run} while every
+ * slot is busy is answered {@code 429} straight away rather than left waiting,
+ * so it never ties up a thread that {@code /health} and report requests need.
+ */
+class PigletServer {
+
+    /** Runs the tests once, writing the report and result files to {@code outputDir}. */
+    interface RunLauncher {
+        PigletRunner.RunOutcome run(Path outputDir) throws Exception;
+    }
+
+    private static final String BINARY_RESULTS = "piglet-test-results.bin";
+
+    private final String host;
+    private final int port;
+    private final Path outputDir;
+    private final Semaphore runSlots;
+    private final int maxRuns;
+    private final RunLauncher launcher;
+    private final AtomicInteger runIds = new AtomicInteger();
+    private final AtomicReference<String> latestReport = new AtomicReference<>();
+    private HttpServer server;
+
+    /** @param host interface to listen on, or null or empty for the loopback interface */
+    PigletServer(String host, int port, int maxRuns, Path outputDir, RunLauncher launcher) {
+        this.host = host;
+        this.port = port;
+        this.maxRuns = Math.max(1, maxRuns);
+        this.runSlots = new Semaphore(this.maxRuns);
+        this.outputDir = outputDir.toAbsolutePath().normalize();
+        this.launcher = launcher;
+    }
+
+    void start() throws IOException {
+        InetSocketAddress address = host == null || host.isEmpty()
+            ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port) : new InetSocketAddress(host, port);
+        server = HttpServer.create(address, 0);
+        server.createContext("/", this::handle);
+        // Room for every run slot plus requests for reports while runs are going
+        server.setExecutor(Executors.newFixedThreadPool(maxRuns + 4));
+        server.start();
+        System.out.println("✓ PigletV2 server listening on " + address.getHostString() + ":" + getAddress().getPort()
+            + " (POST /run to run the tests, up to " + maxRuns + " at a time)");
+    }
+
+    /** Where the server listens; the port is the one the system picked when started with port 0. */
+    InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if ("/run".equals(path)) {
+                if ("POST".equals(method)) {
+                    run(exchange);
+                } else {
+                    send(exchange, 405, "text/plain", "Use POST /run\n");
+                }
+            } else if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                send(exchange, 405, "text/plain", "Method not allowed\n");
+            } else if ("/health".equals(path)) {
+                send(exchange, 200, "text/plain", "ok\n");
+            } else if ("/".equals(path)) {
+                String report = latestReport.get();
+                if (report == null) {
+                    send(exchange, 404, "text/plain", "No run has finished yet; POST /run to start one\n");
+                } else {
+                    exchange.getResponseHeaders().set("Location", report);
+                    exchange.sendResponseHeaders(302, -1);
+                }
+            } else {
+                serveFile(exchange, path);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void run(HttpExchange exchange) throws IOException {
+        if (!runSlots.tryAcquire()) {
+            send(exchange, 429, "text/plain", maxRuns + " run(s) already in progress; try again later\n");
+            return;
+        }
+        String id = String.valueOf(runIds.incrementAndGet());
+        Path runDir = outputDir.resolve("runs").resolve(id);
+        try {
+            System.out.println("→ Run " + id + " started");
+            Files.createDirectories(runDir);
+            PigletRunner.RunOutcome outcome = launcher.run(runDir);
+            PigletRunner.TestResults results = outcome.getResults();
+            String report = "/" + outputDir.relativize(outcome.getReportPath()).toString().replace('\\', '/');
+            latestReport.set(report);
+            System.out.println(String.format("%s Run %s finished: %d/%d passed in %d ms",
+                results.getFailedTests() == 0 ? "✓" : "✗", id,
+                results.getPassedTests(), results.getTotalTests(), outcome.getExecutionTime()));
+            send(exchange, 200, "application/json", String.format(
+                "{\"run\":%s,\"total\":%d,\"passed\":%d,\"failed\":%d,\"skipped\":%d,"
+                    + "\"executionTimeMs\":%d,\"report\":\"%s\"}\n",
+                id, results.getTotalTests(), results.getPassedTests(), results.getFailedTests(),
+                results.getSkippedTests(), outcome.getExecutionTime(), report));
+        } catch (Exception e) {
+            System.out.println("✗ Run " + id + " failed: " + e);
+            send(exchange, 500, "text/plain", "Run " + id + " failed: " + e.getMessage() + "\n");
+        } finally {
+            runSlots.release();
+        }
+    }
+
+    private void serveFile(HttpExchange exchange, String path) throws IOException {
+        Path file = outputDir.resolve(path.substring(1)).normalize();
+        if (!file.startsWith(outputDir) || !isServable(file) || !Files.isRegularFile(file)) {
+            send(exchange, 404, "text/plain", "Not found\n");
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType(file));
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, Files.size(file));
+        try (OutputStream body = exchange.getResponseBody()) {
+            Files.copy(file, body);
+        }
+    }
+
+    /** Reports and result files only: the rest of the output directory is the runner's own state. */
+    private static boolean isServable(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".html") || name.endsWith(".jsonl") || name.equals(BINARY_RESULTS);
+    }
+
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".html")) {
+            return "text/html; charset=utf-8";
+        }
+        if (name.endsWith(".jsonl")) {
+            return "application/x-ndjson; charset=utf-8";
+        }
+        return "application/octet-stream";
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.piglet;
+
+import org.apache.jena.graph.Node;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Results and plans of SPARQL queries, reused across queries and runs.
+ *
+ * A query's text is normalized (comments and extra whitespace dropped) and
+ * its literals and numbers are pulled out as parameters. What is left is the
+ * query's shape: queries that differ only in those values share one parsed
+ * plan, with its join order worked out once, and only bind their own values.
+ * A result is keyed by the normalized text with its values and the dataset
+ * fingerprint, so any change to the data misses. Both maps are LRU bounded
+ * by {@code maxEntries}; results can also be kept in a file between runs.
+ */
+class QueryCache {
+
+    private static final String PARAMETER = "__p";
+
+    private final Path file;
+    private final Map<String, Result> results;
+    private final Map<String, Plan> plans;
+    private long hits;
+    private long misses;
+    private long savedNanos;
+    private long planHits;
+
+    /**
+     * @param maxEntries number of results, and of plans, kept
+     * @param file       file to keep results in between runs, or null for memory only
+     */
+    QueryCache(int maxEntries, Path file) {
+        this.file = file;
+        this.results = lru(maxEntries);
+        this.plans = lru(maxEntries);
+        if (file != null) {
+            load();
+        }
+    }
+
+    private static <V> Map<String, V> lru(int maxEntries) {
+        return new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** A query ready to evaluate, and the key its result is cached under. */
+    static class Prepared {
+        private final SparqlQuery query;
+        private final String resultKey;
+        private final boolean planReused;
+
+        Prepared(SparqlQuery query, String resultKey, boolean planReused) {
+            this.query = query;
+            this.resultKey = resultKey;
+            this.planReused = planReused;
+        }
+
+        SparqlQuery getQuery() { return query; }
+        boolean isPlanReused() { return planReused; }
+    }
+
+    static class Result {
+        private final long count;
+        private final long nanos;
+
+        Result(long count, long nanos) {
+            this.count = count;
+            this.nanos = nanos;
+        }
+
+        long getCount() { return count; }
+        /** How long evaluating the query took when the result was computed. */
+        long getNanos() { return nanos; }
+    }
+
+    private static class Plan {
+        private final SparqlQuery template;
+        private final List<String> parameters;
+        private int[] order;
+
+        Plan(SparqlQuery template, List<String> parameters) {
+            this.template = template;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * Parses {@code text} against the cached plan for its shape, or parses and
+     * caches a new plan. {@code dataset} identifies the data the query runs on.
+     */
+    Prepared prepare(String text, String dataset) {
+        List<String> values = new ArrayList<>();
+        String shape = normalize(text, values);
+        Plan plan;
+        boolean reused;
+        synchronized (this) {
+            plan = plans.get(shape);
+            reused = plan != null;
+            if (reused) {
+                planHits++;
+            }
+        }
+        if (plan == null) {
+            SparqlQuery template;
+            try {
+                template = SparqlQuery.parse(shape);
+            } catch (IllegalArgumentException e) {
+                // Report the error against the text as written, with its line numbers
+                SparqlQuery.parse(text);
+                throw e;
+            }
+            List<String> parameters = new ArrayList<>();
+            for (int i = 0; i < values.size(); i++) {
+                parameters.add(PARAMETER + i);
+            }
+            plan = new Plan(template, parameters);
+        }
+
+        Map<String, Node> bindings = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            bindings.put(plan.parameters.get(i), SparqlQuery.parseTerm(values.get(i), plan.template));
+        }
+        int[] order = plan.order;
+        if (order == null) {
+            // Only constness decides the join order, and every query of this shape has its constants
+            // in the same places, so the order found for this one holds for all of them
+            List<SparqlQuery.TriplePattern> patterns = plan.template.bind(bindings, identity(plan.template))
+                .getPatterns();
+            List<SparqlQuery.TriplePattern> ordered = SparqlEvaluator.joinOrder(patterns);
+            order = new int[ordered.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = patterns.indexOf(ordered.get(i));
+            }
+            plan.order = order;
+            synchronized (this) {
+                plans.put(shape, plan);
+            }
+        }
+        SparqlQuery query = plan.template.bind(bindings, order);
+        return new Prepared(query, sha256(shape + '\0' + String.join("\0", values) + '\0' + dataset), reused);
+    }
+
+    private static int[] identity(SparqlQuery query) {
+        int[] order = new int[query.getPatterns().size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /** The cached result of {@code prepared}, or null; counts a hit or a miss either way. */
+    synchronized Result lookup(Prepared prepared) {
+        Result result = results.get(prepared.resultKey);
+        if (result != null) {
+            hits++;
+            savedNanos += result.nanos;
+        } else {
+            misses++;
+        }
+        return result;
+    }
+
+    synchronized void store(Prepared prepared, long count, long nanos) {
+        results.put(prepared.resultKey, new Result(count, nanos));
+    }
+
+    /** "result cache 75% hits, 12.40 ms saved" */
+    synchronized String describe() {
+        long lookups = hits + misses;
+        return String.format("result cache %d%% hits, %s ms saved", lookups == 0 ? 0 : hits * 100 / lookups,
+            RunMetrics.millis(savedNanos));
+    }
+
+    synchronized long getHits() { return hits; }
+    synchronized long getMisses() { return misses; }
+    synchronized long getSavedNanos() { return savedNanos; }
+    synchronized long getPlanHits() { return planHits; }
+
+    /** Writes the cached results to the file given at construction; a no-op for memory-only caches. */
+    synchronized void save() {
+        if (file == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().count + ":" + entry.getValue().nanos);
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, "PigletV2 query result cache");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("  ⚠ Could not persist query cache: " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("  ⚠ Ignoring unreadable query cache: " + e.getMessage());
+            return;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            String[] parts = properties.getProperty(key).split(":");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                results.put(key, new Result(Long.parseLong(parts[0]), Long.parseLong(parts[1])));
+            } catch (NumberFormatException e) {
+                // A damaged line only costs that query a re-evaluation
+            }
+        }
+    }
+
+    /**
+     * The query's shape: comments dropped, whitespace collapsed, and every
+     * literal and number in the WHERE block replaced by a parameter variable.
+     * The literals' text goes to {@code values}, in order. LIMIT and OFFSET
+     * values stay in the shape.
+     */
+    static String normalize(String text, List<String> values) {
+        StringBuilder shape = new StringBuilder(text.length());
+        int pos = 0;
+        int n = text.length();
+        while (pos < n) {
+            char c = text.charAt(pos);
+            if (Character.isWhitespace(c) || c == '#') {
+                while (pos < n && (Character.isWhitespace(text.charAt(pos)) || text.charAt(pos) == '#')) {
+                    if (text.charAt(pos) == '#') {
+                        while (pos < n && text.charAt(pos) != '\n') {
+                            pos++;
+                        }
+                    } else {
+                        pos++;
+                    }
+                }
+                if (shape.length() > 0 && pos < n) {
+                    shape.append(' ');
+                }
+            } else if (c == '<') {
+                int end = text.indexOf('>', pos);
+                end = end < 0 ? n : end + 1;
+                shape.append(text, pos, end);
+                pos = end;
+            } else if (c == '"' || c == '\'') {
+                int end = literalEnd(text, pos);
+                values.add(text.substring(pos, end));
+                shape.append('?').append(PARAMETER).append(values.size() - 1);
+                pos = end;
+            } else if (startsNumber(text, pos, shape)) {
+                int end = numberEnd(text, pos);
+                values.add(text.substring(pos, end));
+                shape.append('?').append(PARAMETER).append(values.size() - 1);
+                pos = end;
+            } else {
+                shape.append(c);
+                pos++;
+            }
+        }
+        return shape.toString();
+    }
+
+    /** End of the literal starting at {@code start}, including a language tag or datatype. */
+    private static int literalEnd(String text, int start) {
+        char quote = text.charAt(start);
+        String delimiter = text.startsWith(String.valueOf(quote).repeat(3), start)
+            ? String.valueOf(quote).repeat(3) : String.valueOf(quote);
+        int pos = start + delimiter.length();
+        while (pos < text.length() && !text.startsWith(delimiter, pos)) {
+            pos += text.charAt(pos) == '\\' ? 2 : 1;
+        }
+        pos = Math.min(text.length(), pos + delimiter.length());
+        if (pos < text.length() && text.charAt(pos) == '@') {
+            pos++;
+            while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '-')) {
+                pos++;
+            }
+        } else if (text.startsWith("^^", pos)) {
+            pos += 2;
+            if (pos < text.length() && text.charAt(pos) == '<') {
+                int end = text.indexOf('>', pos);
+                pos = end < 0 ? text.length() : end + 1;
+            } else {
+                while (pos < text.length() && isNameChar(text, pos)) {
+                    pos++;
+                }
+            }
+        }
+        return pos;
+    }
+
+    private static boolean startsNumber(String text, int pos, StringBuilder shape) {
+        char c = text.charAt(pos);
+        boolean signed = (c == '+' || c == '-') && pos + 1 < text.length() && Character.isDigit(text.charAt(pos + 1));
+        if (!Character.isDigit(c) && !signed) {
+            return false;
+        }
+        // Part of a name like ex:test1 or ?v2, not a number of its own
+        if (shape.length() > 0 && isNameChar(shape, shape.length() - 1)) {
+            return false;
+        }
+        return !endsWithKeyword(shape, "LIMIT") && !endsWithKeyword(shape, "OFFSET");
+    }
+
+    private static boolean endsWithKeyword(StringBuilder shape, String keyword) {
+        int end = shape.length();
+        while (end > 0 && shape.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int start = end - keyword.length();
+        return start >= 0 && shape.substring(start, end).equalsIgnoreCase(keyword)
+            && (start == 0 || !Character.isLetterOrDigit(shape.charAt(start - 1)));
+    }
+
+    private static int numberEnd(String text, int start) {
+        int pos = start + 1;
+        boolean exponent = false;
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (Character.isDigit(c)) {
+                pos++;
+            } else if (c == '.' && pos + 1 < text.length() && Character.isDigit(text.charAt(pos + 1))) {
+                pos++;
+            } else if ((c == 'e' || c == 'E') && !exponent) {
+                exponent = true;
+                pos++;
+                if (pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+                    pos++;
+                }
+            } else {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    private static boolean isNameChar(CharSequence text, int pos) {
+        char c = text.charAt(pos);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == ':' || c == '?' || c == '$';
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.piglet;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.WrappedGraph;
+import org.apache.jena.shared.AddDeniedException;
+import org.apache.jena.shared.DeleteDeniedException;
+
+/**
+ * Read-only view of a fully loaded graph, shared by concurrent query workers.
+ *
+ * Jena's in-memory graph is safe for any number of readers as long as nothing
+ * writes to it, so once loading is done the graph is frozen behind this view
+ * and any attempt to change it fails fast instead of corrupting the indexes
+ * under a running query.
+ */
+class ReadOnlyGraph extends WrappedGraph {
+
+    ReadOnlyGraph(Graph base) {
+        super(base);
+    }
+
+    @Override
+    public void add(Triple t) {
+        throw new AddDeniedException("Graph snapshot is read-only", t);
+    }
+
+    @Override
+    public void performAdd(Triple t) {
+        throw new AddDeniedException("Graph snapshot is read-only", t);
+    }
+
+    @Override
+    public void delete(Triple t) {
+        throw new DeleteDeniedException("Graph snapshot is read-only", t);
+    }
+
+    @Override
+    public void performDelete(Triple t) {
+        throw new DeleteDeniedException("Graph snapshot is read-only", t);
+    }
+
+    @Override
+    public void remove(Node s, Node p, Node o) {
+        throw new DeleteDeniedException("Graph snapshot is read-only");
+    }
+
+    @Override
+    public void clear() {
+        throw new DeleteDeniedException("Graph snapshot is read-only");
+    }
+}
@@ -0,0 +1,43 @@
+package com.piglet;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded hand-off of results from one pipeline stage to the next.
+ *
+ * A producer that gets ahead of its consumer blocks once the queue is full, so
+ * a fast stage never buffers more than {@code capacity} results. The producer
+ * must {@link #close()} the queue when it is done, also when it fails, so the
+ * consumer sees the end of the stream.
+ */
+class ResultQueue implements ResultSink {
+
+    private static final PigletRunner.TestResult END = new PigletRunner.TestResult("", false, "", "");
+
+    private final BlockingQueue<PigletRunner.TestResult> queue;
+
+    ResultQueue(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void accept(PigletRunner.TestResult result) throws InterruptedException {
+        queue.put(result);
+    }
+
+    void close() throws InterruptedException {
+        queue.put(END);
+    }
+
+    /** Next result, blocking until one arrives, or null once the producer has closed the queue. */
+    PigletRunner.TestResult take() throws InterruptedException {
+        PigletRunner.TestResult result = queue.take();
+        if (result == END) {
+            // Leave the marker for anyone else still taking
+            queue.put(END);
+            return null;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,229 @@
+package com.piglet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Reads back the files written by {@link JsonlResultWriter} and
+ * {@link BinaryResultWriter}, streaming one result at a time.
+ *
+ * Run as a program it regenerates the HTML report from a result file:
+ * <pre>
+ *   java -cp piglet-example.jar com.piglet.ResultReader results.bin report.html [pageSize]
+ * </pre>
+ * The files don't record the run's wall-clock time, so the regenerated footer
+ * shows the sum of the test durations instead.
+ */
+public class ResultReader {
+
+    private ResultReader() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultReader <results.jsonl|results.bin> <report.html> [pageSize]");
+            System.exit(2);
+        }
+        int pageSize = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        long[] totalNanos = { 0 };
+        int pages;
+        try (HtmlReportWriter report = new HtmlReportWriter(Paths.get(args[1]), pageSize)) {
+            read(Paths.get(args[0]), result -> {
+                totalNanos[0] += result.getDurationNanos();
+                report.accept(result);
+            });
+            report.finish(totalNanos[0] / 1_000_000);
+            pages = report.getPageCount();
+        }
+        System.out.println("✓ HTML Report saved to: " + args[1] + (pages > 1 ? " (" + pages + " pages)" : ""));
+    }
+
+    /** Feeds every result in {@code file} to {@code sink}; the format is detected from the header. */
+    static void read(Path file, ResultSink sink) throws IOException, InterruptedException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            in.mark(BinaryResultWriter.MAGIC.length);
+            byte[] header = in.readNBytes(BinaryResultWriter.MAGIC.length);
+            in.reset();
+            if (Arrays.equals(header, BinaryResultWriter.MAGIC)) {
+                readBinary(new DataInputStream(in), sink);
+            } else {
+                readJsonl(in, sink);
+            }
+        }
+    }
+
+    private static void readBinary(DataInputStream in, ResultSink sink) throws IOException, InterruptedException {
+        in.readFully(new byte[BinaryResultWriter.MAGIC.length]);
+        for (int rows = in.readInt(); rows > 0; rows = in.readInt()) {
+            byte[] passed = new byte[(rows + 7) / 8];
+            in.readFully(passed);
+            long[] durations = new long[rows];
+            for (int i = 0; i < rows; i++) {
+                durations[i] = in.readLong();
+            }
+            String[] dictionary = new String[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(in, in.readInt());
+            }
+            byte[] codes = new byte[rows];
+            in.readFully(codes);
+            String[] names = readStrings(in, rows);
+            String[] messages = readStrings(in, rows);
+            for (int i = 0; i < rows; i++) {
+                sink.accept(new PigletRunner.TestResult(names[i], (passed[i >> 3] & (1 << (i & 7))) != 0,
+                    messages[i], dictionary[codes[i] & 0xff], durations[i]));
+            }
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in, int rows) throws IOException {
+        int[] lengths = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            lengths[i] = in.readInt();
+        }
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = readString(in, lengths[i]);
+        }
+        return values;
+    }
+
+    private static String readString(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readJsonl(InputStream in, ResultSink sink) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                sink.accept(new JsonLine(line).parse());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Bad result on line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /** Parser for the flat objects {@link JsonlResultWriter} writes; unknown fields are skipped. */
+    private static class JsonLine {
+        private final String text;
+        private int pos;
+
+        JsonLine(String text) {
+            this.text = text;
+        }
+
+        PigletRunner.TestResult parse() {
+            String name = "";
+            String type = "";
+            String message = "";
+            boolean passed = false;
+            long duration = 0;
+            expect('{');
+            if (peek() != '}') {
+                do {
+                    String key = string();
+                    expect(':');
+                    switch (key) {
+                        case "name": name = string(); break;
+                        case "type": type = string(); break;
+                        case "message": message = string(); break;
+                        case "passed": passed = literal().equals("true"); break;
+                        case "durationNanos": duration = Long.parseLong(literal()); break;
+                        default: value(); break;
+                    }
+                } while (consume(','));
+            }
+            expect('}');
+            return new PigletRunner.TestResult(name, passed, message, type, duration);
+        }
+
+        private void value() {
+            if (peek() == '"') {
+                string();
+            } else {
+                literal();
+            }
+        }
+
+        private String literal() {
+            skipSpace();
+            int start = pos;
+            while (pos < text.length() && ",}] \t".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            return text.substring(start, pos);
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw new IllegalArgumentException("unterminated string");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: value.append(escaped); break;
+                }
+            }
+        }
+
+        private char peek() {
+            skipSpace();
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("expected '" + c + "' at column " + (pos + 1));
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
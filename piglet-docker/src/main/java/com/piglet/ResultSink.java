@@ -0,0 +1,11 @@
+package com.piglet;
+
+import java.io.IOException;
+
+/**
+ * Receives test results one at a time, as each runner produces them.
+ */
+interface ResultSink {
+
+    void accept(PigletRunner.TestResult result) throws IOException, InterruptedException;
+}
@@ -0,0 +1,245 @@
+package com.piglet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Record of what each test ran against and what it returned, kept between runs
+ * so an incremental run can skip tests whose inputs are unchanged.
+ *
+ * A test's key is its script or query file; its hash covers the file content
+ * and, for queries, the fingerprint of the dataset they ran against. Only
+ * passing results are reused, so a failure is always re-checked. The manifest
+ * written at the end holds the tests seen in that run, which drops entries for
+ * deleted files, plus any entries other runs in server mode saved while this
+ * one was going.
+ */
+class RunManifest {
+
+    private static final String FORMAT_VERSION = "1";
+
+    // Held from re-reading the file to replacing it, across every run in this JVM
+    private static final Object SAVE_LOCK = new Object();
+
+    private final Path file;
+    private final Properties previous = new Properties();
+    private final Properties current = new Properties();
+    private int reused;
+    private int rerun;
+
+    private RunManifest(Path file) {
+        this.file = file;
+    }
+
+    /** Loads the manifest at {@code file}; a missing or unreadable one just means nothing is reused. */
+    static RunManifest load(Path file) {
+        RunManifest manifest = new RunManifest(file);
+        read(file, manifest.previous);
+        return manifest;
+    }
+
+    private static void read(Path file, Properties properties) {
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("  ⚠ Ignoring unreadable run manifest: " + e.getMessage());
+                properties.clear();
+            }
+            if (!FORMAT_VERSION.equals(properties.getProperty("format"))) {
+                properties.clear();
+            }
+        }
+    }
+
+    /** Content hash of a script or query, combined with whatever else the result depends on. */
+    String hash(File input, String... dependencies) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(Files.readAllBytes(input.toPath()));
+        for (String dependency : dependencies) {
+            digest.update((byte) 0);
+            digest.update(dependency.getBytes(StandardCharsets.UTF_8));
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * Fingerprint of every Turtle file in {@code dataDir}. File contents are only
+     * re-hashed when their size or modification time changed since the last run.
+     */
+    synchronized String datasetFingerprint(File dataDir) throws IOException {
+        File[] files = dataDir.listFiles((dir, name) -> name.endsWith(".ttl"));
+        if (files == null || files.length == 0) {
+            return "none";
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        MessageDigest fingerprint = sha256();
+        for (File data : files) {
+            String key = "data." + data.getName();
+            String stamp = data.length() + ":" + data.lastModified();
+            String recorded = previous.getProperty(key, "");
+            String hash;
+            if (recorded.startsWith(stamp + ":")) {
+                hash = recorded.substring(stamp.length() + 1);
+            } else {
+                hash = hashContent(data);
+            }
+            current.setProperty(key, stamp + ":" + hash);
+            fingerprint.update(data.getName().getBytes(StandardCharsets.UTF_8));
+            fingerprint.update((byte) 0);
+            fingerprint.update(hash.getBytes(StandardCharsets.US_ASCII));
+        }
+        return hex(fingerprint.digest());
+    }
+
+    /** The same fingerprint without a manifest to take unchanged files' hashes from. */
+    static String fingerprintOf(File dataDir) throws IOException {
+        return new RunManifest(null).datasetFingerprint(dataDir);
+    }
+
+    /**
+     * The last result for {@code key} if it passed with the same input hash, or
+     * null if the test has to run. A reused result is carried into this run's manifest.
+     */
+    synchronized PigletRunner.TestResult reuse(String key, String hash) {
+        String prefix = "test." + key + ".";
+        if (!hash.equals(previous.getProperty(prefix + "hash"))
+                || !"true".equals(previous.getProperty(prefix + "passed"))) {
+            rerun++;
+            return null;
+        }
+        for (String field : new String[] { "hash", "passed", "name", "type", "message", "durationNanos" }) {
+            current.setProperty(prefix + field, previous.getProperty(prefix + field, ""));
+        }
+        reused++;
+        return new PigletRunner.TestResult(
+            previous.getProperty(prefix + "name"),
+            true,
+            previous.getProperty(prefix + "message") + " (unchanged, result from previous run)",
+            previous.getProperty(prefix + "type"),
+            Long.parseLong(previous.getProperty(prefix + "durationNanos", "0")));
+    }
+
+    synchronized void record(String key, String hash, PigletRunner.TestResult result) {
+        String prefix = "test." + key + ".";
+        current.setProperty(prefix + "hash", hash);
+        current.setProperty(prefix + "passed", String.valueOf(result.isPassed()));
+        current.setProperty(prefix + "name", result.getName());
+        current.setProperty(prefix + "type", result.getType());
+        current.setProperty(prefix + "message", result.getMessage() != null ? result.getMessage() : "");
+        current.setProperty(prefix + "durationNanos", String.valueOf(result.getDurationNanos()));
+    }
+
+    synchronized int getReused() {
+        return reused;
+    }
+
+    synchronized int getRerun() {
+        return rerun;
+    }
+
+    /**
+     * Replaces the manifest on disk with what this run saw. Entries on disk
+     * that this run didn't see are kept only if another run wrote them after
+     * this one loaded the manifest; the rest are stale and dropped.
+     */
+    synchronized void save() throws IOException {
+        synchronized (SAVE_LOCK) {
+            Properties latest = new Properties();
+            read(file, latest);
+            Properties merged = new Properties();
+            for (String group : groups(latest)) {
+                if (!sameGroup(group, latest, previous)) {
+                    copyGroup(group, latest, merged);
+                }
+            }
+            merged.putAll(current);
+            merged.setProperty("format", FORMAT_VERSION);
+
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            // Unique temp name: runs in server mode can finish at the same time
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(),
+                ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                merged.store(out, "PigletV2 run manifest");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** The entries in {@code properties}: {@code test.<key>.} prefixes and {@code data.<file>} keys. */
+    private static Set<String> groups(Properties properties) {
+        Set<String> groups = new HashSet<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("test.")) {
+                groups.add(name.substring(0, name.lastIndexOf('.') + 1));
+            } else if (name.startsWith("data.")) {
+                groups.add(name);
+            }
+        }
+        return groups;
+    }
+
+    /** Whether the entry {@code group} is in {@code b} with the same values as in {@code a}. */
+    private static boolean sameGroup(String group, Properties a, Properties b) {
+        boolean found = false;
+        for (String name : a.stringPropertyNames()) {
+            if (inGroup(name, group)) {
+                if (!a.getProperty(name).equals(b.getProperty(name))) {
+                    return false;
+                }
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    private static void copyGroup(String group, Properties from, Properties to) {
+        for (String name : from.stringPropertyNames()) {
+            if (inGroup(name, group)) {
+                to.setProperty(name, from.getProperty(name));
+            }
+        }
+    }
+
+    private static boolean inGroup(String name, String group) {
+        return group.endsWith(".") ? name.startsWith(group) && name.indexOf('.', group.length()) < 0
+            : name.equals(group);
+    }
+
+    private static String hashContent(File data) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(data.toPath())) {
+            for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
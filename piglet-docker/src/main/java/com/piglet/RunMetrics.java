@@ -0,0 +1,131 @@
+package com.piglet;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the time of a run goes: time per phase, a latency histogram per test
+ * type, predicted and actual makespan of each scheduled batch, bytes
+ * allocated by the tests and garbage collector activity.
+ *
+ * Phase times are summed over every thread that worked in the phase, so with
+ * parallel workers they can add up to more than the wall-clock time.
+ */
+class RunMetrics {
+
+    enum Phase {
+        PARSE("Parse"), LOAD("Load"), EXECUTE("Execute"), REPORT("Report");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        String getLabel() {
+            return label;
+        }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Map<Phase, LongAdder> phases = new EnumMap<>(Phase.class);
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, long[]> makespans = new ConcurrentHashMap<>();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final long gcCountAtStart;
+    private final long gcMillisAtStart;
+
+    RunMetrics() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new LongAdder());
+        }
+        gcCountAtStart = gcCount();
+        gcMillisAtStart = gcMillis();
+    }
+
+    void addPhase(Phase phase, long nanos) {
+        phases.get(phase).add(nanos);
+    }
+
+    long getPhaseNanos(Phase phase) {
+        return phases.get(phase).sum();
+    }
+
+    /** Records one test's duration and the bytes its thread allocated while running it (-1 if unknown). */
+    void recordTest(String type, long durationNanos, long allocated) {
+        latencies.computeIfAbsent(type, t -> new LatencyHistogram()).record(durationNanos);
+        if (allocated > 0) {
+            allocatedBytes.add(allocated);
+        }
+    }
+
+    /** Latency histograms by test type, in type order. */
+    Map<String, LatencyHistogram> getLatencies() {
+        return new TreeMap<>(latencies);
+    }
+
+    /** Records how long a batch of {@code type} tests was expected to take on its workers, and took. */
+    void recordMakespan(String type, long predictedNanos, long actualNanos) {
+        makespans.put(type, new long[] { predictedNanos, actualNanos });
+    }
+
+    /** Predicted and actual makespan in nanoseconds by test type, in type order. */
+    Map<String, long[]> getMakespans() {
+        return new TreeMap<>(makespans);
+    }
+
+    long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    long getGcCount() {
+        return gcCount() - gcCountAtStart;
+    }
+
+    long getGcMillis() {
+        return gcMillis() - gcMillisAtStart;
+    }
+
+    /** Bytes allocated so far by the calling thread, or -1 when the JVM can't tell. */
+    static long threadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /** "p50 1.20 / p90 3.40 / p99 5.00 / max 7.10 ms" */
+    static String formatPercentiles(LatencyHistogram histogram) {
+        return String.format("p50 %s / p90 %s / p99 %s / max %s ms",
+            millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+            millis(histogram.getValueAtPercentile(99)), millis(histogram.getMax()));
+    }
+
+    static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,254 @@
+package com.piglet;
+
+import bsh.CompiledScript;
+import bsh.EvalError;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of parsed BeanShell scripts keyed by the SHA-256 of their content.
+ *
+ * Parsed scripts are held in an LRU map bounded by {@code maxEntries}. When a
+ * cache directory is given, they are also serialized there so a later run can
+ * skip parsing. A small index of file size, mtime and hash lets unchanged files
+ * be served without reading them at all.
+ *
+ * The cache directory sits on a shared, host-mounted volume, so persisted
+ * entries are only deserialized through {@link #ENTRY_FILTER}.
+ */
+class ScriptCache {
+
+    private static final String INDEX_FILE = "index.properties";
+    private static final String ENTRY_SUFFIX = ".bshc";
+
+    // Exactly what a parsed script is made of: syntax nodes, tokens and literal values. Other bsh
+    // classes stay out, XThis in particular, which a crafted stream can turn into code execution
+    private static final ObjectInputFilter ENTRY_FILTER = ObjectInputFilter.Config.createFilter(
+        "bsh.CompiledScript;bsh.Node;bsh.SimpleNode;bsh.BSH*;bsh.Token;bsh.Primitive;bsh.Primitive$Special;"
+            + "java.lang.String;java.lang.Boolean;java.lang.Character;java.lang.Number;java.lang.Byte;"
+            + "java.lang.Short;java.lang.Integer;java.lang.Long;java.lang.Float;java.lang.Double;!*");
+
+    private final Path cacheDir;
+    private final Map<String, CompiledScript> compiled;
+    private final Map<String, FileStamp> stamps = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries number of parsed scripts kept in memory
+     * @param cacheDir   directory to persist parsed scripts in, or null for memory only
+     */
+    ScriptCache(int maxEntries, Path cacheDir) {
+        this.cacheDir = cacheDir;
+        this.compiled = new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        if (cacheDir != null) {
+            loadIndex();
+        }
+    }
+
+    /**
+     * Returns the parsed form of {@code script}, reading and parsing it only if
+     * neither the in-memory nor the on-disk cache holds its current content.
+     */
+    CompiledScript load(File script) throws IOException, EvalError {
+        String path = script.getAbsolutePath();
+        long size = script.length();
+        long modified = script.lastModified();
+
+        FileStamp stamp;
+        synchronized (this) {
+            stamp = stamps.get(path);
+        }
+        if (stamp != null && stamp.size == size && stamp.modified == modified) {
+            CompiledScript cached = lookup(stamp.hash);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        byte[] content = Files.readAllBytes(script.toPath());
+        String hash = sha256(content);
+        synchronized (this) {
+            stamps.put(path, new FileStamp(size, modified, hash));
+        }
+
+        CompiledScript cached = lookup(hash);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        CompiledScript parsed = CompiledScript.compile(
+            new StringReader(new String(content, StandardCharsets.UTF_8)), script.getName());
+        synchronized (this) {
+            compiled.put(hash, parsed);
+        }
+        if (cacheDir != null) {
+            writeEntry(hash, parsed);
+        }
+        return parsed;
+    }
+
+    long getHits() { return hits.get(); }
+    long getMisses() { return misses.get(); }
+
+    /**
+     * Writes the file index and removes persisted entries no indexed script
+     * refers to any more. A no-op for memory-only caches.
+     */
+    synchronized void flush() {
+        if (cacheDir == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(cacheDir);
+            Properties index = new Properties();
+            Set<String> live = new HashSet<>();
+            for (Map.Entry<String, FileStamp> entry : stamps.entrySet()) {
+                FileStamp stamp = entry.getValue();
+                index.setProperty(entry.getKey(), stamp.size + ":" + stamp.modified + ":" + stamp.hash);
+                live.add(stamp.hash + ENTRY_SUFFIX);
+            }
+            Path tmp = cacheDir.resolve(INDEX_FILE + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                index.store(out, "PigletV2 script cache index");
+            }
+            Files.move(tmp, cacheDir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING);
+
+            File[] entries = cacheDir.toFile().listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+            if (entries != null) {
+                for (File entry : entries) {
+                    if (!live.contains(entry.getName())) {
+                        Files.deleteIfExists(entry.toPath());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("  ⚠ Could not persist script cache: " + e.getMessage());
+        }
+    }
+
+    private CompiledScript lookup(String hash) {
+        synchronized (this) {
+            CompiledScript cached = compiled.get(hash);
+            if (cached != null || cacheDir == null) {
+                return cached;
+            }
+        }
+        CompiledScript persisted = readEntry(hash);
+        if (persisted != null) {
+            synchronized (this) {
+                compiled.put(hash, persisted);
+            }
+        }
+        return persisted;
+    }
+
+    private CompiledScript readEntry(String hash) {
+        Path entry = cacheDir.resolve(hash + ENTRY_SUFFIX);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(entry))) {
+            in.setObjectInputFilter(ENTRY_FILTER);
+            return (CompiledScript) in.readObject();
+        } catch (InvalidClassException e) {
+            // Rejected by the filter: drop the file so the script's next parse writes a clean entry
+            System.out.println("  ⚠ Ignoring script cache entry " + entry.getFileName() + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException ignored) {
+                // Parsed again either way
+            }
+            return null;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // Stale or corrupt entry (e.g. written by another bsh version), parse again
+            return null;
+        }
+    }
+
+    private void writeEntry(String hash, CompiledScript script) {
+        try {
+            Files.createDirectories(cacheDir);
+            Path tmp = Files.createTempFile(cacheDir, hash, ".tmp");
+            try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(tmp))) {
+                out.writeObject(script);
+            }
+            Files.move(tmp, cacheDir.resolve(hash + ENTRY_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("  ⚠ Could not persist parsed script: " + e.getMessage());
+        }
+    }
+
+    private void loadIndex() {
+        Path indexFile = cacheDir.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        Properties index = new Properties();
+        try (InputStream in = Files.newInputStream(indexFile)) {
+            index.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("  ⚠ Ignoring unreadable script cache index: " + e.getMessage());
+            return;
+        }
+        for (String path : index.stringPropertyNames()) {
+            String[] parts = index.getProperty(path).split(":");
+            if (parts.length != 3) {
+                continue;
+            }
+            try {
+                stamps.put(path, new FileStamp(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+            } catch (NumberFormatException e) {
+                // A damaged line only costs that script a re-read
+            }
+        }
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class FileStamp {
+        private final long size;
+        private final long modified;
+        private final String hash;
+
+        FileStamp(long size, long modified, String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.piglet;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Rows a data-driven BeanShell script runs against, one test per row.
+ *
+ * A script {@code name.bsh} is data-driven when {@code name.csv} or
+ * {@code name.sparql} sits next to it. A CSV file's header row names the
+ * variables and every further row is a case; values are strings. A query is
+ * evaluated over the loaded data and binds its projected variables; literals
+ * become their Java value (Integer, String, ...), IRIs their IRI string.
+ */
+class ScriptRows {
+
+    private final String source;
+    private final String[] columns;
+    private final List<Object[]> rows;
+
+    private ScriptRows(String source, String[] columns, List<Object[]> rows) {
+        this.source = source;
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /** The CSV or query file next to {@code script}, or null when the script is a plain test. */
+    static File sourceFor(File script) {
+        String base = script.getName().substring(0, script.getName().length() - ".bsh".length());
+        for (String suffix : new String[] { ".csv", ".sparql" }) {
+            File source = new File(script.getParentFile(), base + suffix);
+            if (source.isFile()) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    /** Reads the rows in {@code source}; {@code data} is only asked for the graph when it is a query. */
+    static ScriptRows load(File source, Supplier<Graph> data) throws IOException {
+        if (source.getName().endsWith(".csv")) {
+            try (BufferedReader in = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+                return readCsv(source.getName(), in);
+            }
+        }
+        SparqlQuery query = SparqlQuery.parse(Files.readString(source.toPath()).trim());
+        String[] columns = query.getProjection().toArray(new String[0]);
+        List<Object[]> rows = new ArrayList<>();
+        try (SparqlEvaluator.RowIterator results = SparqlEvaluator.evaluate(data.get(), query)) {
+            while (results.hasNext()) {
+                Node[] row = results.next();
+                Object[] values = new Object[row.length];
+                for (int i = 0; i < row.length; i++) {
+                    values[i] = value(row[i]);
+                }
+                rows.add(values);
+            }
+        }
+        return new ScriptRows(source.getName(), columns, rows);
+    }
+
+    private static Object value(Node node) {
+        if (node == null) {
+            return null;
+        }
+        if (node.isLiteral()) {
+            try {
+                return node.getLiteralValue();
+            } catch (RuntimeException e) {
+                // Ill-formed typed literal: hand the script the text as written
+                return node.getLiteralLexicalForm();
+            }
+        }
+        return node.isURI() ? node.getURI() : node.toString();
+    }
+
+    /** RFC 4180 CSV: quoted fields may hold commas, doubled quotes and line breaks. */
+    static ScriptRows readCsv(String source, Reader in) throws IOException {
+        List<String> record = new ArrayList<>();
+        String[] columns = null;
+        List<Object[]> rows = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStarted = false;
+        int line = 1;
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next >= 0) {
+                            in.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+                fieldStarted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+                fieldStarted = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') {
+                        in.reset();
+                    }
+                }
+                if (fieldStarted || field.length() > 0) {
+                    record.add(field.toString());
+                    columns = addRecord(source, line, record, columns, rows);
+                }
+                record.clear();
+                field.setLength(0);
+                fieldStarted = false;
+                line++;
+            } else {
+                field.append((char) c);
+                fieldStarted = true;
+            }
+        }
+        if (quoted) {
+            throw new IOException(source + ": unterminated quoted field at line " + line);
+        }
+        if (fieldStarted || field.length() > 0) {
+            record.add(field.toString());
+            columns = addRecord(source, line, record, columns, rows);
+        }
+        if (columns == null) {
+            throw new IOException(source + ": no header row");
+        }
+        return new ScriptRows(source, columns, rows);
+    }
+
+    private static String[] addRecord(String source, int line, List<String> record, String[] columns,
+                                      List<Object[]> rows) throws IOException {
+        if (columns == null) {
+            String[] header = new String[record.size()];
+            for (int i = 0; i < header.length; i++) {
+                header[i] = record.get(i).trim();
+            }
+            return header;
+        }
+        if (record.size() != columns.length) {
+            throw new IOException(source + ": line " + line + " has " + record.size() + " field(s), expected "
+                + columns.length);
+        }
+        rows.add(record.toArray(new Object[0]));
+        return columns;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    String[] getColumns() {
+        return columns;
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    Object[] get(int row) {
+        return rows.get(row);
+    }
+}
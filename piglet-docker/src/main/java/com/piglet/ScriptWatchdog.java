@@ -0,0 +1,148 @@
+package com.piglet;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces script time limits on a worker pool.
+ *
+ * When a limit runs out the worker thread is interrupted, which a script
+ * notices at its next statement or loop iteration (see
+ * {@link bsh.CompiledScript}) or in a blocking call. A script that still
+ * hasn't stopped a grace period later, such as one spinning in
+ * {@code while (true);}, can't be stopped at all: its worker is given up on
+ * and the pool gets a thread in its place, so the work queued behind it runs.
+ */
+class ScriptWatchdog {
+
+    // How long an interrupted script gets to stop before its worker is replaced
+    static final long GRACE_MILLIS = 1000;
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService timer =
+        Executors.newSingleThreadScheduledExecutor(WorkerThreads.daemon("piglet-bsh-watchdog"));
+    private final long graceMillis;
+    private final AtomicInteger abandoned = new AtomicInteger();
+
+    ScriptWatchdog(ThreadPoolExecutor pool) {
+        this(pool, GRACE_MILLIS);
+    }
+
+    ScriptWatchdog(ThreadPoolExecutor pool, long graceMillis) {
+        this.pool = pool;
+        this.graceMillis = graceMillis;
+    }
+
+    /**
+     * Starts the clock on the script about to run on this thread. When
+     * {@code limitMillis} runs out the thread is interrupted and
+     * {@code onExpiry} runs; if the script is still going after the grace
+     * period, its worker is replaced and {@code onAbandon} runs.
+     */
+    Deadline start(long limitMillis, Runnable onExpiry, Runnable onAbandon) {
+        Deadline deadline = new Deadline(Thread.currentThread());
+        CURRENT.set(deadline);
+        deadline.timer = timer.schedule(() -> {
+            if (deadline.expire(onExpiry)) {
+                deadline.timer = timer.schedule(() -> {
+                    if (deadline.abandon()) {
+                        abandoned.incrementAndGet();
+                        resize(1);
+                        onAbandon.run();
+                    }
+                }, graceMillis, TimeUnit.MILLISECONDS);
+            }
+        }, limitMillis, TimeUnit.MILLISECONDS);
+        return deadline;
+    }
+
+    /** Whether the script running on this thread was given up on, so the interpreter it holds is not reused. */
+    static boolean isCurrentAbandoned() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null && deadline.isAbandoned();
+    }
+
+    int getAbandonedCount() {
+        return abandoned.get();
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void resize(int delta) {
+        synchronized (pool) {
+            // The maximum has to stay at or above the core size at every step
+            if (delta > 0) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            } else {
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    /** The time limit of one script run. */
+    final class Deadline {
+        private final Thread thread;
+        private volatile ScheduledFuture<?> timer;
+        private boolean finished;
+        private boolean expired;
+        private boolean abandoned;
+
+        private Deadline(Thread thread) {
+            this.thread = thread;
+        }
+
+        private synchronized boolean expire(Runnable onExpiry) {
+            if (finished) {
+                return false;
+            }
+            expired = true;
+            thread.interrupt();
+            onExpiry.run();
+            return true;
+        }
+
+        private synchronized boolean abandon() {
+            if (finished) {
+                return false;
+            }
+            abandoned = true;
+            return true;
+        }
+
+        synchronized boolean isAbandoned() {
+            return abandoned;
+        }
+
+        /**
+         * Stops the clock, clearing the interrupt a timeout left on the thread,
+         * and returns whether the limit ran out. A worker that was replaced
+         * while it was stuck is taken out of the pool again.
+         */
+        boolean finish() {
+            boolean wasAbandoned;
+            synchronized (this) {
+                finished = true;
+                timer.cancel(false);
+                if (expired) {
+                    Thread.interrupted();
+                }
+                wasAbandoned = abandoned;
+            }
+            CURRENT.remove();
+            if (wasAbandoned) {
+                resize(-1);
+            }
+            return expired;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.piglet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Splits a run across shard workers and merges what they report into one report.
+ *
+ * Each worker runs its share of the suite as an ordinary run into
+ * {@code shards/shard-<i>/} under the shared output directory and then writes a
+ * {@code complete} marker naming the run. The coordinator either starts the
+ * workers itself as local processes or waits for workers in other containers
+ * to report, then reads their binary result files, puts the results back in
+ * suite order (by file, then by row for a data-driven script) and writes the
+ * report and result files of the whole run.
+ */
+class ShardCoordinator {
+
+    static final String MARKER = "complete";
+
+    private final Path outputDir;
+    private final ShardPlan plan;
+    private final int count;
+    private final String runId;
+    private final long timeoutMillis;
+    private final boolean spawn;
+
+    /**
+     * @param plan          the published plan, naming the tests of a shard that never reports
+     * @param runId         identifies this run in the workers' markers, so results left by an
+     *                      earlier run are never merged
+     * @param timeoutMillis how long to wait for all shards before reporting the missing ones as failed
+     * @param spawn         start the workers as local processes instead of waiting for external ones
+     */
+    ShardCoordinator(Path outputDir, ShardPlan plan, String runId, long timeoutMillis, boolean spawn) {
+        this.outputDir = outputDir;
+        this.plan = plan;
+        this.count = plan.getCount();
+        this.runId = runId;
+        this.timeoutMillis = timeoutMillis;
+        this.spawn = spawn;
+    }
+
+    static Path planPath(Path outputDir) {
+        return outputDir.resolve("shards").resolve("plan.properties");
+    }
+
+    static Path shardDir(Path outputDir, int index) {
+        return outputDir.resolve("shards").resolve("shard-" + index);
+    }
+
+    /** Called by a worker once its results are on disk. */
+    static void markComplete(Path shardDir, String runId) throws IOException {
+        Path tmp = Files.createTempFile(shardDir, MARKER, ".tmp");
+        Files.write(tmp, runId.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, shardDir.resolve(MARKER), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Waits for every shard, then hands all results to {@code sink} with BeanShell first, each in name order. */
+    void collect(ResultSink sink) throws IOException, InterruptedException {
+        List<Process> workers = spawn ? startWorkers() : Collections.emptyList();
+        try {
+            boolean[] done = awaitShards(workers);
+            List<PigletRunner.TestResult> merged = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Path results = shardDir(outputDir, i).resolve("piglet-test-results.bin");
+                if (!done[i] || !Files.isRegularFile(results)) {
+                    System.out.println("  ✗ Shard " + i + " did not report");
+                    addMissing(merged, i, "beanshell", "BEANSHELL");
+                    addMissing(merged, i, "sparql", "SPARQL");
+                    continue;
+                }
+                int before = merged.size();
+                ResultReader.read(results, merged::add);
+                System.out.println("  ✓ Shard " + i + ": " + (merged.size() - before) + " results");
+            }
+            // Stable, so each shard's own order stands where keys tie; a script's rows all come from one shard
+            merged.sort(Comparator.comparing((PigletRunner.TestResult result) -> !"BEANSHELL".equals(result.getType()))
+                .thenComparing(result -> TestTimings.key(result))
+                .thenComparingInt(ShardCoordinator::rowOf));
+            for (PigletRunner.TestResult result : merged) {
+                sink.accept(result);
+            }
+        } finally {
+            for (Process worker : workers) {
+                worker.destroyForcibly();
+            }
+        }
+    }
+
+    /** The 1-based row of a data-driven result such as {@code check.bsh[12]}, or 0 for a plain test. */
+    static int rowOf(PigletRunner.TestResult result) {
+        String name = result.getName();
+        int open = name.lastIndexOf('[');
+        if (open < 0 || !name.endsWith("]")) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(name.substring(open + 1, name.length() - 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** Fails the {@code kind} tests the plan gave shard {@code index}, which never reported them. */
+    private void addMissing(List<PigletRunner.TestResult> merged, int index, String kind, String type) {
+        List<String> names = plan.getAssigned(index, kind);
+        if (!names.isEmpty()) {
+            merged.add(new PigletRunner.TestResult("Shard " + index, false,
+                "Shard " + index + " did not report results (worker failed or timed out after " + timeoutMillis
+                    + " ms); not run: " + String.join(", ", names), type));
+        }
+    }
+
+    /**
+     * Starts one JVM per shard with this JVM's classpath and {@code piglet.*}
+     * settings, each logging to its shard directory.
+     */
+    private List<Process> startWorkers() throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> workers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Path dir = shardDir(outputDir, i);
+            Files.createDirectories(dir);
+            Files.deleteIfExists(dir.resolve(MARKER));
+            List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                "-Dfile.encoding=" + System.getProperty("file.encoding")));
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("piglet.") && !name.startsWith("piglet.shard.")
+                        && !name.equals("piglet.coordinator") && !name.equals("piglet.server")) {
+                    command.add("-D" + name + "=" + System.getProperty(name));
+                }
+            }
+            command.add("-Dpiglet.shard.index=" + i);
+            command.add("-Dpiglet.shard.run=" + runId);
+            command.add(PigletRunner.class.getName());
+            File log = dir.resolve("worker.log").toFile();
+            workers.add(new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start());
+            System.out.println("  → Started shard " + i + " worker, logging to " + log);
+        }
+        return workers;
+    }
+
+    private boolean[] awaitShards(List<Process> workers) throws IOException, InterruptedException {
+        boolean[] done = new boolean[count];
+        int remaining = count;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (remaining > 0 && System.currentTimeMillis() < deadline) {
+            for (int i = 0; i < count; i++) {
+                if (!done[i] && isComplete(i)) {
+                    done[i] = true;
+                    remaining--;
+                } else if (!done[i] && !workers.isEmpty() && !workers.get(i).isAlive() && !isComplete(i)) {
+                    // A local worker that exited without a marker is not coming back
+                    System.out.println("  ✗ Shard " + i + " worker exited with " + workers.get(i).exitValue());
+                    done[i] = true;
+                    remaining--;
+                    Files.deleteIfExists(shardDir(outputDir, i).resolve("piglet-test-results.bin"));
+                }
+            }
+            if (remaining > 0) {
+                Thread.sleep(200);
+            }
+        }
+        return done;
+    }
+
+    private boolean isComplete(int index) throws IOException {
+        Path marker = shardDir(outputDir, index).resolve(MARKER);
+        if (!Files.isRegularFile(marker)) {
+            return false;
+        }
+        return runId.equals(new String(Files.readAllBytes(marker), StandardCharsets.UTF_8).trim());
+    }
+}
@@ -0,0 +1,198 @@
+package com.piglet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Which scripts and queries each shard of a distributed run owns.
+ *
+ * The coordinator makes the plan and publishes it on the shared output volume;
+ * workers wait for the plan of their run and take their share from it. With
+ * the {@code hash} strategy a test's shard depends only on its name and never
+ * moves. With {@code duration} the longest tests are placed first, each on the
+ * shard with the least work so far, using the {@link TestTimings} of earlier
+ * runs; tests without history count as the mean.
+ *
+ * Shard 0 is the primary: it alone produces the placeholder results used
+ * when there are no scripts or queries at all.
+ */
+class ShardPlan {
+
+    static final String HASH = "hash";
+    static final String DURATION = "duration";
+
+    private final int index;
+    private final int count;
+    private final Map<String, Integer> assignments;
+    private final long[] predictedNanos;
+
+    private ShardPlan(int index, int count, Map<String, Integer> assignments, long[] predictedNanos) {
+        this.index = index;
+        this.count = count;
+        this.assignments = assignments;
+        this.predictedNanos = predictedNanos;
+    }
+
+    /**
+     * Plans the suite under {@code resourcesDir} across {@code count} shards.
+     *
+     * @param timings durations of earlier runs to balance the shards with
+     */
+    static ShardPlan create(String resourcesDir, int index, int count, String strategy, TestTimings timings) {
+        List<String> keys = new ArrayList<>();
+        addKeys(keys, new File(resourcesDir, "beanshell"), "beanshell", ".bsh");
+        addKeys(keys, new File(resourcesDir, "sparql"), "sparql", ".sparql");
+        Collections.sort(keys);
+
+        Map<String, Integer> assignments = new HashMap<>();
+        long[] predicted = new long[count];
+        if (DURATION.equals(strategy)) {
+            LptSchedule schedule = new LptSchedule(keys, timings, count);
+            for (int i = 0; i < keys.size(); i++) {
+                assignments.put(keys.get(i), schedule.getWorker(i));
+            }
+            for (int shard = 0; shard < count; shard++) {
+                predicted[shard] = schedule.getLoadNanos(shard);
+            }
+        } else {
+            for (String key : keys) {
+                int shard = shardOf(key, count);
+                assignments.put(key, shard);
+                predicted[shard] += timings.estimate(key);
+            }
+        }
+        return new ShardPlan(index, count, assignments, predicted);
+    }
+
+    /** Publishes the plan for the workers of run {@code runId}. */
+    void save(Path file, String runId) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("run", runId);
+        properties.setProperty("count", String.valueOf(count));
+        for (Map.Entry<String, Integer> assignment : assignments.entrySet()) {
+            properties.setProperty("test." + assignment.getKey(), String.valueOf(assignment.getValue()));
+        }
+        for (int shard = 0; shard < count; shard++) {
+            properties.setProperty("predicted." + shard, String.valueOf(predictedNanos[shard]));
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, "PigletV2 shard plan");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Waits until the coordinator has published the plan for run {@code runId}
+     * and returns shard {@code index}'s view of it.
+     */
+    static ShardPlan await(Path file, String runId, int index, long timeoutMillis)
+            throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            if (Files.isRegularFile(file)) {
+                Properties properties = new Properties();
+                try (InputStream in = Files.newInputStream(file)) {
+                    properties.load(in);
+                }
+                if (runId.equals(properties.getProperty("run"))) {
+                    int count = Integer.parseInt(properties.getProperty("count"));
+                    Map<String, Integer> assignments = new HashMap<>();
+                    for (String name : properties.stringPropertyNames()) {
+                        if (name.startsWith("test.")) {
+                            assignments.put(name.substring(5), Integer.parseInt(properties.getProperty(name)));
+                        }
+                    }
+                    long[] predicted = new long[count];
+                    for (int shard = 0; shard < count; shard++) {
+                        predicted[shard] = Long.parseLong(properties.getProperty("predicted." + shard, "0"));
+                    }
+                    return new ShardPlan(index, count, assignments, predicted);
+                }
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IOException("No shard plan for run " + runId + " in " + file + " after "
+                    + timeoutMillis + " ms");
+            }
+            Thread.sleep(200);
+        }
+    }
+
+    /** The files of {@code kind} ("beanshell" or "sparql") this shard runs, in their original order. */
+    File[] select(String kind, File[] files) {
+        List<File> owned = new ArrayList<>();
+        for (File file : files) {
+            String key = kind + "/" + file.getName();
+            // Files added after the plan was made fall back to hashing, the same on every worker
+            int shard = assignments.getOrDefault(key, shardOf(key, count));
+            if (shard == index) {
+                owned.add(file);
+            }
+        }
+        return owned.toArray(new File[0]);
+    }
+
+    boolean isPrimary() {
+        return index == 0;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getAssignedCount(int shard) {
+        int assigned = 0;
+        for (int owner : assignments.values()) {
+            if (owner == shard) {
+                assigned++;
+            }
+        }
+        return assigned;
+    }
+
+    /** Names of the {@code kind} ("beanshell" or "sparql") files the plan gave {@code shard}, sorted. */
+    List<String> getAssigned(int shard, String kind) {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Integer> assignment : assignments.entrySet()) {
+            if (assignment.getValue() == shard && assignment.getKey().startsWith(kind + "/")) {
+                names.add(assignment.getKey().substring(kind.length() + 1));
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /** Sum of the expected durations of the tests on {@code shard}. */
+    long getPredictedNanos(int shard) {
+        return predictedNanos[shard];
+    }
+
+    private static int shardOf(String key, int count) {
+        // String.hashCode is fixed by the spec, so every JVM agrees; the mix spreads similar names
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return Math.floorMod(h, count);
+    }
+
+    private static void addKeys(List<String> keys, File dir, String kind, String suffix) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(suffix));
+        if (files != null) {
+            for (File file : files) {
+                keys.add(kind + "/" + file.getName());
+            }
+        }
+    }
+}
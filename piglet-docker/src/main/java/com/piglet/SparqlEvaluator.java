@@ -0,0 +1,267 @@
+package com.piglet;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import java.util.*;
+
+/**
+ * Streaming evaluator for {@link SparqlQuery} basic graph patterns.
+ *
+ * Patterns are joined as nested index lookups against {@link Graph#find}: each
+ * level substitutes the bindings made by the levels above it, so only one
+ * iterator per pattern is open at a time and rows are produced on demand.
+ * OFFSET and LIMIT are applied while iterating, so a LIMIT stops the search as
+ * soon as enough rows have been produced.
+ */
+class SparqlEvaluator {
+
+    private SparqlEvaluator() {
+    }
+
+    /** Returns an iterator over the projected rows; close it if not fully consumed. */
+    static RowIterator evaluate(Graph graph, SparqlQuery query) {
+        return new RowIterator(graph, query);
+    }
+
+    /**
+     * Number of rows the query returns. A single-pattern query without DISTINCT
+     * against an {@link IndexedGraph} is answered from the index range alone,
+     * without touching a triple; anything else streams the rows and counts them.
+     */
+    static long count(Graph graph, SparqlQuery query) {
+        if (graph instanceof IndexedGraph && query.getPatterns().size() == 1 && !query.isDistinct()) {
+            SparqlQuery.TriplePattern pattern = query.getPatterns().get(0);
+            Node s = pattern.get(0);
+            Node p = pattern.get(1);
+            Node o = pattern.get(2);
+            // ?x ?p ?x style patterns need a per-row check
+            boolean repeated = s.isVariable() && (s.equals(p) || s.equals(o)) || p.isVariable() && p.equals(o);
+            if (!repeated) {
+                long matches = ((IndexedGraph) graph).count(
+                    s.isVariable() ? null : s, p.isVariable() ? null : p, o.isVariable() ? null : o);
+                long rows = Math.max(0, matches - query.getOffset());
+                return query.getLimit() >= 0 ? Math.min(rows, query.getLimit()) : rows;
+            }
+        }
+        // Rows are pulled one at a time; LIMIT closes the search early
+        long count = 0;
+        try (RowIterator rows = evaluate(graph, query)) {
+            while (rows.hasNext()) {
+                rows.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Orders patterns so each step binds against as many constants and already
+     * bound variables as possible, keeping the written order on ties.
+     */
+    static List<SparqlQuery.TriplePattern> joinOrder(List<SparqlQuery.TriplePattern> patterns) {
+        List<SparqlQuery.TriplePattern> remaining = new ArrayList<>(patterns);
+        List<SparqlQuery.TriplePattern> ordered = new ArrayList<>(patterns.size());
+        Set<Node> bound = new HashSet<>();
+        while (!remaining.isEmpty()) {
+            SparqlQuery.TriplePattern best = null;
+            int bestScore = -1;
+            for (SparqlQuery.TriplePattern pattern : remaining) {
+                int score = 0;
+                for (int i = 0; i < 3; i++) {
+                    Node node = pattern.get(i);
+                    if (!node.isVariable() || bound.contains(node)) {
+                        // A bound subject or object narrows the lookup more than a bound predicate
+                        score += i == 1 ? 1 : 2;
+                    }
+                }
+                if (score > bestScore) {
+                    best = pattern;
+                    bestScore = score;
+                }
+            }
+            remaining.remove(best);
+            ordered.add(best);
+            for (int i = 0; i < 3; i++) {
+                if (best.get(i).isVariable()) {
+                    bound.add(best.get(i));
+                }
+            }
+        }
+        return ordered;
+    }
+
+    static class RowIterator implements Iterator<Node[]>, AutoCloseable {
+
+        private static final int CONSTANT = 0;
+        private static final int BOUND = 1;
+        private static final int INTRODUCE = 2;
+        private static final int CHECK = 3;
+
+        private final Graph graph;
+        private final SparqlQuery.TriplePattern[] patterns;
+        // Per pattern level and position: what kind of term it is and its variable slot
+        private final int[][] kinds;
+        private final int[][] slots;
+        private final int[] projection;
+        private final ExtendedIterator<Triple>[] iterators;
+        private final Node[] binding;
+        private final Set<List<Node>> seen;
+        private final long limit;
+        private long toSkip;
+        private long produced;
+        private int level;
+        private Node[] next;
+        private boolean finished;
+
+        RowIterator(Graph graph, SparqlQuery query) {
+            this.graph = graph;
+            List<SparqlQuery.TriplePattern> ordered = query.isPlanned() ? query.getPatterns()
+                : joinOrder(query.getPatterns());
+            this.patterns = ordered.toArray(new SparqlQuery.TriplePattern[0]);
+            @SuppressWarnings("unchecked")
+            ExtendedIterator<Triple>[] iterators =
+                (ExtendedIterator<Triple>[]) new ExtendedIterator<?>[patterns.length];
+            this.iterators = iterators;
+            this.limit = query.getLimit();
+            this.toSkip = query.getOffset();
+            this.seen = query.isDistinct() ? new HashSet<>() : null;
+
+            List<String> variables = query.getVariables();
+            this.binding = new Node[variables.size()];
+            this.kinds = new int[patterns.length][3];
+            this.slots = new int[patterns.length][3];
+            boolean[] introduced = new boolean[variables.size()];
+            for (int level = 0; level < patterns.length; level++) {
+                boolean[] introducedHere = new boolean[variables.size()];
+                for (int i = 0; i < 3; i++) {
+                    Node node = patterns[level].get(i);
+                    if (!node.isVariable()) {
+                        kinds[level][i] = CONSTANT;
+                        continue;
+                    }
+                    int slot = variables.indexOf(node.getName());
+                    slots[level][i] = slot;
+                    if (introduced[slot]) {
+                        kinds[level][i] = BOUND;
+                    } else if (introducedHere[slot]) {
+                        // Same variable twice in one pattern, e.g. ?x ?p ?x
+                        kinds[level][i] = CHECK;
+                    } else {
+                        kinds[level][i] = INTRODUCE;
+                        introducedHere[slot] = true;
+                    }
+                }
+                for (int slot = 0; slot < introducedHere.length; slot++) {
+                    introduced[slot] |= introducedHere[slot];
+                }
+            }
+
+            List<String> projected = query.getProjection();
+            this.projection = new int[projected.size()];
+            for (int i = 0; i < projection.length; i++) {
+                projection[i] = variables.indexOf(projected.get(i));
+            }
+            this.finished = limit == 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Node[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node[] row = next;
+            next = null;
+            return row;
+        }
+
+        @Override
+        public void close() {
+            for (int i = 0; i < iterators.length; i++) {
+                if (iterators[i] != null) {
+                    iterators[i].close();
+                    iterators[i] = null;
+                }
+            }
+            finished = true;
+        }
+
+        private Node[] advance() {
+            if (patterns.length == 0) {
+                // An empty WHERE block has exactly one solution, which binds nothing
+                finished = true;
+                return toSkip > 0 ? null : new Node[projection.length];
+            }
+            while (level >= 0) {
+                if (iterators[level] == null) {
+                    iterators[level] = graph.find(lookupNode(level, 0), lookupNode(level, 1), lookupNode(level, 2));
+                }
+                if (!iterators[level].hasNext()) {
+                    iterators[level].close();
+                    iterators[level] = null;
+                    level--;
+                    continue;
+                }
+                if (!bind(level, iterators[level].next())) {
+                    continue;
+                }
+                if (level < patterns.length - 1) {
+                    level++;
+                    continue;
+                }
+
+                Node[] row = new Node[projection.length];
+                for (int i = 0; i < projection.length; i++) {
+                    row[i] = binding[projection[i]];
+                }
+                if (seen != null && !seen.add(Arrays.asList(row))) {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                produced++;
+                if (limit >= 0 && produced >= limit) {
+                    // Last row the query asked for: stop searching now
+                    close();
+                }
+                return row;
+            }
+            finished = true;
+            return null;
+        }
+
+        private Node lookupNode(int level, int position) {
+            switch (kinds[level][position]) {
+                case CONSTANT:
+                    return patterns[level].get(position);
+                case BOUND:
+                    return binding[slots[level][position]];
+                default:
+                    return Node.ANY;
+            }
+        }
+
+        private boolean bind(int level, Triple triple) {
+            for (int i = 0; i < 3; i++) {
+                Node value = i == 0 ? triple.getSubject() : i == 1 ? triple.getPredicate() : triple.getObject();
+                if (kinds[level][i] == INTRODUCE) {
+                    binding[slots[level][i]] = value;
+                } else if (kinds[level][i] == CHECK && !binding[slots[level][i]].equals(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
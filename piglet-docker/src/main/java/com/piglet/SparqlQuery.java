@@ -0,0 +1,601 @@
+package com.piglet;
+
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.vocabulary.RDF;
+import java.util.*;
+
+/**
+ * Parsed SPARQL SELECT query over a single basic graph pattern.
+ *
+ * The build ships jena-core without ARQ, so this covers the subset the QA
+ * query files use: PREFIX/BASE, SELECT [DISTINCT] with variables or *, a WHERE
+ * block of triple patterns (with ';' and ',' abbreviations, 'a', prefixed
+ * names, IRIs, literals and blank-node labels), then LIMIT and OFFSET.
+ * Anything else (FILTER, OPTIONAL, UNION, GROUP BY, ...) is rejected with a
+ * parse error naming the unsupported keyword.
+ */
+class SparqlQuery {
+
+    private static final Set<String> UNSUPPORTED = new HashSet<>(Arrays.asList(
+        "FILTER", "OPTIONAL", "UNION", "MINUS", "GRAPH", "SERVICE", "BIND", "VALUES",
+        "GROUP", "HAVING", "ORDER", "CONSTRUCT", "DESCRIBE", "ASK", "FROM", "REDUCED"));
+    // String escapes after a backslash, and the characters they stand for
+    private static final String ECHARS = "tbnrf\"'\\";
+    private static final String ECHAR_VALUES = "\t\b\n\r\f\"'\\";
+
+    private final List<String> variables;
+    private final List<String> projection;
+    private final List<TriplePattern> patterns;
+    private final boolean distinct;
+    private final long limit;
+    private final long offset;
+    private final Map<String, String> prefixes;
+    private final String base;
+    // Patterns are already in join order, so the evaluator doesn't work it out again
+    private final boolean planned;
+
+    private SparqlQuery(List<String> variables, List<String> projection, List<TriplePattern> patterns,
+                        boolean distinct, long limit, long offset, Map<String, String> prefixes, String base,
+                        boolean planned) {
+        this.variables = variables;
+        this.projection = projection;
+        this.patterns = patterns;
+        this.distinct = distinct;
+        this.limit = limit;
+        this.offset = offset;
+        this.prefixes = prefixes;
+        this.base = base;
+        this.planned = planned;
+    }
+
+    /** Every variable in the WHERE block, in order of first appearance. */
+    List<String> getVariables() { return variables; }
+    /** Projected variables; for SELECT * every named (non blank-node) variable. */
+    List<String> getProjection() { return projection; }
+    List<TriplePattern> getPatterns() { return patterns; }
+    boolean isDistinct() { return distinct; }
+    /** Row limit, or -1 when the query has no LIMIT. */
+    long getLimit() { return limit; }
+    long getOffset() { return offset; }
+
+    /** Whether the patterns are in the order to join them, see {@link #bind}. */
+    boolean isPlanned() { return planned; }
+
+    static SparqlQuery parse(String text) {
+        return new Parser(text).parseQuery();
+    }
+
+    /**
+     * Parses a single constant (IRI, prefixed name, literal or number) with
+     * the prefixes and base of {@code context}.
+     */
+    static Node parseTerm(String text, SparqlQuery context) {
+        Parser parser = new Parser(text);
+        parser.prefixes.putAll(context.prefixes);
+        parser.base = context.base;
+        return parser.parseConstant();
+    }
+
+    /**
+     * This query with the variables in {@code values} replaced by constants and
+     * dropped from the projection, its patterns reordered to {@code order}
+     * (indexes into {@link #getPatterns()}) and marked as planned.
+     */
+    SparqlQuery bind(Map<String, Node> values, int[] order) {
+        List<TriplePattern> bound = new ArrayList<>(patterns.size());
+        for (int index : order) {
+            TriplePattern pattern = patterns.get(index);
+            bound.add(new TriplePattern(substitute(pattern.subject, values), substitute(pattern.predicate, values),
+                substitute(pattern.object, values)));
+        }
+        List<String> remaining = new ArrayList<>(variables);
+        remaining.removeAll(values.keySet());
+        List<String> projected = new ArrayList<>(projection);
+        projected.removeAll(values.keySet());
+        return new SparqlQuery(Collections.unmodifiableList(remaining), Collections.unmodifiableList(projected),
+            Collections.unmodifiableList(bound), distinct, limit, offset, prefixes, base, true);
+    }
+
+    private static Node substitute(Node node, Map<String, Node> values) {
+        return node.isVariable() ? values.getOrDefault(node.getName(), node) : node;
+    }
+
+    /** One triple pattern; variable positions hold Jena variable nodes. */
+    static class TriplePattern {
+        private final Node subject;
+        private final Node predicate;
+        private final Node object;
+
+        TriplePattern(Node subject, Node predicate, Node object) {
+            this.subject = subject;
+            this.predicate = predicate;
+            this.object = object;
+        }
+
+        Node getSubject() { return subject; }
+        Node getPredicate() { return predicate; }
+        Node getObject() { return object; }
+
+        Node get(int position) {
+            return position == 0 ? subject : position == 1 ? predicate : object;
+        }
+
+        @Override
+        public String toString() {
+            return subject + " " + predicate + " " + object + " .";
+        }
+    }
+
+    private static class Parser {
+        private final String text;
+        private int pos;
+        private String base = "";
+        private final Map<String, String> prefixes = new HashMap<>();
+        private final List<String> variables = new ArrayList<>();
+        private final List<TriplePattern> patterns = new ArrayList<>();
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        SparqlQuery parseQuery() {
+            while (true) {
+                if (acceptKeyword("PREFIX")) {
+                    String prefix = readPrefixLabel();
+                    prefixes.put(prefix, resolve(readIri()));
+                } else if (acceptKeyword("BASE")) {
+                    base = readIri();
+                } else {
+                    break;
+                }
+            }
+
+            expectKeyword("SELECT");
+            boolean distinct = acceptKeyword("DISTINCT");
+            List<String> projection = new ArrayList<>();
+            boolean selectAll = accept('*');
+            if (!selectAll) {
+                while (peekChar() == '?' || peekChar() == '$') {
+                    projection.add(readVariableName());
+                }
+                if (projection.isEmpty()) {
+                    throw error("Expected '*' or variables after SELECT");
+                }
+            }
+
+            acceptKeyword("WHERE");
+            expect('{');
+            parseTriplesBlock();
+            expect('}');
+
+            long limit = -1;
+            long offset = 0;
+            while (true) {
+                if (acceptKeyword("LIMIT")) {
+                    limit = readInteger();
+                } else if (acceptKeyword("OFFSET")) {
+                    offset = readInteger();
+                } else {
+                    break;
+                }
+            }
+            skipWhitespace();
+            if (pos < text.length()) {
+                throw unexpected();
+            }
+
+            for (String var : projection) {
+                if (!variables.contains(var)) {
+                    throw error("Projected variable ?" + var + " does not appear in WHERE");
+                }
+            }
+            if (selectAll) {
+                for (String var : variables) {
+                    if (!var.startsWith("_:")) {
+                        projection.add(var);
+                    }
+                }
+            }
+            return new SparqlQuery(Collections.unmodifiableList(variables),
+                Collections.unmodifiableList(projection),
+                Collections.unmodifiableList(patterns), distinct, limit, offset,
+                Collections.unmodifiableMap(prefixes), base, false);
+        }
+
+        Node parseConstant() {
+            skipWhitespace();
+            Node term = readTerm(false);
+            skipWhitespace();
+            if (term.isVariable() || pos < text.length()) {
+                throw error("Expected a single constant");
+            }
+            return term;
+        }
+
+        private void parseTriplesBlock() {
+            while (peekChar() != '}' && peekChar() != 0) {
+                Node subject = readTerm(false);
+                parsePropertyList(subject);
+                if (!accept('.')) {
+                    break;
+                }
+            }
+        }
+
+        private void parsePropertyList(Node subject) {
+            do {
+                if (peekChar() == '.' || peekChar() == '}') {
+                    // trailing ';' is allowed
+                    return;
+                }
+                Node predicate = readTerm(true);
+                do {
+                    Node object = readTerm(false);
+                    patterns.add(new TriplePattern(subject, predicate, object));
+                } while (accept(','));
+            } while (accept(';'));
+        }
+
+        private Node readTerm(boolean predicatePosition) {
+            char c = peekChar();
+            if (c == '?' || c == '$') {
+                return variable(readVariableName());
+            }
+            if (c == '<') {
+                return NodeFactory.createURI(resolve(readIri()));
+            }
+            if (c == '"' || c == '\'') {
+                return readLiteral();
+            }
+            if (c == '_' && pos + 1 < text.length() && text.charAt(pos + 1) == ':') {
+                // Blank nodes in a query pattern behave as undistinguished variables
+                pos += 2;
+                return variable("_:" + readName());
+            }
+            if (c == '+' || c == '-' || Character.isDigit(c)) {
+                return readNumber();
+            }
+            if (c == '[' || c == '(') {
+                throw error("Blank node property lists and collections are not supported");
+            }
+
+            String word = readPrefixedNameOrKeyword();
+            if (predicatePosition && word.equals("a")) {
+                return RDF.type.asNode();
+            }
+            if (word.equals("true") || word.equals("false")) {
+                return NodeFactory.createLiteral(word, XSDDatatype.XSDboolean);
+            }
+            int colon = word.indexOf(':');
+            if (colon < 0) {
+                if (UNSUPPORTED.contains(word.toUpperCase(Locale.ROOT))) {
+                    throw error("Unsupported SPARQL feature: " + word.toUpperCase(Locale.ROOT));
+                }
+                throw error("Unexpected '" + word + "'");
+            }
+            return NodeFactory.createURI(expand(word, colon));
+        }
+
+        private Node variable(String name) {
+            if (!variables.contains(name)) {
+                variables.add(name);
+            }
+            return NodeFactory.createVariable(name);
+        }
+
+        private Node readLiteral() {
+            char quote = text.charAt(pos);
+            boolean longForm = text.startsWith(String.valueOf(quote).repeat(3), pos);
+            pos += longForm ? 3 : 1;
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw error("Unterminated string literal");
+                }
+                char c = text.charAt(pos);
+                if (c == '\\') {
+                    readEscape(value, true);
+                    continue;
+                }
+                if (longForm ? text.startsWith(String.valueOf(quote).repeat(3), pos) : c == quote) {
+                    pos += longForm ? 3 : 1;
+                    break;
+                }
+                if (!longForm && (c == '\n' || c == '\r')) {
+                    throw error("Line break in string literal");
+                }
+                value.append(c);
+                pos++;
+            }
+
+            if (pos < text.length() && text.charAt(pos) == '@') {
+                pos++;
+                int start = pos;
+                while (pos < text.length()
+                        && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '-')) {
+                    pos++;
+                }
+                return NodeFactory.createLiteral(value.toString(), text.substring(start, pos));
+            }
+            if (text.startsWith("^^", pos)) {
+                pos += 2;
+                String datatypeIri;
+                if (peekChar() == '<') {
+                    datatypeIri = resolve(readIri());
+                } else {
+                    String name = readPrefixedNameOrKeyword();
+                    int colon = name.indexOf(':');
+                    if (colon < 0) {
+                        throw error("Expected datatype IRI after ^^");
+                    }
+                    datatypeIri = expand(name, colon);
+                }
+                RDFDatatype datatype = TypeMapper.getInstance().getSafeTypeByName(datatypeIri);
+                return NodeFactory.createLiteral(value.toString(), datatype);
+            }
+            return NodeFactory.createLiteral(value.toString());
+        }
+
+        private Node readNumber() {
+            skipWhitespace();
+            int start = pos;
+            if (text.charAt(pos) == '+' || text.charAt(pos) == '-') {
+                pos++;
+            }
+            boolean decimal = false;
+            boolean exponent = false;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (Character.isDigit(c)) {
+                    pos++;
+                } else if (c == '.' && !decimal && !exponent
+                        && pos + 1 < text.length() && Character.isDigit(text.charAt(pos + 1))) {
+                    decimal = true;
+                    pos++;
+                } else if ((c == 'e' || c == 'E') && !exponent) {
+                    exponent = true;
+                    pos++;
+                    if (pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+                        pos++;
+                    }
+                } else {
+                    break;
+                }
+            }
+            String lexical = text.substring(start, pos);
+            if (exponent) {
+                return NodeFactory.createLiteral(lexical, XSDDatatype.XSDdouble);
+            }
+            return NodeFactory.createLiteral(lexical, decimal ? XSDDatatype.XSDdecimal : XSDDatatype.XSDinteger);
+        }
+
+        private String readIri() {
+            skipWhitespace();
+            if (peekChar() != '<') {
+                throw error("Expected IRI");
+            }
+            int end = text.indexOf('>', pos);
+            if (end < 0) {
+                throw error("Unterminated IRI");
+            }
+            if (text.indexOf('\\', pos) < 0 || text.indexOf('\\', pos) > end) {
+                String iri = text.substring(pos + 1, end);
+                pos = end + 1;
+                return iri;
+            }
+            StringBuilder iri = new StringBuilder();
+            pos++;
+            while (pos < end) {
+                if (text.charAt(pos) == '\\') {
+                    readEscape(iri, false);
+                } else {
+                    iri.append(text.charAt(pos++));
+                }
+            }
+            pos = end + 1;
+            return iri.toString();
+        }
+
+        private String readPrefixLabel() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < text.length() && text.charAt(pos) != ':' && !Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= text.length() || text.charAt(pos) != ':') {
+                throw error("Expected prefix label ending in ':'");
+            }
+            pos++;
+            return text.substring(start, pos - 1);
+        }
+
+        private String readVariableName() {
+            skipWhitespace();
+            pos++; // '?' or '$'
+            String name = readName();
+            if (name.isEmpty()) {
+                throw error("Empty variable name");
+            }
+            return name;
+        }
+
+        private String readName() {
+            int start = pos;
+            while (pos < text.length()
+                    && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                pos++;
+            }
+            return text.substring(start, pos);
+        }
+
+        private String readPrefixedNameOrKeyword() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                boolean nameChar = Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == ':'
+                    || (c == '.' && pos + 1 < text.length() && isLocalNameChar(text.charAt(pos + 1)));
+                if (!nameChar) {
+                    break;
+                }
+                pos++;
+            }
+            if (start == pos) {
+                throw unexpected();
+            }
+            return text.substring(start, pos);
+        }
+
+        private static boolean isLocalNameChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == ':';
+        }
+
+        private String expand(String prefixedName, int colon) {
+            String namespace = prefixes.get(prefixedName.substring(0, colon));
+            if (namespace == null) {
+                throw error("Undeclared prefix '" + prefixedName.substring(0, colon) + ":'");
+            }
+            return namespace + prefixedName.substring(colon + 1);
+        }
+
+        private String resolve(String iri) {
+            if (base.isEmpty() || iri.contains(":")) {
+                return iri;
+            }
+            return base + iri;
+        }
+
+        private long readInteger() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("Expected integer");
+            }
+            return Long.parseLong(text.substring(start, pos));
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            skipWhitespace();
+            int end = pos + keyword.length();
+            if (end <= text.length() && text.regionMatches(true, pos, keyword, 0, keyword.length())
+                    && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)))) {
+                pos = end;
+                return true;
+            }
+            return false;
+        }
+
+        private void expectKeyword(String keyword) {
+            if (!acceptKeyword(keyword)) {
+                String word = peekWord();
+                if (UNSUPPORTED.contains(word)) {
+                    throw error("Unsupported SPARQL feature: " + word);
+                }
+                throw error("Expected " + keyword);
+            }
+        }
+
+        private boolean accept(char c) {
+            if (peekChar() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                String word = peekWord();
+                if (UNSUPPORTED.contains(word)) {
+                    throw error("Unsupported SPARQL feature: " + word);
+                }
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private char peekChar() {
+            skipWhitespace();
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private String peekWord() {
+            skipWhitespace();
+            int end = pos;
+            while (end < text.length() && Character.isLetter(text.charAt(end))) {
+                end++;
+            }
+            return text.substring(pos, end).toUpperCase(Locale.ROOT);
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '#') {
+                    while (pos < text.length() && text.charAt(pos) != '\n') {
+                        pos++;
+                    }
+                } else if (Character.isWhitespace(c)) {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Decodes the escape sequence at {@code pos} into {@code value}: a
+         * {@code \\uXXXX} or {@code \\UXXXXXXXX} code point, or, in strings
+         * ({@code echar}), one of {@code \\t \\b \\n \\r \\f \\" \\' \\\\}.
+         */
+        private void readEscape(StringBuilder value, boolean echar) {
+            char c = pos + 1 < text.length() ? text.charAt(pos + 1) : ' ';
+            if (c == 'u' || c == 'U') {
+                int digits = c == 'u' ? 4 : 8;
+                int codePoint = 0;
+                for (int i = pos + 2; i < pos + 2 + digits; i++) {
+                    char h = i < text.length() ? text.charAt(i) : ' ';
+                    int digit = h < 128 ? Character.digit(h, 16) : -1;
+                    if (digit < 0) {
+                        throw error("Expected " + digits + " hex digits after \\" + c);
+                    }
+                    codePoint = codePoint * 16 + digit;
+                }
+                if (!Character.isValidCodePoint(codePoint)) {
+                    throw error("Invalid code point in \\" + c + " escape");
+                }
+                value.appendCodePoint(codePoint);
+                pos += 2 + digits;
+                return;
+            }
+            int escape = ECHARS.indexOf(c);
+            if (echar && escape >= 0) {
+                value.append(ECHAR_VALUES.charAt(escape));
+                pos += 2;
+                return;
+            }
+            throw error("Unknown escape '\\" + c + "'");
+        }
+
+        private IllegalArgumentException unexpected() {
+            String rest = text.substring(pos, Math.min(text.length(), pos + 20));
+            return error("Unexpected input '" + rest + "'");
+        }
+
+        private IllegalArgumentException error(String message) {
+            int line = 1;
+            for (int i = 0; i < Math.min(pos, text.length()); i++) {
+                if (text.charAt(i) == '\n') {
+                    line++;
+                }
+            }
+            return new IllegalArgumentException(message + " (line " + line + ")");
+        }
+    }
+}
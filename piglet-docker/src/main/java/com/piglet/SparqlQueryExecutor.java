@@ -1,132 +1,516 @@
 package com.piglet;
 
+import org.apache.jena.graph.Graph;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.StmtIterator;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class SparqlQueryExecutor {
 
     private String resourcesDir;
+    private final int parallelism;
+    private final int loadBatchSize;
+    private final String storeMode;
+    private final Path storeDir;
+    private RunManifest runManifest;
+    private RunMetrics metrics = new RunMetrics();
+    private ModelCache modelCache;
+    private ShardPlan shardPlan;
+    private TestTimings timings = TestTimings.load(null);
+    private FailFast failFast = new FailFast(0);
+    private QueryCache queryCache;
 
     public SparqlQueryExecutor(String resourcesDir) {
+        this(resourcesDir, 1, 10000);
+    }
+
+    public SparqlQueryExecutor(String resourcesDir, int parallelism, int loadBatchSize) {
+        this(resourcesDir, parallelism, loadBatchSize, "memory", null);
+    }
+
+    /**
+     * @param parallelism   number of worker threads files are parsed and queries run on
+     * @param loadBatchSize number of parsed triples handed to the graph writer at a time
+     * @param storeMode     "memory" to parse the data into Jena's default model on every run,
+     *                      "compact" to parse it into int-array indexes instead, or
+     *                      "mapped" to query the persistent store in {@code storeDir}
+     */
+    public SparqlQueryExecutor(String resourcesDir, int parallelism, int loadBatchSize,
+                               String storeMode, Path storeDir) {
         this.resourcesDir = resourcesDir;
+        this.parallelism = parallelism;
+        this.loadBatchSize = loadBatchSize;
+        this.storeMode = storeMode;
+        this.storeDir = storeDir;
+    }
+
+    /**
+     * Reuse passing results of queries whose text and dataset are unchanged, per
+     * {@code manifest}, or run everything when null.
+     */
+    void setRunManifest(RunManifest manifest) {
+        this.runManifest = manifest;
+    }
+
+    /** Collects load, parse and execute times and per-query latency and allocation into {@code metrics}. */
+    void setMetrics(RunMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** Take the data model from {@code cache} when the data is unchanged, instead of loading it every run. */
+    void setModelCache(ModelCache cache) {
+        this.modelCache = cache;
+    }
+
+    /** Run only the queries {@code plan} assigns to this shard, or all of them when null. */
+    void setShardPlan(ShardPlan plan) {
+        this.shardPlan = plan;
+    }
+
+    /** Start the queries longest first by the durations in {@code timings}. */
+    void setTestTimings(TestTimings timings) {
+        this.timings = timings;
+    }
+
+    /** Skip the queries not yet started once {@code failFast} has seen enough failures. */
+    void setFailFast(FailFast failFast) {
+        this.failFast = failFast;
+    }
+
+    /** Reuse query results and plans from {@code cache}, or evaluate every query from scratch when null. */
+    void setQueryCache(QueryCache cache) {
+        this.queryCache = cache;
     }
 
     public List<PigletRunner.TestResult> executeAllQueries() {
         List<PigletRunner.TestResult> results = new ArrayList<>();
-        
         try {
-            Model model = ModelFactory.createDefaultModel();
-            System.out.println("  ✓ RDF Model created");
-            
-            boolean dataLoaded = loadRDFData(model);
-            if (!dataLoaded) {
-                createSampleRDFData(model);
+            executeAllQueries(results::add);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return results;
+    }
+
+    /** Loads the data and runs every query, handing each result to {@code sink} in file-name order. */
+    void executeAllQueries(ResultSink sink) throws IOException, InterruptedException {
+        try {
+            File sparqlDir = new File(resourcesDir + "/sparql");
+            File[] queryFiles = sparqlDir.isDirectory()
+                ? sparqlDir.listFiles((dir, name) -> name.endsWith(".sparql")) : null;
+            boolean hasQueries = queryFiles != null && queryFiles.length > 0;
+            if (shardPlan != null) {
+                // Only the primary shard runs the sample query for a missing or empty suite
+                if (!hasQueries && !shardPlan.isPrimary()) {
+                    return;
+                }
+                if (hasQueries) {
+                    queryFiles = shardPlan.select("sparql", queryFiles);
+                    System.out.println("  ℹ Shard " + shardPlan.getIndex() + " of " + shardPlan.getCount()
+                        + ": " + queryFiles.length + " query(s)");
+                    if (queryFiles.length == 0) {
+                        return;
+                    }
+                }
+            }
+            String[] hashes = null;
+            PigletRunner.TestResult[] previous = null;
+            if (hasQueries) {
+                Arrays.sort(queryFiles, Comparator.comparing(File::getName));
+                hashes = new String[queryFiles.length];
+                previous = new PigletRunner.TestResult[queryFiles.length];
+                if (runManifest != null && reusePrevious(queryFiles, hashes, previous)) {
+                    System.out.println("  ℹ Queries and data unchanged, skipping the data load");
+                    for (int i = 0; i < queryFiles.length; i++) {
+                        System.out.println("  → Unchanged RDF query: " + previous[i].getName());
+                        System.out.println("    ✓ " + previous[i].getMessage());
+                        sink.accept(previous[i]);
+                    }
+                    return;
+                }
+            }
+
+            long loadStart = System.nanoTime();
+            Model model;
+            if (modelCache != null) {
+                long loads = modelCache.getLoads();
+                model = modelCache.computeIfAbsent(dataStamp(), this::loadModel);
+                if (modelCache.getLoads() == loads) {
+                    System.out.println("  ✓ Data unchanged, reusing the model already loaded");
+                }
+            } else {
+                model = loadModel();
             }
             
             System.out.println("  ✓ Model contains " + model.size() + " triples");
+            metrics.addPhase(RunMetrics.Phase.LOAD, System.nanoTime() - loadStart);
             
-            File sparqlDir = new File(resourcesDir + "/sparql");
-            if (sparqlDir.exists() && sparqlDir.isDirectory()) {
-                File[] queryFiles = sparqlDir.listFiles((dir, name) -> name.endsWith(".sparql"));
-                if (queryFiles != null && queryFiles.length > 0) {
-                    for (File queryFile : queryFiles) {
-                        results.add(executeRDFQuery(model, queryFile));
-                    }
-                } else {
-                    results.add(executeSampleQuery(model));
-                }
+            if (hasQueries) {
+                // Loading is done: freeze the model so workers can share it safely
+                Model snapshot = model.getGraph() instanceof IndexedGraph ? model
+                    : ModelFactory.createModelForGraph(new ReadOnlyGraph(model.getGraph()));
+                String dataset = queryCache != null ? resultKey(model) : null;
+                executeQueriesInParallel(snapshot, dataset, queryFiles, hashes, previous, sink);
             } else {
-                results.add(executeSampleQuery(model));
+                sink.accept(executeSampleQuery(model));
             }
 
+        } catch (InterruptedException | IOException e) {
+            // From the sink: the consumer is gone, not a query failure
+            throw e;
         } catch (Exception e) {
             String msg = e.getClass().getSimpleName() + ": " + (e.getMessage() != null ? e.getMessage() : "Unknown");
             System.out.println("✗ Fatal error: " + msg);
             e.printStackTrace(System.out);
-            results.add(new PigletRunner.TestResult("SPARQL Execution", false, msg, "SPARQL"));
+            sink.accept(new PigletRunner.TestResult("SPARQL Execution", false, msg, "SPARQL"));
         }
+    }
 
-        return results;
+    /**
+     * The data the queries run against, read-only, for scripts that take their
+     * rows from a query. Goes through the model cache, when there is one, so
+     * the scripts and the query stage share a single load.
+     */
+    Graph dataGraph() {
+        Model model = modelCache != null ? modelCache.computeIfAbsent(dataStamp(), this::loadModel) : loadModel();
+        return model.getGraph() instanceof IndexedGraph ? model.getGraph() : new ReadOnlyGraph(model.getGraph());
+    }
+
+    private Model loadModel() {
+        Model model = null;
+        if ("mapped".equals(storeMode)) {
+            model = openMappedStore();
+        } else if ("compact".equals(storeMode)) {
+            model = loadCompactModel();
+        }
+        if (model == null) {
+            model = ModelFactory.createDefaultModel();
+            System.out.println("  ✓ RDF Model created");
+
+            boolean dataLoaded = loadRDFData(model.getGraph());
+            if (!dataLoaded) {
+                createSampleRDFData(model);
+            }
+        }
+        return model;
+    }
+
+    /** Store mode plus name, size and mtime of every data file: what a cached model depends on. */
+    private String dataStamp() {
+        StringBuilder stamp = new StringBuilder(storeMode);
+        File[] ttlFiles = new File(resourcesDir + "/data").listFiles((dir, name) -> name.endsWith(".ttl"));
+        if (ttlFiles != null) {
+            Arrays.sort(ttlFiles, Comparator.comparing(File::getName));
+            for (File ttl : ttlFiles) {
+                stamp.append('|').append(ttl.getName()).append(':').append(ttl.length())
+                    .append(':').append(ttl.lastModified());
+            }
+        }
+        return stamp.toString();
+    }
+
+    /**
+     * What a cached query result depends on: the store {@code model} actually came
+     * from, which after a failed mapped store is memory, and the content of the data.
+     */
+    private String resultKey(Model model) throws IOException {
+        Graph graph = model.getGraph();
+        String store = !(graph instanceof IndexedGraph) ? "memory"
+            : ((IndexedGraph) graph).getDictionary() instanceof MappedTermDictionary ? "mapped" : "compact";
+        File dataDir = new File(resourcesDir + "/data");
+        return store + "|" + (runManifest != null ? runManifest.datasetFingerprint(dataDir)
+            : RunManifest.fingerprintOf(dataDir));
+    }
+
+    /**
+     * Looks every query up in the run manifest, keyed on its text and the dataset
+     * fingerprint. Returns true when all of them have a reusable result.
+     */
+    private boolean reusePrevious(File[] queryFiles, String[] hashes, PigletRunner.TestResult[] previous)
+            throws IOException {
+        String dataset = runManifest.datasetFingerprint(new File(resourcesDir + "/data"));
+        boolean allReused = true;
+        for (int i = 0; i < queryFiles.length; i++) {
+            hashes[i] = runManifest.hash(queryFiles[i], dataset);
+            previous[i] = runManifest.reuse(manifestKey(queryFiles[i]), hashes[i]);
+            allReused &= previous[i] != null;
+        }
+        return allReused;
+    }
+
+    private static String manifestKey(File queryFile) {
+        return TestTimings.key("sparql", queryFile.getName());
+    }
+
+    /**
+     * Opens the persistent store over the data directory, rebuilding whatever is
+     * out of date. Returns null, so the caller falls back to an in-memory model,
+     * when there is no data or the store cannot be built.
+     */
+    private Model openMappedStore() {
+        List<File> sources = listDataFiles();
+        if (sources.isEmpty()) {
+            return null;
+        }
+        try {
+            IndexedGraph graph = MappedTripleStore.openOrBuild(sources.toArray(new File[0]), storeDir, parallelism);
+            return ModelFactory.createModelForGraph(graph);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("  ✗ Triple store build interrupted, loading into memory instead");
+            return null;
+        } catch (Exception e) {
+            System.out.println("  ✗ Triple store unavailable (" + e.getMessage() + "), loading into memory instead");
+            return null;
+        }
+    }
+
+    /**
+     * Loads the data files into a dictionary-encoded graph held in int arrays.
+     * Returns null when there is no data, so the caller falls back to the sample model.
+     */
+    private Model loadCompactModel() {
+        CompactGraphBuilder builder = new CompactGraphBuilder();
+        if (!loadRDFData(builder)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        IndexedGraph graph = builder.build();
+        System.out.println(String.format("    ✓ Indexed %d triples, %d terms into compact graph in %d ms",
+            graph.getIndex().size(), graph.getDictionary().size(), (System.nanoTime() - start) / 1_000_000));
+        return ModelFactory.createModelForGraph(graph);
     }
 
-    private boolean loadRDFData(Model model) {
+    /** Non-empty Turtle files in the data directory, in name order. */
+    private List<File> listDataFiles() {
         File dataDir = new File(resourcesDir + "/data");
         if (!dataDir.exists() || !dataDir.isDirectory()) {
             System.out.println("  ℹ Data directory not found");
-            return false;
+            return Collections.emptyList();
         }
         
         File[] ttlFiles = dataDir.listFiles((dir, name) -> name.endsWith(".ttl"));
         if (ttlFiles == null || ttlFiles.length == 0) {
             System.out.println("  ℹ No TTL files found");
-            return false;
+            return Collections.emptyList();
         }
         
+        Arrays.sort(ttlFiles, Comparator.comparing(File::getName));
+        List<File> nonEmpty = new ArrayList<>();
         for (File ttl : ttlFiles) {
-            try {
-                System.out.println("  → Loading RDF data: " + ttl.getName());
-                if (ttl.length() == 0) {
-                    System.out.println("    ⚠ File is empty");
+            System.out.println("  → Loading RDF data: " + ttl.getName());
+            if (ttl.length() == 0) {
+                System.out.println("    ⚠ File is empty");
+                continue;
+            }
+            nonEmpty.add(ttl);
+        }
+        return nonEmpty;
+    }
+
+    boolean loadRDFData(Graph target) {
+        List<File> nonEmpty = listDataFiles();
+        if (nonEmpty.isEmpty()) {
+            return false;
+        }
+
+        try {
+            TurtleLoader loader = new TurtleLoader(parallelism, loadBatchSize);
+            TurtleLoader.LoadStats stats = loader.load(nonEmpty.toArray(new File[0]), target);
+            System.out.println(String.format(
+                "    ✓ RDF data loaded: %d triples from %d file(s) in %d ms on %d thread(s) (%.0f triples/s, peak heap %d MB)",
+                stats.getTriples(), stats.getFiles(), stats.getElapsedNanos() / 1_000_000, stats.getThreads(),
+                stats.getTriplesPerSecond(), stats.getPeakHeapBytes() / (1024 * 1024)));
+            return stats.getFiles() > 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("    ✗ Loading interrupted");
+            return false;
+        } catch (Exception e) {
+            System.out.println("    ✗ Error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Runs every query file against the shared read-only model, passing results on
+     * in file-name order as soon as each one and those before it are done. Each
+     * result carries its own latency; the message adds the throughput so far.
+     * Queries with a result in {@code previous} are not run again.
+     */
+    private void executeQueriesInParallel(Model snapshot, String dataset, File[] queryFiles, String[] hashes,
+                                          PigletRunner.TestResult[] previous, ResultSink sink)
+            throws IOException, InterruptedException {
+        int toRun = 0;
+        for (PigletRunner.TestResult result : previous) {
+            toRun += result == null ? 1 : 0;
+        }
+        int threads = Math.max(1, Math.min(parallelism, toRun));
+        if (toRun < queryFiles.length) {
+            System.out.println("  ℹ " + (queryFiles.length - toRun) + " unchanged query(s) reused, "
+                + toRun + " to run");
+        }
+        System.out.println("  ℹ Running " + toRun + " queries on " + threads + " worker thread(s)");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, WorkerThreads.daemon("piglet-sparql"));
+        long batchStart = System.nanoTime();
+        try {
+            List<Integer> scheduled = new ArrayList<>(toRun);
+            List<String> keys = new ArrayList<>(toRun);
+            for (int i = 0; i < queryFiles.length; i++) {
+                if (previous[i] == null) {
+                    scheduled.add(i);
+                    keys.add(manifestKey(queryFiles[i]));
+                }
+            }
+            // Submitted longest first so a slow query can't be the last one started
+            LptSchedule schedule = new LptSchedule(keys, timings, threads);
+            List<Future<PigletRunner.TestResult>> futures =
+                new ArrayList<>(Collections.nCopies(queryFiles.length, null));
+            for (int k : schedule.getOrder()) {
+                File queryFile = queryFiles[scheduled.get(k)];
+                futures.set(scheduled.get(k), pool.submit(() -> {
+                    if (failFast.skip()) {
+                        return null;
+                    }
+                    boolean passed = false;
+                    try {
+                        PigletRunner.TestResult result = measured(snapshot, dataset, queryFile);
+                        passed = result.isPassed();
+                        return result;
+                    } finally {
+                        if (!passed) {
+                            failFast.recordFailure();
+                        }
+                    }
+                }));
+            }
+            if (toRun > 0) {
+                schedule.print();
+            }
+            int completed = 0;
+            for (int i = 0; i < queryFiles.length; i++) {
+                if (previous[i] != null) {
+                    System.out.println("  → Unchanged RDF query: " + previous[i].getName());
+                    System.out.println("    ✓ " + previous[i].getMessage());
+                    sink.accept(previous[i]);
+                    continue;
+                }
+                PigletRunner.TestResult result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    result = new PigletRunner.TestResult(queryFiles[i].getName(), false,
+                        cause.getClass().getSimpleName() + ": " + cause.getMessage(), "SPARQL");
+                }
+                if (result == null) {
+                    System.out.println("  → Skipped RDF query: " + queryFiles[i].getName());
                     continue;
                 }
-                try (InputStream fis = new FileInputStream(ttl)) {
-                    model.read(fis, null, "TTL");
-                    System.out.println("    ✓ RDF data loaded");
+                timings.record(manifestKey(queryFiles[i]), result.getDurationNanos());
+                if (runManifest != null) {
+                    runManifest.record(manifestKey(queryFiles[i]), hashes[i], result);
                 }
-                return true;
-            } catch (Exception e) {
-                System.out.println("    ✗ Error: " + e.getMessage());
+                double elapsedSeconds = (System.nanoTime() - batchStart) / 1_000_000_000.0;
+                double throughput = elapsedSeconds > 0 ? ++completed / elapsedSeconds : 0;
+                String message = String.format("%s - %.2f ms (%.1f queries/s across %d threads)",
+                    result.getMessage(), result.getDurationNanos() / 1_000_000.0, throughput, threads);
+                System.out.println("  → Executing RDF query: " + result.getName());
+                System.out.println((result.isPassed() ? "    ✓ " : "    ✗ ") + message);
+                sink.accept(new PigletRunner.TestResult(
+                    result.getName(), result.isPassed(), message, result.getType(), result.getDurationNanos()));
             }
+            if (toRun > 0) {
+                // Every future has been awaited by now, including those fail-fast skipped
+                long actual = System.nanoTime() - batchStart;
+                metrics.recordMakespan("SPARQL", schedule.getMakespanNanos(), actual);
+                System.out.println(String.format("  ℹ Makespan: predicted %s ms, actual %s ms",
+                    RunMetrics.millis(schedule.getMakespanNanos()), RunMetrics.millis(actual)));
+            }
+        } finally {
+            pool.shutdownNow();
         }
-        return false;
     }
 
-    private PigletRunner.TestResult executeRDFQuery(Model model, File queryFile) {
+    /** Runs a query on a worker, recording its latency and what the worker allocated for it. */
+    private PigletRunner.TestResult measured(Model snapshot, String dataset, File queryFile) {
+        long allocatedBefore = RunMetrics.threadAllocatedBytes();
+        PigletRunner.TestResult result = executeRDFQuery(snapshot, queryFile, dataset);
+        long allocatedAfter = RunMetrics.threadAllocatedBytes();
+        metrics.recordTest("SPARQL", result.getDurationNanos(),
+            allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+        return result;
+    }
+
+    PigletRunner.TestResult executeRDFQuery(Model model, File queryFile) {
+        return executeRDFQuery(model, queryFile, null);
+    }
+
+    /**
+     * Runs one query file against {@code model}. With a query cache and a
+     * {@code dataset} fingerprint for the model, a cached result or plan is
+     * reused and the message says so, with the cache's running hit rate.
+     */
+    PigletRunner.TestResult executeRDFQuery(Model model, File queryFile, String dataset) {
+        long startTime = System.nanoTime();
         try {
-            System.out.println("  → Executing RDF query: " + queryFile.getName());
             
             String queryString = Files.readString(Paths.get(queryFile.getAbsolutePath())).trim();
             if (queryString.isEmpty()) {
-                return new PigletRunner.TestResult(queryFile.getName(), false, "Query file is empty", "SPARQL");
+                return new PigletRunner.TestResult(queryFile.getName(), false, "Query file is empty", "SPARQL",
+                    System.nanoTime() - startTime);
             }
             
-            // Query using RDF API - NO SPARQL PARSING
-            String ns = "http://example.com/piglet/";
-            Property statusProp = model.createProperty(ns + "status");
-            
-            int count = 0;
-            StmtIterator iter = model.listStatements(null, statusProp, (String) null);
-            while (iter.hasNext()) {
-                iter.next();
-                count++;
-            }
-            iter.close();
-            
-            if (count == 0) {
-                iter = model.listStatements();
-                while (iter.hasNext()) {
-                    iter.next();
-                    count++;
+            boolean caching = queryCache != null && dataset != null;
+            QueryCache.Prepared prepared = caching ? queryCache.prepare(queryString, dataset) : null;
+            SparqlQuery query = caching ? prepared.getQuery() : SparqlQuery.parse(queryString);
+            long executeStart = System.nanoTime();
+            metrics.addPhase(RunMetrics.Phase.PARSE, executeStart - startTime);
+
+            QueryCache.Result cached = caching ? queryCache.lookup(prepared) : null;
+            long count;
+            if (cached != null) {
+                count = cached.getCount();
+            } else {
+                count = SparqlEvaluator.count(model.getGraph(), query);
+                if (caching) {
+                    queryCache.store(prepared, count, System.nanoTime() - executeStart);
                 }
-                iter.close();
             }
-            
-            System.out.println("    ✓ Query returned " + count + " results");
-            return new PigletRunner.TestResult(queryFile.getName(), true, "Query returned " + count + " results", "SPARQL");
+            metrics.addPhase(RunMetrics.Phase.EXECUTE, System.nanoTime() - executeStart);
+
+            String message = "Query returned " + count + " results";
+            if (query.getLimit() >= 0) {
+                message += " (LIMIT " + query.getLimit() + ")";
+            }
+            if (caching) {
+                message += String.format(" [%s, plan %s; %s]",
+                    cached != null ? "cached, " + RunMetrics.millis(cached.getNanos()) + " ms saved" : "evaluated",
+                    prepared.isPlanReused() ? "reused" : "parsed", queryCache.describe());
+            }
+            return new PigletRunner.TestResult(queryFile.getName(), true, message, "SPARQL",
+                System.nanoTime() - startTime);
             
         } catch (Exception e) {
             String msg = e.getClass().getSimpleName() + ": " + (e.getMessage() != null ? e.getMessage() : "Unknown");
-            System.out.println("    ✗ " + msg);
-            return new PigletRunner.TestResult(queryFile.getName(), false, msg, "SPARQL");
+            return new PigletRunner.TestResult(queryFile.getName(), false, msg, "SPARQL",
+                System.nanoTime() - startTime);
         }
     }
 
@@ -0,0 +1,87 @@
+package com.piglet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Stand-in for {@code System.out} that keeps the console in step order while
+ * pipeline stages run concurrently.
+ *
+ * Output written by a background stage, including any threads it starts, is
+ * held back until the stage is promoted; the held output is then replayed in
+ * one piece and the stage writes straight through from then on. Threads that
+ * don't belong to a held-back stage always write straight through.
+ */
+class StagedConsole extends OutputStream {
+
+    private static final InheritableThreadLocal<Stage> CURRENT = new InheritableThreadLocal<>();
+
+    private final PrintStream target;
+
+    private StagedConsole(PrintStream target) {
+        this.target = target;
+    }
+
+    /** Routes {@code System.out} through a new console until {@link #uninstall()}. */
+    static StagedConsole install() {
+        StagedConsole console = new StagedConsole(System.out);
+        System.setOut(new PrintStream(console, true));
+        return console;
+    }
+
+    void uninstall() {
+        System.out.flush();
+        System.setOut(target);
+    }
+
+    /** Wraps a stage body so everything it prints is held back until {@link #promote}. */
+    Runnable heldBack(Stage stage, Runnable body) {
+        return () -> {
+            CURRENT.set(stage);
+            try {
+                body.run();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    synchronized void promote(Stage stage) {
+        if (stage.held != null) {
+            target.write(stage.held.toByteArray(), 0, stage.held.size());
+            target.flush();
+            stage.held = null;
+        }
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        Stage stage = CURRENT.get();
+        if (stage != null && stage.held != null) {
+            stage.held.write(b);
+        } else {
+            target.write(b);
+        }
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        Stage stage = CURRENT.get();
+        if (stage != null && stage.held != null) {
+            stage.held.write(b, off, len);
+        } else {
+            target.write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target.flush();
+    }
+
+    static class Stage {
+        private ByteArrayOutputStream held = new ByteArrayOutputStream();
+    }
+}
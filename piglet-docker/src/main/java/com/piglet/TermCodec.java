@@ -0,0 +1,102 @@
+package com.piglet;
+
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.graph.BlankNodeId;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte encoding of RDF terms used by the triple store dictionary.
+ *
+ * A term is a tag byte followed by UTF-8: {@code I<iri>}, {@code B<label>} or
+ * {@code L<lexical>\0<lang>\0<datatype>}. Comparing encodings as unsigned bytes
+ * gives the order the dictionary is sorted in, so a constant can be looked up
+ * by binary search directly over the mapped term file.
+ */
+final class TermCodec {
+
+    private static final byte IRI = 'I';
+    private static final byte BLANK = 'B';
+    private static final byte LITERAL = 'L';
+
+    private TermCodec() {
+    }
+
+    static byte[] encode(Node node) {
+        if (node.isURI()) {
+            return tagged(IRI, node.getURI());
+        }
+        if (node.isBlank()) {
+            return tagged(BLANK, node.getBlankNodeLabel());
+        }
+        if (node.isLiteral()) {
+            String datatype = node.getLiteralDatatypeURI() != null ? node.getLiteralDatatypeURI() : "";
+            return tagged(LITERAL, node.getLiteralLexicalForm() + '\0' + node.getLiteralLanguage() + '\0' + datatype);
+        }
+        throw new IllegalArgumentException("Cannot store term " + node);
+    }
+
+    /**
+     * Latin-1 view of an encoding: one char per byte, so {@link String#compareTo}
+     * and hashing agree with the unsigned byte order used on disk.
+     */
+    static String key(byte[] encoded) {
+        return new String(encoded, StandardCharsets.ISO_8859_1);
+    }
+
+    static Node decode(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return decode(bytes);
+    }
+
+    static Node decode(byte[] bytes) {
+        String body = new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+        switch (bytes[0]) {
+            case IRI:
+                return NodeFactory.createURI(body);
+            case BLANK:
+                return NodeFactory.createBlankNode(BlankNodeId.create(body));
+            case LITERAL:
+                // The lexical form may itself contain NUL, language and datatype cannot
+                int datatypeStart = body.lastIndexOf('\0');
+                int langStart = body.lastIndexOf('\0', datatypeStart - 1);
+                String lexical = body.substring(0, langStart);
+                String lang = body.substring(langStart + 1, datatypeStart);
+                if (!lang.isEmpty()) {
+                    return NodeFactory.createLiteral(lexical, lang);
+                }
+                String datatypeUri = body.substring(datatypeStart + 1);
+                RDFDatatype datatype = datatypeUri.isEmpty() ? null
+                    : TypeMapper.getInstance().getSafeTypeByName(datatypeUri);
+                return NodeFactory.createLiteral(lexical, datatype);
+            default:
+                throw new IllegalStateException("Corrupt term tag " + bytes[0]);
+        }
+    }
+
+    /** Unsigned comparison of {@code key} against the encoding stored at {@code offset}. */
+    static int compare(byte[] key, ByteBuffer buffer, int offset, int length) {
+        int common = Math.min(key.length, length);
+        for (int i = 0; i < common; i++) {
+            int diff = (key[i] & 0xff) - (buffer.get(offset + i) & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return key.length - length;
+    }
+
+    private static byte[] tagged(byte tag, String body) {
+        byte[] utf8 = body.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = new byte[utf8.length + 1];
+        encoded[0] = tag;
+        System.arraycopy(utf8, 0, encoded, 1, utf8.length);
+        return encoded;
+    }
+}
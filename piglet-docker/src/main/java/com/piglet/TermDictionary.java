@@ -0,0 +1,16 @@
+package com.piglet;
+
+import org.apache.jena.graph.Node;
+
+/**
+ * Two-way mapping between RDF terms and the dense int IDs triple indexes store.
+ */
+interface TermDictionary {
+
+    /** ID of {@code node}, or -1 if the term does not occur in the data. */
+    int lookup(Node node);
+
+    Node term(int id);
+
+    int size();
+}
@@ -0,0 +1,141 @@
+package com.piglet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * How long each script and query took in earlier runs, kept in
+ * {@code test-timings.properties} so work can be scheduled longest first.
+ *
+ * Each test's estimate is a moving average that gives the latest run half the
+ * weight, so one slow outlier doesn't dominate. Tests never seen before are
+ * estimated at the mean of the known ones.
+ *
+ * Runs in server mode share the file and save at the same time, so a save
+ * reads the file again and applies this run's durations on top of whatever
+ * other runs wrote since it was loaded.
+ */
+class TestTimings {
+
+    // Estimate for every test when there is no history at all; only their relative order matters then
+    private static final long DEFAULT_NANOS = 1_000_000L;
+
+    // Held from re-reading the file to replacing it, across every run in this JVM
+    private static final Object SAVE_LOCK = new Object();
+
+    private final Path file;
+    private final Map<String, Long> nanos = new HashMap<>();
+    // What this run measured, in order, to replay onto the file at save time
+    private final List<Map.Entry<String, Long>> recorded = new ArrayList<>();
+
+    private TestTimings(Path file) {
+        this.file = file;
+    }
+
+    /** Loads the timings at {@code file}; a missing or unreadable file just means no history. */
+    static TestTimings load(Path file) {
+        TestTimings timings = new TestTimings(file);
+        read(file, timings.nanos);
+        return timings;
+    }
+
+    private static void read(Path file, Map<String, Long> nanos) {
+        if (file != null && Files.isRegularFile(file)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("  ⚠ Ignoring unreadable test timings: " + e.getMessage());
+                return;
+            }
+            for (String key : properties.stringPropertyNames()) {
+                try {
+                    long value = Long.parseLong(properties.getProperty(key).trim());
+                    if (value > 0) {
+                        nanos.put(key, value);
+                    }
+                } catch (NumberFormatException e) {
+                    // A damaged line only costs that test its history
+                }
+            }
+        }
+    }
+
+    /** Key of a test: its kind and file name, as in {@code beanshell/check.bsh}. */
+    static String key(String kind, String fileName) {
+        return kind + "/" + fileName;
+    }
+
+    /** Key of the test a result came from; the rows of a data-driven script all map to the script. */
+    static String key(PigletRunner.TestResult result) {
+        String name = result.getName();
+        int row = name.indexOf(".bsh[");
+        if (row >= 0) {
+            name = name.substring(0, row + ".bsh".length());
+        }
+        return key("BEANSHELL".equals(result.getType()) ? "beanshell" : "sparql", name);
+    }
+
+    synchronized boolean isKnown(String key) {
+        return nanos.containsKey(key);
+    }
+
+    synchronized long estimate(String key) {
+        Long known = nanos.get(key);
+        if (known != null) {
+            return known;
+        }
+        if (nanos.isEmpty()) {
+            return DEFAULT_NANOS;
+        }
+        long total = 0;
+        for (long value : nanos.values()) {
+            total += value;
+        }
+        return Math.max(1, total / nanos.size());
+    }
+
+    synchronized void record(String key, long durationNanos) {
+        if (durationNanos <= 0) {
+            return;
+        }
+        update(nanos, key, durationNanos);
+        recorded.add(Map.entry(key, durationNanos));
+    }
+
+    private static void update(Map<String, Long> nanos, String key, long durationNanos) {
+        Long previous = nanos.get(key);
+        nanos.put(key, previous == null ? durationNanos : (previous + durationNanos) / 2);
+    }
+
+    /** Writes the durations recorded in this run over the latest timings on disk. */
+    synchronized void save() throws IOException {
+        synchronized (SAVE_LOCK) {
+            Map<String, Long> latest = new HashMap<>();
+            read(file, latest);
+            for (Map.Entry<String, Long> entry : recorded) {
+                update(latest, entry.getKey(), entry.getValue());
+            }
+            recorded.clear();
+            nanos.clear();
+            nanos.putAll(latest);
+
+            Properties properties = new Properties();
+            for (Map.Entry<String, Long> entry : nanos.entrySet()) {
+                properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(),
+                ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, "PigletV2 test timings (nanoseconds)");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
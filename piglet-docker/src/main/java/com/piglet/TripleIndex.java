@@ -0,0 +1,248 @@
+package com.piglet;
+
+import java.nio.IntBuffer;
+
+/**
+ * Dictionary-encoded triples held in three sorted permutations: SPO, POS and OSP.
+ *
+ * Each permutation is a flat run of int triples, sorted lexicographically in
+ * that permutation's column order. Any combination of bound positions in a
+ * pattern is a prefix of one of the three orders, so every lookup is two
+ * binary searches that give an exact row range, with no filtering and no
+ * allocation. The buffers can wrap heap arrays or memory-mapped files.
+ */
+class TripleIndex {
+
+    static final int SPO = 0;
+    static final int POS = 1;
+    static final int OSP = 2;
+
+    // For each permutation, the triple position (0=s, 1=p, 2=o) stored in each column
+    private static final int[][] COLUMNS = { { 0, 1, 2 }, { 1, 2, 0 }, { 2, 0, 1 } };
+
+    private final IntBuffer[] permutations;
+    private final int size;
+
+    TripleIndex(IntBuffer spo, IntBuffer pos, IntBuffer osp) {
+        this.permutations = new IntBuffer[] { spo, pos, osp };
+        this.size = spo.limit() / 3;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Permutation whose column order starts with exactly the bound positions (-1 = unbound). */
+    static int permutationFor(int s, int p, int o) {
+        if (s >= 0) {
+            return p < 0 && o >= 0 ? OSP : SPO;
+        }
+        if (p >= 0) {
+            return POS;
+        }
+        return o >= 0 ? OSP : SPO;
+    }
+
+    /**
+     * Row range in {@link #permutationFor} order matching the pattern, packed as
+     * {@code start << 32 | end} so callers don't need a holder object.
+     */
+    long range(int s, int p, int o) {
+        int permutation = permutationFor(s, p, o);
+        int[] columns = COLUMNS[permutation];
+        int a = position(columns[0], s, p, o);
+        int b = position(columns[1], s, p, o);
+        int c = position(columns[2], s, p, o);
+        int bound = a < 0 ? 0 : b < 0 ? 1 : c < 0 ? 2 : 3;
+        if (bound == 0) {
+            return size;
+        }
+        IntBuffer rows = permutations[permutation];
+        int start = search(rows, a, b, c, bound, false);
+        int end = search(rows, a, b, c, bound, true);
+        return ((long) start << 32) | end;
+    }
+
+    private static int position(int position, int s, int p, int o) {
+        return position == 0 ? s : position == 1 ? p : o;
+    }
+
+    long count(int s, int p, int o) {
+        long range = range(s, p, o);
+        return (int) range - (int) (range >>> 32);
+    }
+
+    /** Position {@code position} (0=s, 1=p, 2=o) of row {@code row} in the given permutation. */
+    int get(int permutation, int row, int position) {
+        int[] columns = COLUMNS[permutation];
+        int column = columns[0] == position ? 0 : columns[1] == position ? 1 : 2;
+        return permutations[permutation].get(row * 3 + column);
+    }
+
+    /**
+     * First row whose leading {@code bound} columns compare greater than or equal
+     * to the key ({@code upper == false}) or strictly greater ({@code upper == true}).
+     */
+    private int search(IntBuffer rows, int a, int b, int c, int bound, boolean upper) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(rows, mid, a, b, c, bound);
+            if (cmp < 0 || (upper && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(IntBuffer rows, int row, int a, int b, int c, int bound) {
+        int base = row * 3;
+        int cmp = Integer.compare(rows.get(base), a);
+        if (cmp != 0 || bound == 1) {
+            return cmp;
+        }
+        cmp = Integer.compare(rows.get(base + 1), b);
+        if (cmp != 0 || bound == 2) {
+            return cmp;
+        }
+        return Integer.compare(rows.get(base + 2), c);
+    }
+
+    /**
+     * Sorts {@code count} triples packed in {@code rows} and drops duplicates,
+     * returning the number of distinct triples left at the front of the array.
+     */
+    static int sortDistinct(int[] rows, int count) {
+        quickSort(rows, 0, count - 1, new int[3]);
+        if (count == 0) {
+            return 0;
+        }
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (compareRows(rows, i, distinct - 1) != 0) {
+                copyRow(rows, i, distinct++);
+            }
+        }
+        return distinct;
+    }
+
+    /** Reorders SPO rows into the column order of {@code permutation}, then sorts them. */
+    static int[] permute(int[] spo, int count, int permutation) {
+        int[] columns = COLUMNS[permutation];
+        int[] permuted = new int[count * 3];
+        for (int row = 0; row < count; row++) {
+            int base = row * 3;
+            permuted[base] = spo[base + columns[0]];
+            permuted[base + 1] = spo[base + columns[1]];
+            permuted[base + 2] = spo[base + columns[2]];
+        }
+        quickSort(permuted, 0, count - 1, new int[3]);
+        return permuted;
+    }
+
+    /** In-place quicksort over rows {@code low..high}; {@code pivot} is a scratch row. */
+    private static void quickSort(int[] rows, int low, int high, int[] pivot) {
+        while (high - low > 16) {
+            int median = pivotRow(rows, low, high);
+            System.arraycopy(rows, median * 3, pivot, 0, 3);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compareToPivot(rows, i, pivot) < 0) {
+                    i++;
+                }
+                while (compareToPivot(rows, j, pivot) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swapRows(rows, i++, j--);
+                }
+            }
+            // Recurse into the smaller half to bound stack depth
+            if (j - low < high - i) {
+                quickSort(rows, low, j, pivot);
+                low = i;
+            } else {
+                quickSort(rows, i, high, pivot);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compareRows(rows, j - 1, j) > 0; j--) {
+                swapRows(rows, j - 1, j);
+            }
+        }
+    }
+
+    private static int compareToPivot(int[] rows, int row, int[] pivot) {
+        int base = row * 3;
+        int cmp = Integer.compare(rows[base], pivot[0]);
+        if (cmp == 0) {
+            cmp = Integer.compare(rows[base + 1], pivot[1]);
+            if (cmp == 0) {
+                cmp = Integer.compare(rows[base + 2], pivot[2]);
+            }
+        }
+        return cmp;
+    }
+
+    /**
+     * Tukey's ninther on large ranges: data loaded from several files in
+     * interleaved batches is full of sorted runs, which defeat a plain
+     * median of three.
+     */
+    private static int pivotRow(int[] rows, int low, int high) {
+        int mid = (low + high) >>> 1;
+        if (high - low < 128) {
+            return medianOfThree(rows, low, mid, high);
+        }
+        int step = (high - low) / 8;
+        return medianOfThree(rows,
+            medianOfThree(rows, low, low + step, low + 2 * step),
+            medianOfThree(rows, mid - step, mid, mid + step),
+            medianOfThree(rows, high - 2 * step, high - step, high));
+    }
+
+    private static int medianOfThree(int[] rows, int a, int b, int c) {
+        if (compareRows(rows, a, b) > 0) {
+            int t = a; a = b; b = t;
+        }
+        if (compareRows(rows, b, c) > 0) {
+            b = c;
+            if (compareRows(rows, a, b) > 0) {
+                b = a;
+            }
+        }
+        return b;
+    }
+
+    private static int compareRows(int[] rows, int x, int y) {
+        int bx = x * 3;
+        int by = y * 3;
+        int cmp = Integer.compare(rows[bx], rows[by]);
+        if (cmp == 0) {
+            cmp = Integer.compare(rows[bx + 1], rows[by + 1]);
+            if (cmp == 0) {
+                cmp = Integer.compare(rows[bx + 2], rows[by + 2]);
+            }
+        }
+        return cmp;
+    }
+
+    private static void copyRow(int[] rows, int from, int to) {
+        System.arraycopy(rows, from * 3, rows, to * 3, 3);
+    }
+
+    private static void swapRows(int[] rows, int x, int y) {
+        int bx = x * 3;
+        int by = y * 3;
+        for (int k = 0; k < 3; k++) {
+            int t = rows[bx + k];
+            rows[bx + k] = rows[by + k];
+            rows[by + k] = t;
+        }
+    }
+}
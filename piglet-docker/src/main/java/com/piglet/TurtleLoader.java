@@ -0,0 +1,211 @@
+package com.piglet;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.ttl.turtle.TurtleEventHandler;
+import org.apache.jena.ttl.turtle.parser.TokenMgrError;
+import org.apache.jena.ttl.turtle.parser.TurtleParser;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads Turtle files into a graph, parsing files in parallel.
+ *
+ * Each file is parsed on its own worker with Jena's streaming Turtle parser.
+ * Triples are handed over in fixed-size batches through a bounded queue to
+ * the calling thread, which is the only one writing to the graph. A slow
+ * writer therefore throttles the parsers instead of letting parsed triples
+ * pile up on the heap.
+ */
+class TurtleLoader {
+
+    private static final List<Triple> END_OF_FILE = Collections.emptyList();
+
+    private final int parallelism;
+    private final int batchSize;
+
+    TurtleLoader(int parallelism, int batchSize) {
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Parses every file into {@code target}. Files that fail to parse are reported
+     * and skipped; triples they produced before the error stay in the graph.
+     */
+    LoadStats load(File[] files, Graph target) throws InterruptedException {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        int threads = Math.max(1, Math.min(parallelism, files.length));
+        BlockingQueue<List<Triple>> batches = new ArrayBlockingQueue<>(threads * 4);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, WorkerThreads.daemon("piglet-ttl"));
+        long start = System.nanoTime();
+        long triples = 0;
+
+        try {
+            List<Future<FileResult>> parses = new ArrayList<>(files.length);
+            for (File file : files) {
+                parses.add(pool.submit(() -> parse(file, batches)));
+            }
+
+            // Single writer: drain batches until every parser has signalled the end of its file
+            int finished = 0;
+            while (finished < files.length) {
+                List<Triple> batch = batches.take();
+                if (batch == END_OF_FILE) {
+                    finished++;
+                } else {
+                    GraphUtil.add(target, batch);
+                    triples += batch.size();
+                }
+            }
+
+            int loadedFiles = 0;
+            for (int i = 0; i < files.length; i++) {
+                FileResult result = parses.get(i).get();
+                if (result.error != null) {
+                    System.out.println("    ✗ " + files[i].getName() + ": " + result.error);
+                } else {
+                    loadedFiles++;
+                    target.getPrefixMapping().setNsPrefixes(result.prefixes);
+                    System.out.println(String.format("    ✓ %s: %d triples", files[i].getName(), result.triples));
+                }
+            }
+
+            long peakHeap = 0;
+            for (MemoryPoolMXBean heapPool : heapPools) {
+                peakHeap += heapPool.getPeakUsage().getUsed();
+            }
+            return new LoadStats(loadedFiles, triples, System.nanoTime() - start, peakHeap, threads);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Turtle parser failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private FileResult parse(File file, BlockingQueue<List<Triple>> batches) throws InterruptedException {
+        BatchingHandler handler = new BatchingHandler(batches);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            TurtleParser parser = new TurtleParser(in, "UTF-8");
+            parser.setBaseURI(file.toURI().toString());
+            parser.setEventHandler(handler);
+            parser.parse();
+            handler.flush();
+            return new FileResult(handler.count, handler.prefixes, null);
+        } catch (Exception | TokenMgrError e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Turtle load cancelled");
+            }
+            handler.flush();
+            // Parser messages run on with the full list of expected tokens; the first line is enough
+            String message = e.getMessage() != null ? e.getMessage().split("\\R", 2)[0] : e.getClass().getSimpleName();
+            return new FileResult(handler.count, handler.prefixes, message);
+        } finally {
+            batches.put(END_OF_FILE);
+        }
+    }
+
+    private class BatchingHandler implements TurtleEventHandler {
+        private final BlockingQueue<List<Triple>> batches;
+        private final Map<String, String> prefixes = new HashMap<>();
+        private List<Triple> batch = new ArrayList<>(batchSize);
+        private long count;
+
+        BatchingHandler(BlockingQueue<List<Triple>> batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public void triple(int line, int col, Triple triple) {
+            batch.add(triple);
+            count++;
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void prefix(int line, int col, String prefix, String iri) {
+            prefixes.put(prefix, iri);
+        }
+
+        @Override
+        public void startFormula(int line, int col) {
+        }
+
+        @Override
+        public void endFormula(int line, int col) {
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                batches.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Turtle load cancelled", e);
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private static class FileResult {
+        private final long triples;
+        private final Map<String, String> prefixes;
+        private final String error;
+
+        FileResult(long triples, Map<String, String> prefixes, String error) {
+            this.triples = triples;
+            this.prefixes = prefixes;
+            this.error = error;
+        }
+    }
+
+    static class LoadStats {
+        private final int files;
+        private final long triples;
+        private final long elapsedNanos;
+        private final long peakHeapBytes;
+        private final int threads;
+
+        LoadStats(int files, long triples, long elapsedNanos, long peakHeapBytes, int threads) {
+            this.files = files;
+            this.triples = triples;
+            this.elapsedNanos = elapsedNanos;
+            this.peakHeapBytes = peakHeapBytes;
+            this.threads = threads;
+        }
+
+        int getFiles() { return files; }
+        long getTriples() { return triples; }
+        long getElapsedNanos() { return elapsedNanos; }
+        long getPeakHeapBytes() { return peakHeapBytes; }
+        int getThreads() { return threads; }
+
+        double getTriplesPerSecond() {
+            return elapsedNanos == 0 ? 0 : triples * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BeanShellScriptRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private void script(String name, String source) throws IOException {
+        File dir = new File(folder.getRoot(), "beanshell");
+        dir.mkdirs();
+        Files.write(new File(dir, name).toPath(), source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<PigletRunner.TestResult> run(long timeoutMillis) {
+        BeanShellScriptRunner runner = new BeanShellScriptRunner(folder.getRoot().getPath(), 1, timeoutMillis,
+            new ScriptCache(16, null));
+        return runner.executeAllScripts();
+    }
+
+    @Test(timeout = 30000)
+    public void infiniteLoopTimesOutAndFreesItsWorker() throws IOException {
+        script("a_spin.bsh", "while (true) { }\n");
+        script("b_pass.bsh", "success = true;\n");
+
+        List<PigletRunner.TestResult> results = run(500);
+
+        assertEquals(2, results.size());
+        assertFalse(results.get(0).isPassed());
+        assertTrue(results.get(0).getMessage(), results.get(0).getMessage().startsWith("Timed out after 500 ms"));
+        assertTrue(results.get(1).getMessage(), results.get(1).isPassed());
+    }
+
+    @Test(timeout = 30000)
+    public void loopThatNeverYieldsHasItsWorkerReplaced() throws IOException {
+        // An empty loop body never reaches the interrupt check, so only a new worker gets the next script run
+        script("a_spin.bsh", "while (true);\n");
+        script("b_pass.bsh", "success = true;\n");
+
+        List<PigletRunner.TestResult> results = run(500);
+
+        assertEquals(2, results.size());
+        assertFalse(results.get(0).isPassed());
+        assertTrue(results.get(1).getMessage(), results.get(1).isPassed());
+    }
+
+    @Test(timeout = 30000)
+    public void rowTimeoutFailsOnlyTheStuckRow() throws IOException {
+        script("rows.bsh", "// @row\nif (n.equals(\"2\")) { while (true) { } }\nsuccess = true;\n");
+        Files.write(new File(folder.getRoot(), "beanshell/rows.csv").toPath(),
+            "n\n1\n2\n3\n".getBytes(StandardCharsets.UTF_8));
+
+        List<PigletRunner.TestResult> results = run(500);
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isPassed());
+        assertFalse(results.get(1).isPassed());
+        assertEquals("Timed out after 500 ms", results.get(1).getMessage());
+        assertTrue(results.get(2).isPassed());
+    }
+}
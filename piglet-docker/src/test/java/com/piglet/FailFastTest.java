@@ -0,0 +1,40 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class FailFastTest {
+
+    @Test
+    public void skipsOnceEnoughTestsFailed() {
+        FailFast failFast = new FailFast(2);
+        List<Boolean> skips = new ArrayList<>();
+
+        skips.add(failFast.skip());
+        failFast.recordFailure();
+        skips.add(failFast.skip());
+        failFast.recordFailure();
+        skips.add(failFast.skip());
+        skips.add(failFast.skip());
+
+        assertEquals(List.of(false, false, true, true), skips);
+        assertTrue(failFast.isTripped());
+        assertEquals(2, failFast.getSkipped());
+    }
+
+    @Test
+    public void zeroNeverSkips() {
+        FailFast failFast = new FailFast(0);
+        for (int i = 0; i < 10; i++) {
+            failFast.recordFailure();
+        }
+
+        assertFalse(failFast.skip());
+        assertEquals(0, failFast.getSkipped());
+    }
+}
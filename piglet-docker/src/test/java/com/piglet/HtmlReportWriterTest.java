@@ -0,0 +1,126 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HtmlReportWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path report() {
+        return folder.getRoot().toPath().resolve("report.html");
+    }
+
+    private static String read(Path page) throws IOException {
+        return new String(Files.readAllBytes(page), StandardCharsets.UTF_8);
+    }
+
+    private static PigletRunner.TestResult result(String name, boolean passed, String type) {
+        return new PigletRunner.TestResult(name, passed, passed ? "ok" : "wrong", type);
+    }
+
+    /** The value in the summary box labelled {@code label}, with the placeholder padding trimmed. */
+    private static String stat(String html, String label) {
+        int end = html.indexOf("</h3><p>" + label + "</p>");
+        assertTrue(label, end >= 0);
+        return html.substring(html.lastIndexOf("<h3>", end) + 4, end).trim();
+    }
+
+    @Test
+    public void singlePageSummaryIsFilledIn() throws IOException {
+        try (HtmlReportWriter writer = new HtmlReportWriter(report(), 0)) {
+            writer.accept(result("a.bsh", true, "BEANSHELL"));
+            writer.accept(result("b.bsh", false, "BEANSHELL"));
+            writer.accept(result("q.sparql", true, "SPARQL"));
+            writer.accept(result("r.sparql", true, "SPARQL"));
+            writer.finish(42);
+        }
+
+        String html = read(report());
+        assertEquals("4", stat(html, "Total Tests"));
+        assertEquals("3", stat(html, "Passed"));
+        assertEquals("1", stat(html, "Failed"));
+        assertEquals("75.0%", stat(html, "Success Rate"));
+        assertTrue(html.contains("Execution Time: 42 ms"));
+        assertFalse(html.contains("class=\"pager\""));
+        assertTrue(html.endsWith("</html>\n"));
+    }
+
+    @Test
+    public void emptyRunReportsZero() throws IOException {
+        try (HtmlReportWriter writer = new HtmlReportWriter(report(), 0)) {
+            writer.finish(0);
+        }
+
+        String html = read(report());
+        assertEquals("0", stat(html, "Total Tests"));
+        assertEquals("0.0%", stat(html, "Success Rate"));
+        assertTrue(html.contains("BeanShell Script Test Results"));
+        assertTrue(html.contains("SPARQL Query Execution Results"));
+    }
+
+    @Test
+    public void pagesLinkToTheirNeighboursAndCountThemselves() throws IOException {
+        int pages;
+        try (HtmlReportWriter writer = new HtmlReportWriter(report(), 2)) {
+            for (int i = 1; i <= 5; i++) {
+                writer.accept(result("s" + i + ".bsh", i != 3, "BEANSHELL"));
+            }
+            writer.finish(7);
+            pages = writer.getPageCount();
+        }
+
+        assertEquals(3, pages);
+        String first = read(report());
+        String second = read(folder.getRoot().toPath().resolve("report-2.html"));
+        String third = read(folder.getRoot().toPath().resolve("report-3.html"));
+        assertTrue(first.contains("Page 1 of 3"));
+        assertTrue(second.contains("Page 2 of 3"));
+        assertTrue(third.contains("Page 3 of 3"));
+        assertFalse(first.contains("Previous"));
+        assertTrue(first.contains("<a href=\"report-2.html\">Next →</a>"));
+        assertTrue(second.contains("<a href=\"report.html\">← Previous</a>"));
+        assertTrue(second.contains("<a href=\"report-3.html\">Next →</a>"));
+        assertTrue(third.contains("<a href=\"report-2.html\">← Previous</a>"));
+        assertFalse(third.contains("Next →"));
+        // Every page carries the summary of the whole run
+        for (String page : new String[] { first, second, third }) {
+            assertEquals("5", stat(page, "Total Tests"));
+            assertEquals("1", stat(page, "Failed"));
+        }
+        assertTrue(second.contains("BeanShell Script Test Results (continued)"));
+        assertTrue(second.contains("s3.bsh") && second.contains("s4.bsh") && !second.contains("s5.bsh"));
+    }
+
+    @Test
+    public void namesAndMessagesAreEscaped() throws IOException {
+        try (HtmlReportWriter writer = new HtmlReportWriter(report(), 0)) {
+            writer.accept(new PigletRunner.TestResult("<script>x & y</script>.bsh", false,
+                "expected <a> & got <b>", "BEANSHELL"));
+            writer.finish(1);
+        }
+
+        String html = read(report());
+        assertTrue(html.contains("&lt;script&gt;x &amp; y&lt;/script&gt;.bsh"));
+        assertTrue(html.contains("expected &lt;a&gt; &amp; got &lt;b&gt;"));
+        assertFalse(html.contains("<script>"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void beanShellResultAfterTheQueriesIsRejected() throws IOException {
+        try (HtmlReportWriter writer = new HtmlReportWriter(report(), 0)) {
+            writer.accept(result("q.sparql", true, "SPARQL"));
+            writer.accept(result("a.bsh", true, "BEANSHELL"));
+        }
+    }
+}
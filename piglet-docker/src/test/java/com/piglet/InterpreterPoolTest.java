@@ -0,0 +1,84 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import bsh.Primitive;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class InterpreterPoolTest {
+
+    private static PrintStream discard() {
+        return new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    @Test
+    public void releasedInterpreterIsLentOutAgain() {
+        InterpreterPool pool = new InterpreterPool(1);
+        InterpreterPool.Lease first = pool.acquire(discard());
+        pool.release(first);
+
+        InterpreterPool.Lease second = pool.acquire(discard());
+
+        assertSame(first.getInterpreter(), second.getInterpreter());
+        assertFalse(second.isFresh());
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(2, pool.getReusedCount());
+    }
+
+    @Test
+    public void variablesDoNotOutliveTheirLease() throws Exception {
+        InterpreterPool pool = new InterpreterPool(1);
+        InterpreterPool.Lease first = pool.acquire(discard());
+        first.getInterpreter().eval("leaked = 42;", first.getScope());
+        pool.release(first);
+
+        InterpreterPool.Lease second = pool.acquire(discard());
+
+        assertNotSame(first.getScope(), second.getScope());
+        assertEquals(Primitive.VOID, second.getScope().getVariable("leaked"));
+    }
+
+    @Test
+    public void busyPoolBuildsAnotherInterpreter() {
+        InterpreterPool pool = new InterpreterPool(1);
+        InterpreterPool.Lease first = pool.acquire(discard());
+
+        InterpreterPool.Lease second = pool.acquire(discard());
+
+        assertTrue(second.isFresh());
+        assertNotSame(first.getInterpreter(), second.getInterpreter());
+        assertEquals(2, pool.getCreatedCount());
+    }
+
+    @Test
+    public void discardedInterpreterIsNotLentOutAgain() {
+        InterpreterPool pool = new InterpreterPool(1);
+        InterpreterPool.Lease stuck = pool.acquire(discard());
+        pool.discard(stuck);
+
+        InterpreterPool.Lease next = pool.acquire(discard());
+
+        assertTrue(next.isFresh());
+        assertEquals(1, pool.getDiscardedCount());
+    }
+
+    @Test
+    public void scriptOutputGoesToTheLeasesStream() throws Exception {
+        InterpreterPool pool = new InterpreterPool(1);
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        InterpreterPool.Lease lease = pool.acquire(new PrintStream(printed, true, StandardCharsets.UTF_8));
+
+        lease.getInterpreter().eval("print(\"hello\");", lease.getScope());
+        pool.release(lease);
+
+        assertEquals("hello", printed.toString(StandardCharsets.UTF_8).trim());
+    }
+}
@@ -0,0 +1,79 @@
+package com.piglet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class LptScheduleTest {
+
+    private static int[] workers(LptSchedule schedule, int tests) {
+        int[] workers = new int[tests];
+        for (int i = 0; i < tests; i++) {
+            workers[i] = schedule.getWorker(i);
+        }
+        return workers;
+    }
+
+    @Test
+    public void startsLongestFirstOnTheLeastLoadedWorker() {
+        LptSchedule schedule = new LptSchedule(new long[] { 2, 5, 3, 2, 3, 2 }, 0, 2);
+
+        assertArrayEquals(new Integer[] { 1, 2, 4, 0, 3, 5 }, schedule.getOrder());
+        // 5, 3, 3 go to w0, w1, w1; then each 2 to whichever holds less
+        assertArrayEquals(new int[] { 0, 0, 1, 1, 1, 0 }, workers(schedule, 6));
+        assertEquals(9, schedule.getLoadNanos(0));
+        assertEquals(8, schedule.getLoadNanos(1));
+        assertEquals(9, schedule.getMakespanNanos());
+    }
+
+    @Test
+    public void staysWithinFourThirdsOfTheBestMakespan() {
+        // The textbook worst case for two workers: LPT gives 7 where 6 is possible
+        LptSchedule schedule = new LptSchedule(new long[] { 3, 3, 2, 2, 2 }, 0, 2);
+
+        assertEquals(7, schedule.getMakespanNanos());
+    }
+
+    @Test
+    public void tiesKeepTheGivenOrder() {
+        LptSchedule schedule = new LptSchedule(new long[] { 4, 4, 4, 4 }, 0, 3);
+
+        assertArrayEquals(new Integer[] { 0, 1, 2, 3 }, schedule.getOrder());
+        assertArrayEquals(new int[] { 0, 1, 2, 0 }, workers(schedule, 4));
+        assertEquals(8, schedule.getMakespanNanos());
+    }
+
+    @Test
+    public void moreWorkersThanTests() {
+        LptSchedule schedule = new LptSchedule(new long[] { 10, 30 }, 0, 4);
+
+        assertArrayEquals(new int[] { 1, 0 }, workers(schedule, 2));
+        assertEquals(30, schedule.getMakespanNanos());
+        assertEquals(0, schedule.getLoadNanos(3));
+    }
+
+    @Test
+    public void noWorkersCountsAsOne() {
+        LptSchedule schedule = new LptSchedule(new long[] { 1, 2, 3 }, 0, 0);
+
+        assertArrayEquals(new int[] { 0, 0, 0 }, workers(schedule, 3));
+        assertEquals(6, schedule.getMakespanNanos());
+    }
+
+    @Test
+    public void unknownTestsAreScheduledAtTheMeanOfTheKnownOnes() {
+        TestTimings timings = TestTimings.load(null);
+        timings.record("beanshell/slow.bsh", 900);
+        timings.record("beanshell/fast.bsh", 100);
+
+        LptSchedule schedule = new LptSchedule(
+            Arrays.asList("beanshell/fast.bsh", "beanshell/new.bsh", "beanshell/slow.bsh"), timings, 2);
+
+        assertEquals(1, schedule.getUnknownCount());
+        assertArrayEquals(new Integer[] { 2, 1, 0 }, schedule.getOrder());
+        assertEquals(900, schedule.getLoadNanos(0));
+        assertEquals(600, schedule.getLoadNanos(1));
+    }
+}
@@ -0,0 +1,158 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.jena.graph.NodeFactory;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedTripleStoreTest {
+
+    private static final String PREFIX = "@prefix ex: <http://example.org/> .\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File data;
+    private Path store;
+    private String output;
+
+    @Before
+    public void createDirectories() throws IOException {
+        data = folder.newFolder("data");
+        store = folder.getRoot().toPath().resolve("store");
+    }
+
+    private File write(String name, String turtle) throws IOException {
+        File file = new File(data, name);
+        Files.write(file.toPath(), (PREFIX + turtle).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /** Opens the store over {@code sources}, keeping what it printed in {@link #output}. */
+    private IndexedGraph open(File... sources) throws Exception {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+        try {
+            return MappedTripleStore.openOrBuild(sources, store, 2);
+        } finally {
+            System.setOut(original);
+            output = printed.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private boolean rebuilt() {
+        return output.contains("Rebuilding triple store");
+    }
+
+    private static boolean contains(IndexedGraph graph, String subject) {
+        return graph.contains(NodeFactory.createURI("http://example.org/" + subject), null, null);
+    }
+
+    @Test
+    public void firstOpenBuildsTheStore() throws Exception {
+        File a = write("a.ttl", "ex:a1 ex:p 1 . ex:a2 ex:p 2 .\n");
+        File b = write("b.ttl", "ex:b1 ex:p \"one\" .\n");
+
+        IndexedGraph graph = open(a, b);
+
+        assertTrue(output, rebuilt());
+        assertEquals(3, graph.getIndex().size());
+        assertTrue(contains(graph, "a2"));
+        assertTrue(contains(graph, "b1"));
+        assertTrue(Files.isRegularFile(store.resolve("segments/a.ttl.seg")));
+        assertTrue(Files.isRegularFile(store.resolve("segments/b.ttl.seg")));
+    }
+
+    @Test
+    public void unchangedSourcesReopenWithoutARebuild() throws Exception {
+        File a = write("a.ttl", "ex:a1 ex:p 1 .\n");
+        open(a);
+
+        IndexedGraph graph = open(a);
+
+        assertFalse(output, rebuilt());
+        assertEquals(1, graph.getIndex().size());
+    }
+
+    @Test
+    public void onlyTheChangedSourceIsParsedAgain() throws Exception {
+        File a = write("a.ttl", "ex:a1 ex:p 1 .\n");
+        File b = write("b.ttl", "ex:b1 ex:p 1 .\n");
+        open(a, b);
+        write("b.ttl", "ex:b1 ex:p 1 . ex:b2 ex:p 2 .\n");
+
+        IndexedGraph graph = open(a, b);
+
+        assertTrue(output, rebuilt());
+        assertTrue(output, output.contains("a.ttl: unchanged, reusing parsed segment"));
+        assertTrue(output, output.contains("b.ttl: parsed 2 triples"));
+        assertEquals(3, graph.getIndex().size());
+        assertTrue(contains(graph, "b2"));
+    }
+
+    @Test
+    public void deletedSourceLosesItsSegment() throws Exception {
+        File a = write("a.ttl", "ex:a1 ex:p 1 .\n");
+        File b = write("b.ttl", "ex:b1 ex:p 1 .\n");
+        open(a, b);
+        Files.delete(b.toPath());
+
+        IndexedGraph graph = open(a);
+
+        assertTrue(output, rebuilt());
+        assertFalse(Files.exists(store.resolve("segments/b.ttl.seg")));
+        assertEquals(1, graph.getIndex().size());
+        assertFalse(contains(graph, "b1"));
+    }
+
+    @Test
+    public void syntaxErrorKeepsTheTriplesBeforeIt() throws Exception {
+        File broken = write("broken.ttl", "ex:s1 ex:p 1 .\nex:s2 ex:p 2 .\nex:s3 ex:p ;;; .\nex:s4 ex:p 4 .\n");
+
+        IndexedGraph graph = open(broken);
+
+        assertTrue(output, output.contains("broken.ttl:"));
+        assertTrue(output, output.contains("kept 2 triples parsed before the error"));
+        assertEquals(2, graph.getIndex().size());
+        assertTrue(contains(graph, "s2"));
+        assertFalse(contains(graph, "s4"));
+    }
+
+    @Test
+    public void missingIndexFileRebuildsInsteadOfFailingToOpen() throws Exception {
+        File a = write("a.ttl", "ex:a1 ex:p 1 .\n");
+        open(a);
+        Files.delete(store.resolve("pos.idx"));
+
+        IndexedGraph graph = open(a);
+
+        assertTrue(output, rebuilt());
+        assertEquals(1, graph.getIndex().size());
+    }
+
+    @Test
+    public void missingSegmentIsParsedAgain() throws Exception {
+        File a = write("a.ttl", "ex:a1 ex:p 1 .\n");
+        open(a);
+        Files.delete(store.resolve("segments/a.ttl.seg"));
+
+        open(a);
+
+        assertTrue(output, rebuilt());
+        assertTrue(output, output.contains("a.ttl: parsed 1 triples"));
+        assertTrue(Files.isRegularFile(store.resolve("segments/a.ttl.seg")));
+    }
+}
@@ -0,0 +1,160 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PigletServerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private PigletServer server;
+
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private Path start(int maxRuns, PigletServer.RunLauncher launcher) throws IOException {
+        Path output = folder.getRoot().toPath();
+        server = new PigletServer(null, 0, maxRuns, output, launcher);
+        server.start();
+        return output;
+    }
+
+    /** Writes a report and returns a run with one passed and one failed test. */
+    private static PigletRunner.RunOutcome finishedRun(Path runDir) throws IOException {
+        Path report = runDir.resolve("piglet-test-report.html");
+        Files.write(report, "<html>report</html>".getBytes(StandardCharsets.UTF_8));
+        PigletRunner.TestResults results = new PigletRunner.TestResults();
+        results.add(new PigletRunner.TestResult("a.bsh", true, "ok", "BEANSHELL"));
+        results.add(new PigletRunner.TestResult("q.sparql", false, "wrong", "SPARQL"));
+        return new PigletRunner.RunOutcome(results, 12, new RunMetrics(), null, report);
+    }
+
+    private HttpURLConnection request(String method, String path) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setInstanceFollowRedirects(false);
+        return connection;
+    }
+
+    private static String body(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                stream.transferTo(bytes);
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void listensOnLoopbackByDefault() throws IOException {
+        start(1, PigletServerTest::finishedRun);
+
+        assertTrue(server.getAddress().getAddress().isLoopbackAddress());
+    }
+
+    @Test
+    public void runAnswersWithASummaryAndServesItsReport() throws IOException {
+        start(1, PigletServerTest::finishedRun);
+        assertEquals(404, request("GET", "/").getResponseCode());
+
+        HttpURLConnection run = request("POST", "/run");
+        assertEquals(200, run.getResponseCode());
+        assertEquals("{\"run\":1,\"total\":2,\"passed\":1,\"failed\":1,\"skipped\":0,\"executionTimeMs\":12,"
+            + "\"report\":\"/runs/1/piglet-test-report.html\"}\n", body(run));
+
+        HttpURLConnection latest = request("GET", "/");
+        assertEquals(302, latest.getResponseCode());
+        assertEquals("/runs/1/piglet-test-report.html", latest.getHeaderField("Location"));
+        HttpURLConnection report = request("GET", "/runs/1/piglet-test-report.html");
+        assertEquals(200, report.getResponseCode());
+        assertEquals("<html>report</html>", body(report));
+        assertEquals(405, request("GET", "/run").getResponseCode());
+    }
+
+    @Test
+    public void runWhileEverySlotIsBusyIsTurnedAway() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(1, runDir -> {
+            started.countDown();
+            release.await();
+            return finishedRun(runDir);
+        });
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = client.submit(() -> request("POST", "/run").getResponseCode());
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            HttpURLConnection second = request("POST", "/run");
+            assertEquals(429, second.getResponseCode());
+            assertEquals("1 run(s) already in progress; try again later\n", body(second));
+            assertEquals(200, request("GET", "/health").getResponseCode());
+
+            release.countDown();
+            assertEquals(200, (int) first.get(10, TimeUnit.SECONDS));
+            assertEquals(200, request("POST", "/run").getResponseCode());
+        } finally {
+            release.countDown();
+            client.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedRunReleasesItsSlot() throws IOException {
+        start(1, runDir -> {
+            throw new IllegalStateException("no data");
+        });
+
+        HttpURLConnection run = request("POST", "/run");
+        assertEquals(500, run.getResponseCode());
+        assertEquals("Run 1 failed: no data\n", body(run));
+        assertEquals(500, request("POST", "/run").getResponseCode());
+    }
+
+    @Test
+    public void servesOnlyReportsAndResultFiles() throws IOException {
+        Path output = start(1, PigletServerTest::finishedRun);
+        for (String name : new String[] { "piglet-test-report.html", "piglet-test-results.jsonl",
+                "piglet-test-results.bin", "run-manifest.properties", "test-timings.properties",
+                "query-cache.properties", "script-cache/index.properties" }) {
+            Files.createDirectories(output.resolve(name).getParent());
+            Files.write(output.resolve(name), "x".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(200, request("GET", "/piglet-test-report.html").getResponseCode());
+        assertEquals(200, request("GET", "/piglet-test-results.jsonl").getResponseCode());
+        assertEquals(200, request("GET", "/piglet-test-results.bin").getResponseCode());
+        assertEquals(404, request("GET", "/run-manifest.properties").getResponseCode());
+        assertEquals(404, request("GET", "/test-timings.properties").getResponseCode());
+        assertEquals(404, request("GET", "/query-cache.properties").getResponseCode());
+        assertEquals(404, request("GET", "/script-cache/index.properties").getResponseCode());
+        assertEquals(404, request("GET", "/../outside.html").getResponseCode());
+        assertEquals(404, request("GET", "/missing.html").getResponseCode());
+    }
+}
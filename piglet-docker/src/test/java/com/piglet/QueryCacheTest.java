@@ -0,0 +1,146 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.NodeFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class QueryCacheTest {
+
+    private static final String PREFIX = "PREFIX ex: <http://example.org/>\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String normalize(String text, String... expectedValues) {
+        List<String> values = new ArrayList<>();
+        String shape = QueryCache.normalize(text, values);
+        assertEquals(Arrays.asList(expectedValues), values);
+        return shape;
+    }
+
+    @Test
+    public void dropsCommentsAndCollapsesWhitespace() {
+        assertEquals("SELECT ?s WHERE { ?s ?p ?o }",
+            normalize("  SELECT  ?s # the subject\n\tWHERE {\r\n  ?s ?p ?o # any triple\n}\n"));
+    }
+
+    @Test
+    public void replacesLiteralsAndNumbersWithParameters() {
+        assertEquals("SELECT * WHERE { ?s ex:p ?__p0 ; ex:q ?__p1 ; ex:r ?__p2 ; ex:t ?__p3 }",
+            normalize("SELECT * WHERE { ?s ex:p \"chat\"@fr ; ex:q 'single' ; ex:r -4.5e3 ; ex:t \"7\"^^xsd:int }",
+                "\"chat\"@fr", "'single'", "-4.5e3", "\"7\"^^xsd:int"));
+    }
+
+    @Test
+    public void keepsQuotesInsideLiterals() {
+        assertEquals("SELECT * WHERE { ?s ?p ?__p0 . ?s ?q ?__p1 }",
+            normalize("SELECT * WHERE { ?s ?p \"say \\\"hi\\\"\" . ?s ?q \"\"\"two \"quoted\" lines\n\"\"\" }",
+                "\"say \\\"hi\\\"\"", "\"\"\"two \"quoted\" lines\n\"\"\""));
+    }
+
+    @Test
+    public void leavesNamesIrisAndModifiersAlone() {
+        assertEquals("SELECT ?v2 WHERE { ?v2 ex:test1 <http://example.org/#1> } LIMIT 10 OFFSET 5",
+            normalize("SELECT ?v2 WHERE { ?v2 ex:test1 <http://example.org/#1> } LIMIT 10 OFFSET 5"));
+    }
+
+    @Test
+    public void queriesDifferingOnlyInConstantsShareAShape() {
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        assertEquals(QueryCache.normalize("SELECT * WHERE { ?s ?p 1 }", first),
+            QueryCache.normalize("SELECT *\nWHERE { ?s ?p 2 } # again", second));
+        assertEquals(Collections.singletonList("1"), first);
+        assertEquals(Collections.singletonList("2"), second);
+    }
+
+    @Test
+    public void reusesThePlanAndBindsTheNewConstants() {
+        QueryCache cache = new QueryCache(16, null);
+
+        QueryCache.Prepared first = cache.prepare(PREFIX + "SELECT ?s WHERE { ?s ex:age 30 }", "data");
+        QueryCache.Prepared second = cache.prepare(PREFIX + "SELECT ?s WHERE { ?s ex:age 41 }", "data");
+
+        assertFalse(first.isPlanReused());
+        assertTrue(second.isPlanReused());
+        assertEquals(1, cache.getPlanHits());
+        assertEquals(NodeFactory.createLiteral("41", XSDDatatype.XSDinteger),
+            second.getQuery().getPatterns().get(0).getObject());
+        assertEquals(Collections.singletonList("s"), second.getQuery().getProjection());
+    }
+
+    @Test
+    public void resultsAreKeyedByConstantsAndDataset() {
+        QueryCache cache = new QueryCache(16, null);
+        String query = PREFIX + "SELECT ?s WHERE { ?s ex:age 30 }";
+        cache.store(cache.prepare(query, "data"), 3, 1000);
+
+        assertEquals(3, cache.lookup(cache.prepare(query, "data")).getCount());
+        assertNull(cache.lookup(cache.prepare(query, "other")));
+        assertNull(cache.lookup(cache.prepare(PREFIX + "SELECT ?s WHERE { ?s ex:age 31 }", "data")));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    private static String run(SparqlQueryExecutor executor, QueryCache cache) {
+        executor.setQueryCache(cache);
+        List<PigletRunner.TestResult> results = executor.executeAllQueries();
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).getMessage(), results.get(0).isPassed());
+        return results.get(0).getMessage();
+    }
+
+    @Test
+    public void resultsAreKeyedByDataContentAndTheStoreUsed() throws IOException {
+        Path resources = folder.newFolder("resources").toPath();
+        Path data = Files.createDirectories(resources.resolve("data")).resolve("people.ttl");
+        Files.write(data, "@prefix ex: <http://example.org/> .\nex:a ex:age 30 .\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(Files.createDirectories(resources.resolve("sparql")).resolve("q.sparql"),
+            (PREFIX + "SELECT ?s WHERE { ?s ex:age 30 }").getBytes(StandardCharsets.UTF_8));
+        // A regular file where the store directory should be: the mapped store falls back to memory
+        Path notADirectory = folder.newFile("store").toPath();
+        QueryCache cache = new QueryCache(16, null);
+
+        assertTrue(run(new SparqlQueryExecutor(resources.toString(), 1, 100, "mapped", notADirectory), cache)
+            .contains("[evaluated"));
+        data.toFile().setLastModified(data.toFile().lastModified() - 60_000);
+        assertTrue(run(new SparqlQueryExecutor(resources.toString(), 1, 100, "memory", null), cache)
+            .contains("[cached"));
+        assertTrue(run(new SparqlQueryExecutor(resources.toString(), 1, 100, "compact", null), cache)
+            .contains("[evaluated"));
+    }
+
+    @Test
+    public void persistedResultsSurviveADamagedLine() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("query-cache.properties");
+        String query = PREFIX + "SELECT ?s WHERE { ?s ex:age 30 }";
+        QueryCache cache = new QueryCache(16, file);
+        cache.store(cache.prepare(query, "data"), 3, 1000);
+        cache.save();
+        Files.write(file, "damaged=x:1\n".getBytes(StandardCharsets.ISO_8859_1), StandardOpenOption.APPEND);
+
+        QueryCache reloaded = new QueryCache(16, file);
+
+        QueryCache.Result result = reloaded.lookup(reloaded.prepare(query, "data"));
+        assertNotNull(result);
+        assertEquals(3, result.getCount());
+        assertEquals(1000, result.getNanos());
+    }
+}
@@ -0,0 +1,94 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResultReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<PigletRunner.TestResult> results(int count) {
+        List<PigletRunner.TestResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new PigletRunner.TestResult("test_" + i + (i % 7 == 0 ? " ✓ café 😀" : ""),
+                i % 3 != 0, i % 5 == 0 ? "" : "line one\nline \"two\" " + i, i % 2 == 0 ? "BEANSHELL" : "SPARQL",
+                i * 1_000_003L));
+        }
+        return results;
+    }
+
+    private static List<PigletRunner.TestResult> read(Path file) throws IOException, InterruptedException {
+        List<PigletRunner.TestResult> read = new ArrayList<>();
+        ResultReader.read(file, read::add);
+        return read;
+    }
+
+    private static void assertSameResults(List<PigletRunner.TestResult> expected, List<PigletRunner.TestResult> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            PigletRunner.TestResult want = expected.get(i);
+            PigletRunner.TestResult got = actual.get(i);
+            assertEquals(want.getName(), got.getName());
+            assertEquals(want.getName(), want.isPassed(), got.isPassed());
+            assertEquals(want.getName(), want.getMessage(), got.getMessage());
+            assertEquals(want.getName(), want.getType(), got.getType());
+            assertEquals(want.getName(), want.getDurationNanos(), got.getDurationNanos());
+        }
+    }
+
+    @Test
+    public void binaryRoundTripAcrossBlocks() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("results.bin");
+        List<PigletRunner.TestResult> written = results(2 * BinaryResultWriter.BLOCK_SIZE + 3);
+        try (BinaryResultWriter writer = new BinaryResultWriter(file)) {
+            for (PigletRunner.TestResult result : written) {
+                writer.accept(result);
+            }
+        }
+
+        assertSameResults(written, read(file));
+    }
+
+    @Test
+    public void binaryRoundTripOfAnEmptyRun() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("results.bin");
+        new BinaryResultWriter(file).close();
+
+        assertTrue(read(file).isEmpty());
+    }
+
+    @Test
+    public void missingMessageReadsBackEmpty() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("results.bin");
+        try (BinaryResultWriter writer = new BinaryResultWriter(file)) {
+            writer.accept(new PigletRunner.TestResult("a.bsh", true, null, "BEANSHELL", 5));
+        }
+
+        List<PigletRunner.TestResult> read = read(file);
+        assertEquals(1, read.size());
+        assertEquals("", read.get(0).getMessage());
+        assertEquals(5, read.get(0).getDurationNanos());
+    }
+
+    @Test
+    public void jsonlRoundTrip() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("results.jsonl");
+        List<PigletRunner.TestResult> written = results(50);
+        try (JsonlResultWriter writer = new JsonlResultWriter(file)) {
+            for (PigletRunner.TestResult result : written) {
+                writer.accept(result);
+            }
+        }
+
+        assertSameResults(written, read(file));
+    }
+}
@@ -0,0 +1,173 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RunManifestTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+    private File data;
+
+    @Before
+    public void createDataDirectory() throws IOException {
+        file = folder.getRoot().toPath().resolve("run-manifest.properties");
+        data = folder.newFolder("data");
+    }
+
+    private File write(File dir, String name, String content) throws IOException {
+        File written = new File(dir, name);
+        Files.write(written.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return written;
+    }
+
+    private static PigletRunner.TestResult passed(String name) {
+        return new PigletRunner.TestResult(name, true, "ok", "BEANSHELL", 5);
+    }
+
+    /** Records a passing result for {@code input} in a run of its own and saves it. */
+    private void recordRun(String key, File input, String... dependencies) throws IOException {
+        RunManifest run = RunManifest.load(file);
+        run.record(key, run.hash(input, dependencies), passed(input.getName()));
+        run.save();
+    }
+
+    @Test
+    public void unchangedScriptReusesItsResult() throws IOException {
+        File script = write(folder.getRoot(), "a.bsh", "success = true;");
+        recordRun("beanshell/a.bsh", script);
+
+        RunManifest next = RunManifest.load(file);
+        PigletRunner.TestResult reused = next.reuse("beanshell/a.bsh", next.hash(script));
+
+        assertNotNull(reused);
+        assertEquals("ok (unchanged, result from previous run)", reused.getMessage());
+        assertEquals(5, reused.getDurationNanos());
+        assertEquals(1, next.getReused());
+    }
+
+    @Test
+    public void changedScriptIsRunAgain() throws IOException {
+        File script = write(folder.getRoot(), "a.bsh", "success = true;");
+        recordRun("beanshell/a.bsh", script);
+        write(folder.getRoot(), "a.bsh", "success = 1 == 1;");
+
+        RunManifest next = RunManifest.load(file);
+
+        assertNull(next.reuse("beanshell/a.bsh", next.hash(script)));
+        assertEquals(1, next.getRerun());
+    }
+
+    @Test
+    public void failedResultIsRunAgain() throws IOException {
+        File script = write(folder.getRoot(), "a.bsh", "success = false;");
+        RunManifest run = RunManifest.load(file);
+        run.record("beanshell/a.bsh", run.hash(script),
+            new PigletRunner.TestResult("a.bsh", false, "failed", "BEANSHELL"));
+        run.save();
+
+        RunManifest next = RunManifest.load(file);
+
+        assertNull(next.reuse("beanshell/a.bsh", next.hash(script)));
+    }
+
+    @Test
+    public void changedQueryOrDatasetIsRunAgain() throws IOException {
+        File query = write(folder.getRoot(), "q.sparql", "SELECT * WHERE { ?s ?p ?o }");
+        write(data, "people.ttl", "<http://example.org/a> <http://example.org/p> 1 .\n");
+        RunManifest first = RunManifest.load(file);
+        recordRun("sparql/q.sparql", query, first.datasetFingerprint(data));
+
+        RunManifest sameData = RunManifest.load(file);
+        assertNotNull(sameData.reuse("sparql/q.sparql", sameData.hash(query, sameData.datasetFingerprint(data))));
+
+        write(data, "people.ttl", "<http://example.org/a> <http://example.org/p> 2 .\n");
+        RunManifest newData = RunManifest.load(file);
+        assertNull(newData.reuse("sparql/q.sparql", newData.hash(query, newData.datasetFingerprint(data))));
+
+        write(data, "people.ttl", "<http://example.org/a> <http://example.org/p> 1 .\n");
+        write(folder.getRoot(), "q.sparql", "SELECT ?s WHERE { ?s ?p ?o }");
+        RunManifest newQuery = RunManifest.load(file);
+        assertNull(newQuery.reuse("sparql/q.sparql", newQuery.hash(query, newQuery.datasetFingerprint(data))));
+    }
+
+    @Test
+    public void fingerprintFollowsContentNotModificationTime() throws IOException {
+        File people = write(data, "people.ttl", "<http://example.org/a> <http://example.org/p> 1 .\n");
+        String before = RunManifest.fingerprintOf(data);
+
+        people.setLastModified(people.lastModified() - 60_000);
+        assertEquals(before, RunManifest.fingerprintOf(data));
+        write(data, "people.ttl", "<http://example.org/a> <http://example.org/p> 2 .\n");
+        assertNotEquals(before, RunManifest.fingerprintOf(data));
+        assertEquals("none", RunManifest.fingerprintOf(folder.newFolder("empty")));
+    }
+
+    @Test
+    public void concurrentSavesKeepEachOthersEntries() throws Exception {
+        File a = write(folder.getRoot(), "a.bsh", "success = true;");
+        File b = write(folder.getRoot(), "b.bsh", "success = 2 > 1;");
+        // Both runs load the manifest before either saves, as overlapping server runs do
+        RunManifest first = RunManifest.load(file);
+        RunManifest second = RunManifest.load(file);
+        first.record("beanshell/a.bsh", first.hash(a), passed("a.bsh"));
+        second.record("beanshell/b.bsh", second.hash(b), passed("b.bsh"));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> one = pool.submit((Callable<Void>) () -> {
+                start.await();
+                first.save();
+                return null;
+            });
+            Future<?> two = pool.submit((Callable<Void>) () -> {
+                start.await();
+                second.save();
+                return null;
+            });
+            start.countDown();
+            one.get();
+            two.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        RunManifest next = RunManifest.load(file);
+
+        assertNotNull(next.reuse("beanshell/a.bsh", next.hash(a)));
+        assertNotNull(next.reuse("beanshell/b.bsh", next.hash(b)));
+    }
+
+    @Test
+    public void entriesThisRunDidNotSeeAreDropped() throws IOException {
+        File a = write(folder.getRoot(), "a.bsh", "success = true;");
+        File b = write(folder.getRoot(), "b.bsh", "success = 2 > 1;");
+        recordRun("beanshell/a.bsh", a);
+        // The next run no longer has a.bsh
+        recordRun("beanshell/b.bsh", b);
+
+        RunManifest next = RunManifest.load(file);
+
+        assertNull(next.reuse("beanshell/a.bsh", next.hash(a)));
+        assertNotNull(next.reuse("beanshell/b.bsh", next.hash(b)));
+    }
+}
@@ -0,0 +1,139 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScriptCacheTest {
+
+    private static final String SOURCE = "int x = 1 + 2;\nsuccess = x == 3;\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File script(String name, String source) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private Path entry(String source) {
+        return folder.getRoot().toPath().resolve("cache")
+            .resolve(ScriptCache.sha256(source.getBytes(StandardCharsets.UTF_8)) + ".bshc");
+    }
+
+    @Test
+    public void unchangedScriptIsServedFromMemory() throws Exception {
+        File file = script("a.bsh", SOURCE);
+        ScriptCache cache = new ScriptCache(16, null);
+
+        assertSame(cache.load(file), cache.load(file));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void persistedEntryIsReloadedByTheNextRun() throws Exception {
+        File file = script("a.bsh", SOURCE);
+        Path dir = folder.getRoot().toPath().resolve("cache");
+        ScriptCache first = new ScriptCache(16, dir);
+        first.load(file);
+        first.flush();
+
+        ScriptCache next = new ScriptCache(16, dir);
+        assertNotNull(next.load(file));
+
+        assertEquals(1, next.getHits());
+        assertEquals(0, next.getMisses());
+    }
+
+    @Test
+    public void entryOutsideTheAllowlistIsRejectedAndTheScriptParsedAgain() throws Exception {
+        File file = script("a.bsh", SOURCE);
+        Path dir = folder.getRoot().toPath().resolve("cache");
+        Files.createDirectories(dir);
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(entry(SOURCE)))) {
+            out.writeObject(new ArrayList<>(Arrays.asList("not", "a", "script")));
+        }
+        ScriptCache cache = new ScriptCache(16, dir);
+
+        assertNotNull(cache.load(file));
+
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        // The planted entry was replaced by the fresh parse, which the next run can read
+        ScriptCache next = new ScriptCache(16, dir);
+        next.load(file);
+        assertEquals(1, next.getHits());
+    }
+
+    @Test
+    public void damagedIndexLinesOnlyCostTheirScriptARead() throws Exception {
+        File good = script("good.bsh", SOURCE);
+        File damaged = script("damaged.bsh", "success = true;\n");
+        Path dir = folder.getRoot().toPath().resolve("cache");
+        ScriptCache first = new ScriptCache(16, dir);
+        first.load(good);
+        first.load(damaged);
+        first.flush();
+        Path index = dir.resolve("index.properties");
+        String text = new String(Files.readAllBytes(index), StandardCharsets.ISO_8859_1);
+        String damagedKey = damaged.getAbsolutePath().replace(":", "\\:");
+        int line = text.indexOf(damagedKey + "=");
+        assertTrue(text, line >= 0);
+        int end = text.indexOf('\n', line);
+        // One line with fields that aren't numbers, one with too few fields
+        text = text.substring(0, line) + damagedKey + "=12x\\:soon\\:" + "0".repeat(64) + text.substring(end)
+            + "truncated=1\\:2\n";
+        Files.write(index, text.getBytes(StandardCharsets.ISO_8859_1));
+
+        ScriptCache next = new ScriptCache(16, dir);
+        next.load(good);
+        next.load(damaged);
+
+        // Both entries are still on disk: the damaged line's script is re-read and found by its hash
+        assertEquals(2, next.getHits());
+        assertEquals(0, next.getMisses());
+    }
+
+    @Test
+    public void indexPropertiesCannotReadIsIgnored() throws Exception {
+        File file = script("a.bsh", SOURCE);
+        Path dir = folder.getRoot().toPath().resolve("cache");
+        Files.createDirectories(dir);
+        try (OutputStream out = Files.newOutputStream(dir.resolve("index.properties"))) {
+            out.write("broken=\\uZZZZ\n".getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        ScriptCache cache = new ScriptCache(16, dir);
+
+        assertNotNull(cache.load(file));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void changedScriptIsParsedAgain() throws Exception {
+        File file = script("a.bsh", SOURCE);
+        ScriptCache cache = new ScriptCache(16, null);
+        Object before = cache.load(file);
+        script("a.bsh", SOURCE + "// edited\n");
+
+        assertNotSame(before, cache.load(file));
+        assertEquals(2, cache.getMisses());
+    }
+}
@@ -0,0 +1,113 @@
+package com.piglet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScriptRowsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ScriptRows csv(String text) throws IOException {
+        return ScriptRows.readCsv("rows.csv", new StringReader(text));
+    }
+
+    private static void assertRejected(String text, String expected) {
+        try {
+            csv(text);
+            fail("Read " + text);
+        } catch (IOException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    @Test
+    public void readsHeaderAndRows() throws IOException {
+        ScriptRows rows = csv(" name , age \nann,31\nbob,42");
+
+        assertEquals("rows.csv", rows.getSource());
+        assertArrayEquals(new String[] { "name", "age" }, rows.getColumns());
+        assertEquals(2, rows.size());
+        assertArrayEquals(new Object[] { "ann", "31" }, rows.get(0));
+        assertArrayEquals(new Object[] { "bob", "42" }, rows.get(1));
+    }
+
+    @Test
+    public void quotedFieldsHoldCommasQuotesAndLineBreaks() throws IOException {
+        ScriptRows rows = csv("name,note\n\"Smith, J\",\"said \"\"hi\"\"\"\n\"two\r\nlines\",\"\"\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new Object[] { "Smith, J", "said \"hi\"" }, rows.get(0));
+        assertArrayEquals(new Object[] { "two\r\nlines", "" }, rows.get(1));
+    }
+
+    @Test
+    public void acceptsCrLfAndCrLineEnds() throws IOException {
+        ScriptRows crlf = csv("a,b\r\n1,2\r\n\"3\",4\r\n");
+        ScriptRows cr = csv("a,b\r1,2\r\"3\",4\r");
+
+        for (ScriptRows rows : new ScriptRows[] { crlf, cr }) {
+            assertArrayEquals(new String[] { "a", "b" }, rows.getColumns());
+            assertEquals(2, rows.size());
+            assertArrayEquals(new Object[] { "1", "2" }, rows.get(0));
+            assertArrayEquals(new Object[] { "3", "4" }, rows.get(1));
+        }
+    }
+
+    @Test
+    public void skipsBlankLinesButKeepsEmptyFields() throws IOException {
+        ScriptRows rows = csv("a,b\n\n,\r\n\r\nx,\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new Object[] { "", "" }, rows.get(0));
+        assertArrayEquals(new Object[] { "x", "" }, rows.get(1));
+    }
+
+    @Test
+    public void rejectsMalformedFiles() {
+        assertRejected("a,b\r\n1,2\r\n3\r\n", "rows.csv: line 3 has 1 field(s), expected 2");
+        assertRejected("a\n\"open\n", "rows.csv: unterminated quoted field at line 3");
+        assertRejected("\n\n", "rows.csv: no header row");
+    }
+
+    @Test
+    public void queryRowsBindJavaValues() throws IOException {
+        Graph graph = Factory.createDefaultGraph();
+        graph.add(Triple.create(NodeFactory.createURI("http://example.org/ann"),
+            NodeFactory.createURI("http://example.org/age"), NodeFactory.createLiteral("31", XSDDatatype.XSDint)));
+        File query = folder.newFile("rows.sparql");
+        Files.write(query.toPath(), "SELECT ?who ?age WHERE { ?who <http://example.org/age> ?age }\n"
+            .getBytes(StandardCharsets.UTF_8));
+
+        ScriptRows rows = ScriptRows.load(query, () -> graph);
+
+        assertArrayEquals(new String[] { "who", "age" }, rows.getColumns());
+        assertEquals(1, rows.size());
+        assertArrayEquals(new Object[] { "http://example.org/ann", 31 }, rows.get(0));
+    }
+
+    @Test
+    public void findsTheRowSourceNextToTheScript() throws IOException {
+        File script = folder.newFile("check.bsh");
+        assertNull(ScriptRows.sourceFor(script));
+
+        File csv = folder.newFile("check.csv");
+        assertEquals(csv, ScriptRows.sourceFor(script));
+    }
+}
@@ -0,0 +1,115 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ShardCoordinatorTest {
+
+    private static final String RUN = "run-1";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ShardPlan plan(int count, String... files) throws IOException {
+        File resources = folder.newFolder("resources");
+        for (String file : files) {
+            String kind = file.endsWith(".bsh") ? "beanshell" : "sparql";
+            File dir = new File(resources, kind);
+            dir.mkdirs();
+            new File(dir, file).createNewFile();
+        }
+        return ShardPlan.create(resources.getPath(), 0, count, ShardPlan.HASH, TestTimings.load(null));
+    }
+
+    private void report(Path output, int shard, String... names) throws IOException {
+        Path dir = ShardCoordinator.shardDir(output, shard);
+        Files.createDirectories(dir);
+        try (BinaryResultWriter writer = new BinaryResultWriter(dir.resolve("piglet-test-results.bin"))) {
+            for (String name : names) {
+                writer.accept(new PigletRunner.TestResult(name, true, "ok",
+                    name.contains(".bsh") ? "BEANSHELL" : "SPARQL", 1));
+            }
+        }
+        ShardCoordinator.markComplete(dir, RUN);
+    }
+
+    private static List<String> names(List<PigletRunner.TestResult> results) {
+        List<String> names = new ArrayList<>();
+        for (PigletRunner.TestResult result : results) {
+            names.add(result.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void mergesInSuiteOrderWithRowsInNumericOrder() throws Exception {
+        Path output = folder.newFolder("output").toPath();
+        report(output, 0, "x.bsh[1]", "x.bsh[2]", "x.bsh[10]", "x.bsh[11]", "q.sparql");
+        report(output, 1, "a.bsh", "z.sparql", "b.sparql");
+        List<PigletRunner.TestResult> merged = new ArrayList<>();
+
+        new ShardCoordinator(output, plan(2, "a.bsh", "x.bsh"), RUN, 5000, false).collect(merged::add);
+
+        assertEquals(Arrays.asList("a.bsh", "x.bsh[1]", "x.bsh[2]", "x.bsh[10]", "x.bsh[11]",
+            "b.sparql", "q.sparql", "z.sparql"), names(merged));
+    }
+
+    @Test
+    public void silentShardFailsTheTestsItWasGiven() throws Exception {
+        Path output = folder.newFolder("output").toPath();
+        ShardPlan plan = plan(2, "a.bsh", "b.bsh", "c.bsh", "d.bsh", "q1.sparql", "q2.sparql", "q3.sparql");
+        List<String> owned = new ArrayList<>(plan.getAssigned(1, "beanshell"));
+        owned.addAll(plan.getAssigned(1, "sparql"));
+        assertFalse("shard 1 was given no tests", owned.isEmpty());
+        report(output, 0, "a.bsh");
+        List<PigletRunner.TestResult> merged = new ArrayList<>();
+
+        new ShardCoordinator(output, plan, RUN, 300, false).collect(merged::add);
+
+        List<String> named = new ArrayList<>();
+        for (PigletRunner.TestResult result : merged) {
+            if (result.getName().equals("Shard 1")) {
+                assertFalse(result.isPassed());
+                String kind = result.getType().equals("BEANSHELL") ? "beanshell" : "sparql";
+                for (String file : plan.getAssigned(1, kind)) {
+                    assertTrue(result.getMessage(), result.getMessage().contains(file));
+                    named.add(file);
+                }
+            }
+        }
+        assertEquals(owned, named);
+    }
+
+    @Test
+    public void ignoresResultsLeftByAnotherRun() throws Exception {
+        Path output = folder.newFolder("output").toPath();
+        report(output, 0, "a.bsh");
+        ShardCoordinator.markComplete(ShardCoordinator.shardDir(output, 0), "older-run");
+        List<PigletRunner.TestResult> merged = new ArrayList<>();
+
+        new ShardCoordinator(output, plan(1, "a.bsh"), RUN, 300, false).collect(merged::add);
+
+        assertEquals(Arrays.asList("Shard 0"), names(merged));
+        assertFalse(merged.get(0).isPassed());
+        assertEquals("BEANSHELL", merged.get(0).getType());
+    }
+
+    @Test
+    public void rowNumbersAreReadFromTheName() {
+        assertEquals(12, ShardCoordinator.rowOf(new PigletRunner.TestResult("check.bsh[12]", true, "", "BEANSHELL")));
+        assertEquals(0, ShardCoordinator.rowOf(new PigletRunner.TestResult("check.bsh", true, "", "BEANSHELL")));
+        assertEquals(0, ShardCoordinator.rowOf(new PigletRunner.TestResult("q[x].sparql", true, "", "SPARQL")));
+    }
+}
@@ -0,0 +1,170 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ShardPlanTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File resources() {
+        return folder.getRoot();
+    }
+
+    private File[] scripts(String... names) throws IOException {
+        File dir = new File(resources(), "beanshell");
+        dir.mkdirs();
+        File[] files = new File[names.length];
+        for (int i = 0; i < names.length; i++) {
+            files[i] = new File(dir, names[i]);
+            files[i].createNewFile();
+        }
+        return files;
+    }
+
+    private static String[] numbered(int from, int to) {
+        String[] names = new String[to - from];
+        for (int i = from; i < to; i++) {
+            names[i - from] = "check" + i + ".bsh";
+        }
+        return names;
+    }
+
+    private ShardPlan plan(int index, int count, String strategy, TestTimings timings) {
+        return ShardPlan.create(resources().getPath(), index, count, strategy, timings);
+    }
+
+    private static List<String> names(File[] files) {
+        List<String> names = new ArrayList<>();
+        for (File file : files) {
+            names.add(file.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void hashGivesEveryTestToExactlyOneShard() throws IOException {
+        File[] files = scripts(numbered(0, 60));
+        Set<String> seen = new HashSet<>();
+        int total = 0;
+
+        for (int shard = 0; shard < 3; shard++) {
+            List<String> owned = names(plan(shard, 3, ShardPlan.HASH, TestTimings.load(null))
+                .select("beanshell", files));
+            assertFalse("shard " + shard + " got nothing", owned.isEmpty());
+            seen.addAll(owned);
+            total += owned.size();
+        }
+
+        assertEquals(60, seen.size());
+        assertEquals(60, total);
+    }
+
+    @Test
+    public void hashKeepsTestsOnTheirShardWhenOthersAreAdded() throws IOException {
+        File[] before = scripts(numbered(0, 30));
+        ShardPlan first = plan(0, 4, ShardPlan.HASH, TestTimings.load(null));
+        scripts(numbered(30, 50));
+
+        ShardPlan later = plan(0, 4, ShardPlan.HASH, TestTimings.load(null));
+
+        assertEquals(names(first.select("beanshell", before)), names(later.select("beanshell", before)));
+    }
+
+    @Test
+    public void durationPlacesLongestFirstOnTheLeastLoadedShard() throws IOException {
+        scripts("a.bsh", "b.bsh", "c.bsh", "d.bsh", "e.bsh");
+        TestTimings timings = TestTimings.load(null);
+        timings.record("beanshell/a.bsh", 900);
+        timings.record("beanshell/b.bsh", 500);
+        timings.record("beanshell/c.bsh", 400);
+        timings.record("beanshell/d.bsh", 300);
+        timings.record("beanshell/e.bsh", 200);
+
+        ShardPlan plan = plan(0, 2, ShardPlan.DURATION, timings);
+
+        // 900 and 500 start apart; 400 joins 500, 300 joins 900 on the tie, 200 goes to the lighter shard
+        assertEquals(Arrays.asList("a.bsh", "d.bsh"), plan.getAssigned(0, "beanshell"));
+        assertEquals(Arrays.asList("b.bsh", "c.bsh", "e.bsh"), plan.getAssigned(1, "beanshell"));
+        assertEquals(1200, plan.getPredictedNanos(0));
+        assertEquals(1100, plan.getPredictedNanos(1));
+    }
+
+    @Test
+    public void durationSpreadsTestsWithoutHistoryEvenly() throws IOException {
+        scripts(numbered(0, 9));
+
+        ShardPlan plan = plan(0, 3, ShardPlan.DURATION, TestTimings.load(null));
+
+        for (int shard = 0; shard < 3; shard++) {
+            assertEquals(3, plan.getAssignedCount(shard));
+        }
+    }
+
+    @Test
+    public void workersReadThePlanTheCoordinatorSaved() throws Exception {
+        File[] files = scripts(numbered(0, 20));
+        TestTimings timings = TestTimings.load(null);
+        timings.record("beanshell/check3.bsh", 5000);
+        ShardPlan coordinator = plan(0, 3, ShardPlan.DURATION, timings);
+        Path file = folder.getRoot().toPath().resolve("shard-plan.properties");
+        coordinator.save(file, "run-1");
+
+        for (int shard = 0; shard < 3; shard++) {
+            ShardPlan worker = ShardPlan.await(file, "run-1", shard, 1000);
+
+            assertEquals(shard == 0, worker.isPrimary());
+            List<String> selected = names(worker.select("beanshell", files));
+            Collections.sort(selected);
+            assertEquals(coordinator.getAssigned(shard, "beanshell"), selected);
+            assertEquals(coordinator.getPredictedNanos(shard), worker.getPredictedNanos(shard));
+        }
+    }
+
+    @Test
+    public void workerGivesUpOnAPlanFromAnotherRun() throws Exception {
+        scripts("a.bsh");
+        Path file = folder.getRoot().toPath().resolve("shard-plan.properties");
+        plan(0, 2, ShardPlan.HASH, TestTimings.load(null)).save(file, "older-run");
+
+        try {
+            ShardPlan.await(file, "run-1", 1, 300);
+            fail("expected a timeout");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("No shard plan for run run-1"));
+        }
+    }
+
+    @Test
+    public void fileAddedAfterThePlanIsStillRunOnce() throws IOException {
+        scripts(numbered(0, 5));
+        List<ShardPlan> plans = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            plans.add(plan(shard, 3, ShardPlan.DURATION, TestTimings.load(null)));
+        }
+        File[] added = scripts("late.bsh");
+
+        int owners = 0;
+        for (ShardPlan plan : plans) {
+            owners += plan.select("beanshell", added).length;
+        }
+
+        assertEquals(1, owners);
+    }
+}
@@ -0,0 +1,131 @@
+package com.piglet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SparqlEvaluatorTest {
+
+    private static final String PREFIX = "PREFIX ex: <http://example.org/>\n";
+
+    private Graph graph;
+    private IndexedGraph indexed;
+
+    private static Node ex(String name) {
+        return NodeFactory.createURI("http://example.org/" + name);
+    }
+
+    @Before
+    public void createGraphs() {
+        graph = Factory.createDefaultGraph();
+        CompactGraphBuilder builder = new CompactGraphBuilder();
+        Triple[] triples = {
+            Triple.create(ex("a"), ex("knows"), ex("b")),
+            Triple.create(ex("a"), ex("knows"), ex("c")),
+            Triple.create(ex("b"), ex("knows"), ex("c")),
+            Triple.create(ex("c"), ex("knows"), ex("c")),
+            Triple.create(ex("a"), ex("name"), NodeFactory.createLiteral("A")),
+            Triple.create(ex("b"), ex("name"), NodeFactory.createLiteral("B"))
+        };
+        for (Triple triple : triples) {
+            graph.add(triple);
+            builder.add(triple);
+        }
+        indexed = builder.build();
+    }
+
+    private static List<Node[]> rows(Graph graph, String query) {
+        List<Node[]> rows = new ArrayList<>();
+        try (SparqlEvaluator.RowIterator iterator = SparqlEvaluator.evaluate(graph, SparqlQuery.parse(PREFIX + query))) {
+            iterator.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+
+    private void assertCount(long expected, String query) {
+        SparqlQuery parsed = SparqlQuery.parse(PREFIX + query);
+        assertEquals(query, expected, SparqlEvaluator.count(graph, parsed));
+        // A single pattern is counted from the index range here
+        assertEquals(query, expected, SparqlEvaluator.count(indexed, parsed));
+    }
+
+    @Test
+    public void joinOrderStartsFromTheMostBoundPattern() {
+        List<SparqlQuery.TriplePattern> patterns = SparqlQuery.parse(PREFIX
+            + "SELECT * WHERE { ?x ?p ?y . ?y ex:name ?n . ?x ex:knows ex:c }").getPatterns();
+
+        List<SparqlQuery.TriplePattern> ordered = SparqlEvaluator.joinOrder(patterns);
+
+        assertEquals(patterns.get(2), ordered.get(0));
+        assertEquals(patterns.get(0), ordered.get(1));
+        assertEquals(patterns.get(1), ordered.get(2));
+    }
+
+    @Test
+    public void joinsOnSharedVariables() {
+        List<Node[]> rows = rows(graph, "SELECT ?x ?n WHERE { ?x ex:knows ?y . ?y ex:name ?n }");
+
+        assertEquals(1, rows.size());
+        assertArrayEquals(new Node[] { ex("a"), NodeFactory.createLiteral("B") }, rows.get(0));
+        assertEquals(rows.size(), rows(indexed, "SELECT ?x ?n WHERE { ?x ex:knows ?y . ?y ex:name ?n }").size());
+    }
+
+    @Test
+    public void repeatedVariableMustMatchTheSameTerm() {
+        List<Node[]> rows = rows(graph, "SELECT ?x WHERE { ?x ex:knows ?x }");
+
+        assertEquals(1, rows.size());
+        assertArrayEquals(new Node[] { ex("c") }, rows.get(0));
+        assertCount(1, "SELECT ?x WHERE { ?x ex:knows ?x }");
+    }
+
+    @Test
+    public void distinctDropsDuplicateRows() {
+        assertCount(4, "SELECT ?x WHERE { ?x ex:knows ?y }");
+        assertCount(3, "SELECT DISTINCT ?x WHERE { ?x ex:knows ?y }");
+
+        Set<Node> subjects = new HashSet<>();
+        for (Node[] row : rows(graph, "SELECT DISTINCT ?x WHERE { ?x ex:knows ?y }")) {
+            subjects.add(row[0]);
+        }
+        assertEquals(Set.of(ex("a"), ex("b"), ex("c")), subjects);
+    }
+
+    @Test
+    public void offsetAndLimitWindowTheRows() {
+        assertCount(2, "SELECT * WHERE { ?x ex:knows ?y } LIMIT 2");
+        assertCount(3, "SELECT * WHERE { ?x ex:knows ?y } OFFSET 1");
+        assertCount(1, "SELECT * WHERE { ?x ex:knows ?y } LIMIT 2 OFFSET 3");
+        assertCount(0, "SELECT * WHERE { ?x ex:knows ?y } OFFSET 4");
+        assertCount(0, "SELECT * WHERE { ?x ex:knows ?y } LIMIT 0");
+        assertCount(2, "SELECT DISTINCT ?x WHERE { ?x ex:knows ?y } OFFSET 1");
+    }
+
+    @Test
+    public void emptyWhereBlockHasOneEmptyRow() {
+        List<Node[]> rows = rows(graph, "SELECT * WHERE { }");
+
+        assertEquals(1, rows.size());
+        assertEquals(0, rows.get(0).length);
+        assertCount(1, "SELECT * WHERE { }");
+        assertCount(0, "SELECT * WHERE { } OFFSET 1");
+        assertCount(0, "SELECT * WHERE { } LIMIT 0");
+    }
+
+    @Test
+    public void noMatchGivesNoRows() {
+        assertCount(0, "SELECT * WHERE { ?x ex:missing ?y }");
+        assertCount(0, "SELECT * WHERE { ?x ex:name ?n . ?n ex:knows ?y }");
+    }
+}
@@ -0,0 +1,105 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Test;
+
+public class SparqlQueryTest {
+
+    private static Node object(String where) {
+        return SparqlQuery.parse("SELECT * WHERE { ?s ?p " + where + " }").getPatterns().get(0).getObject();
+    }
+
+    private static void assertRejected(String query, String expected) {
+        try {
+            SparqlQuery.parse(query);
+            fail("Parsed " + query);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expected));
+        }
+    }
+
+    @Test
+    public void parsesSelectWithModifiers() {
+        SparqlQuery query = SparqlQuery.parse("PREFIX ex: <http://example.org/>\n"
+            + "SELECT DISTINCT ?name WHERE {\n"
+            + "  ?person a ex:Person ; ex:name ?name .\n"
+            + "} LIMIT 10 OFFSET 5");
+
+        assertTrue(query.isDistinct());
+        assertEquals(10, query.getLimit());
+        assertEquals(5, query.getOffset());
+        assertEquals(Arrays.asList("name"), query.getProjection());
+        assertEquals(Arrays.asList("person", "name"), query.getVariables());
+        List<SparqlQuery.TriplePattern> patterns = query.getPatterns();
+        assertEquals(2, patterns.size());
+        assertEquals(RDF.type.asNode(), patterns.get(0).getPredicate());
+        assertEquals(NodeFactory.createURI("http://example.org/Person"), patterns.get(0).getObject());
+        assertEquals(NodeFactory.createVariable("person"), patterns.get(1).getSubject());
+        assertEquals(NodeFactory.createURI("http://example.org/name"), patterns.get(1).getPredicate());
+    }
+
+    @Test
+    public void selectStarProjectsEveryVariable() {
+        SparqlQuery query = SparqlQuery.parse("SELECT * WHERE { ?s ?p ?o , ?o2 }");
+
+        assertFalse(query.isDistinct());
+        assertEquals(-1, query.getLimit());
+        assertEquals(0, query.getOffset());
+        assertEquals(Arrays.asList("s", "p", "o", "o2"), query.getProjection());
+        assertEquals(2, query.getPatterns().size());
+    }
+
+    @Test
+    public void emptyWhereBlockHasNoPatterns() {
+        SparqlQuery query = SparqlQuery.parse("SELECT * WHERE { }");
+
+        assertTrue(query.getPatterns().isEmpty());
+        assertTrue(query.getProjection().isEmpty());
+    }
+
+    @Test
+    public void parsesLiterals() {
+        assertEquals(NodeFactory.createLiteral("chat", "fr"), object("\"chat\"@fr"));
+        assertEquals(NodeFactory.createLiteral("42", XSDDatatype.XSDinteger), object("42"));
+        assertEquals(NodeFactory.createLiteral("4.2", XSDDatatype.XSDdecimal), object("4.2"));
+        assertEquals(NodeFactory.createLiteral("4e2", XSDDatatype.XSDdouble), object("4e2"));
+        assertEquals(NodeFactory.createLiteral("true", XSDDatatype.XSDboolean), object("true"));
+        assertEquals(NodeFactory.createLiteral("7", XSDDatatype.XSDint),
+            object("\"7\"^^<http://www.w3.org/2001/XMLSchema#int>"));
+    }
+
+    @Test
+    public void decodesEscapes() {
+        assertEquals(NodeFactory.createLiteral("a\tb\n\"c\"\\"), object("\"a\\tb\\n\\\"c\\\"\\\\\""));
+        assertEquals(NodeFactory.createLiteral("caf\u00e9"), object("\"caf\\u00E9\""));
+        assertEquals(NodeFactory.createLiteral(new String(Character.toChars(0x1F600))), object("\"\\U0001F600\""));
+        assertEquals(NodeFactory.createURI("http://example.org/caf\u00e9"), object("<http://example.org/caf\\u00e9>"));
+    }
+
+    @Test
+    public void rejectsBadEscapes() {
+        assertRejected("SELECT * WHERE { ?s ?p \"\\q\" }", "Unknown escape '\\q'");
+        assertRejected("SELECT * WHERE { ?s ?p \"\\u00g9\" }", "Expected 4 hex digits after \\u");
+        assertRejected("SELECT * WHERE { ?s ?p \"\\U00110000\" }", "Invalid code point");
+        // Only UCHAR escapes are allowed in an IRI
+        assertRejected("SELECT * WHERE { ?s ?p <http://example.org/\\n> }", "Unknown escape '\\n'");
+    }
+
+    @Test
+    public void rejectsUnsupportedQueries() {
+        assertRejected("SELECT * WHERE { ?s ?p ?o FILTER(?o > 1) }", "Unsupported SPARQL feature: FILTER");
+        assertRejected("SELECT ?x WHERE { ?s ?p ?o }", "Projected variable ?x does not appear in WHERE");
+        assertRejected("SELECT * WHERE { ?s ex:p ?o }", "Undeclared prefix 'ex:'");
+        assertRejected("SELECT * WHERE { ?s ?p \"open }", "Unterminated string literal");
+    }
+}
@@ -0,0 +1,118 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TestResultsTest {
+
+    private static PigletRunner.TestResult result(int i, boolean passed, String type) {
+        return new PigletRunner.TestResult("t" + i, passed, passed ? "ok" : "wrong", type);
+    }
+
+    /** Adds {@code count} BeanShell results, every fifth one failing. */
+    private static void addRun(PigletRunner.TestResults results, int count) {
+        for (int i = 0; i < count; i++) {
+            results.add(result(i, i % 5 != 4, "BEANSHELL"));
+        }
+    }
+
+    private static int indexOf(PigletRunner.TestResult result) {
+        return Integer.parseInt(result.getName().substring(1));
+    }
+
+    @Test
+    public void countsEveryResultWhateverIsRetained() {
+        for (int limit : new int[] { -1, 0, 3 }) {
+            PigletRunner.TestResults results = new PigletRunner.TestResults(limit, new Random(1));
+            addRun(results, 100);
+            results.add(result(100, false, "SPARQL"));
+
+            assertEquals(101, results.getTotalTests());
+            assertEquals(80, results.getPassedTests());
+            assertEquals(21, results.getFailedTests());
+        }
+    }
+
+    @Test
+    public void keepsEveryResultByDefault() {
+        PigletRunner.TestResults results = new PigletRunner.TestResults();
+
+        addRun(results, 20);
+
+        assertEquals(20, results.getBeanShellResults().size());
+    }
+
+    @Test
+    public void failuresOnlyKeepsNoPasses() {
+        PigletRunner.TestResults results = new PigletRunner.TestResults(0);
+
+        addRun(results, 100);
+        results.add(result(100, true, "SPARQL"));
+
+        assertEquals(20, results.getBeanShellResults().size());
+        for (PigletRunner.TestResult kept : results.getBeanShellResults()) {
+            assertFalse(kept.isPassed());
+        }
+        assertTrue(results.getSparqlResults().isEmpty());
+    }
+
+    @Test
+    public void samplingKeepsEveryFailureAndAtMostTheLimitOfPassesInOrder() {
+        PigletRunner.TestResults results = new PigletRunner.TestResults(5, new Random(7));
+
+        addRun(results, 1000);
+        results.add(result(0, true, "SPARQL"));
+
+        List<PigletRunner.TestResult> kept = results.getBeanShellResults();
+        int passes = 0;
+        int failures = 0;
+        for (int i = 0; i < kept.size(); i++) {
+            if (kept.get(i).isPassed()) {
+                passes++;
+            } else {
+                failures++;
+            }
+            if (i > 0) {
+                assertTrue("out of order at " + i, indexOf(kept.get(i - 1)) < indexOf(kept.get(i)));
+            }
+        }
+        assertEquals(5, passes);
+        assertEquals(200, failures);
+        // Each kind has its own sample
+        assertEquals(1, results.getSparqlResults().size());
+    }
+
+    @Test
+    public void sampleIsSpreadOverTheWholeRun() {
+        // Over many runs every pass is about equally likely to be kept, the last ones included
+        int[] kept = new int[10];
+        Random random = new Random(42);
+        for (int run = 0; run < 2000; run++) {
+            PigletRunner.TestResults results = new PigletRunner.TestResults(2, random);
+            for (int i = 0; i < 10; i++) {
+                results.add(result(i, true, "BEANSHELL"));
+            }
+            for (PigletRunner.TestResult result : results.getBeanShellResults()) {
+                kept[indexOf(result)]++;
+            }
+        }
+
+        // Expected 2000 * 2 / 10 = 400 each
+        for (int i = 0; i < kept.length; i++) {
+            assertTrue("pass " + i + " kept " + kept[i] + " times", kept[i] > 320 && kept[i] < 480);
+        }
+    }
+
+    @Test
+    public void retentionSettingIsParsed() {
+        assertEquals(-1, PigletRunner.passedToRetain("all"));
+        assertEquals(0, PigletRunner.passedToRetain("failures"));
+        assertEquals(25, PigletRunner.passedToRetain("sample:25"));
+        assertEquals(-1, PigletRunner.passedToRetain("sample:many"));
+    }
+}
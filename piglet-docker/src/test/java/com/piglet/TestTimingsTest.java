@@ -0,0 +1,69 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestTimingsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve("test-timings.properties");
+        Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+        return file;
+    }
+
+    @Test
+    public void damagedLineOnlyLosesItsOwnTiming() throws IOException {
+        TestTimings timings = TestTimings.load(write(
+            "beanshell/a.bsh=400\nbeanshell/b.bsh=12x\nsparql/q.sparql=200\nsparql/r.sparql=-5\n"));
+
+        assertEquals(400, timings.estimate("beanshell/a.bsh"));
+        assertEquals(200, timings.estimate("sparql/q.sparql"));
+        assertFalse(timings.isKnown("beanshell/b.bsh"));
+        assertFalse(timings.isKnown("sparql/r.sparql"));
+        assertEquals(300, timings.estimate("beanshell/b.bsh"));
+    }
+
+    @Test
+    public void fileThatPropertiesCannotReadMeansNoHistory() throws IOException {
+        TestTimings timings = TestTimings.load(write("beanshell/a.bsh=400\nbroken=\\uZZZZ\n"));
+
+        assertFalse(timings.isKnown("beanshell/a.bsh"));
+        assertEquals(1_000_000L, timings.estimate("beanshell/a.bsh"));
+    }
+
+    @Test
+    public void saveAveragesWithWhatOtherRunsWrote() throws IOException {
+        Path file = write("beanshell/a.bsh=400\n");
+        TestTimings first = TestTimings.load(file);
+        TestTimings second = TestTimings.load(file);
+        first.record("beanshell/a.bsh", 200);
+        second.record("sparql/q.sparql", 50);
+        first.save();
+        second.save();
+
+        TestTimings next = TestTimings.load(file);
+
+        assertEquals(300, next.estimate("beanshell/a.bsh"));
+        assertEquals(50, next.estimate("sparql/q.sparql"));
+        assertTrue(next.isKnown("sparql/q.sparql"));
+    }
+
+    @Test
+    public void rowsOfADataDrivenScriptShareTheScriptsKey() {
+        assertEquals("beanshell/check.bsh",
+            TestTimings.key(new PigletRunner.TestResult("check.bsh[3]", true, "", "BEANSHELL")));
+        assertEquals("sparql/q.sparql", TestTimings.key(new PigletRunner.TestResult("q.sparql", true, "", "SPARQL")));
+    }
+}
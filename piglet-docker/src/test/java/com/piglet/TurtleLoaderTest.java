@@ -0,0 +1,104 @@
+package com.piglet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.WrappedGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TurtleLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** A Turtle file with {@code count} triples whose subjects are named {@code name1, name2, ...}. */
+    private File data(String name, int count) throws IOException {
+        StringBuilder turtle = new StringBuilder("@prefix ex: <http://example.org/> .\n");
+        for (int i = 1; i <= count; i++) {
+            turtle.append("ex:").append(name).append(i).append(" ex:value ").append(i).append(" .\n");
+        }
+        return write(name + ".ttl", turtle.toString());
+    }
+
+    private File write(String name, String turtle) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), turtle.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static boolean hasSubject(Graph graph, String name) {
+        return graph.contains(NodeFactory.createURI("http://example.org/" + name), null, null);
+    }
+
+    @Test
+    public void loadsEveryFileOnSeveralThreads() throws Exception {
+        File[] files = { data("a", 50), data("b", 40), data("c", 30), data("d", 1) };
+        Graph graph = Factory.createDefaultGraph();
+
+        TurtleLoader.LoadStats stats = new TurtleLoader(3, 7).load(files, graph);
+
+        assertEquals(4, stats.getFiles());
+        assertEquals(121, stats.getTriples());
+        assertEquals(3, stats.getThreads());
+        assertEquals(121, graph.size());
+        assertTrue(hasSubject(graph, "a50"));
+        assertTrue(hasSubject(graph, "d1"));
+        assertEquals("http://example.org/", graph.getPrefixMapping().getNsPrefixURI("ex"));
+    }
+
+    @Test
+    public void onlyTheCallingThreadWritesToTheGraph() throws Exception {
+        File[] files = { data("a", 100), data("b", 100), data("c", 100) };
+        Set<Thread> writers = Collections.synchronizedSet(new HashSet<>());
+        Graph graph = new WrappedGraph(Factory.createDefaultGraph()) {
+            @Override
+            public void performAdd(Triple triple) {
+                writers.add(Thread.currentThread());
+                super.performAdd(triple);
+            }
+        };
+
+        new TurtleLoader(3, 10).load(files, graph);
+
+        assertEquals(Collections.singleton(Thread.currentThread()), writers);
+        assertEquals(300, graph.size());
+    }
+
+    @Test
+    public void syntaxErrorSkipsTheFileButKeepsWhatWasParsed() throws Exception {
+        File broken = write("broken.ttl", "@prefix ex: <http://example.org/> .\n"
+            + "ex:s1 ex:value 1 .\nex:s2 ex:value 2 .\nex:s3 ex:value ;;; .\nex:s4 ex:value 4 .\n");
+        Graph graph = Factory.createDefaultGraph();
+
+        TurtleLoader.LoadStats stats = new TurtleLoader(2, 1).load(new File[] { broken, data("good", 5) }, graph);
+
+        assertEquals(1, stats.getFiles());
+        assertEquals(7, graph.size());
+        assertTrue(hasSubject(graph, "s2"));
+        assertFalse(hasSubject(graph, "s4"));
+        assertTrue(hasSubject(graph, "good5"));
+    }
+
+    @Test
+    public void neverStartsMoreThreadsThanFiles() throws Exception {
+        TurtleLoader.LoadStats stats = new TurtleLoader(8, 100).load(new File[] { data("a", 3) },
+            Factory.createDefaultGraph());
+
+        assertEquals(1, stats.getThreads());
+        assertEquals(3, stats.getTriples());
+    }
+}